@@ -0,0 +1,44 @@
+package com.teamviewer.challenge.ecommerce.benchmark;
+
+import com.teamviewer.challenge.ecommerce.EcommerceCrudApiApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.UUID;
+import java.util.stream.Stream;
+
+// Starts the application against a private H2 database in PostgreSQL mode, without a web server unless asked for
+public final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    public static ConfigurableApplicationContext start(String... extraArgs) {
+        return builder().run(args(extraArgs));
+    }
+
+    public static SpringApplicationBuilder builder() {
+        return new SpringApplicationBuilder(EcommerceCrudApiApplication.class).web(WebApplicationType.NONE);
+    }
+
+    // Passed as command line arguments because those override application.yml
+    // JDBC and R2DBC open the same in-memory database
+    public static String[] args(String... extraArgs) {
+        String database = "bench-" + UUID.randomUUID() + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH";
+        return Stream.concat(Stream.of(
+                "--spring.datasource.url=jdbc:h2:mem:" + database,
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.r2dbc.url=r2dbc:h2:mem:///" + database,
+                "--spring.r2dbc.username=sa",
+                "--spring.r2dbc.password=",
+                "--spring.jpa.hibernate.ddl-auto=create-drop",
+                "--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+                "--spring.jpa.show-sql=false",
+                // The migrations are written for PostgreSQL, Hibernate creates the tables instead
+                "--spring.flyway.enabled=false",
+                "--logging.level.root=WARN"), Stream.of(extraArgs)).toArray(String[]::new);
+    }
+}
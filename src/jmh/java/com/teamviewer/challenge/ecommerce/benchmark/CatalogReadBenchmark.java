@@ -0,0 +1,134 @@
+package com.teamviewer.challenge.ecommerce.benchmark;
+
+import com.teamviewer.challenge.ecommerce.dto.ProductDto;
+import com.teamviewer.challenge.ecommerce.service.ProductServiceImpl;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Catalog page reads through the blocking JPA endpoint and the R2DBC one, under a burst of concurrent requests.
+// One operation is a whole burst; the footprint counters report the peak number of database connections in use
+// and the slowest request of the burst.
+// JMH adds up event counters across measurement iterations, so the peaks are only meaningful with a single one.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 1, time = 30)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class CatalogReadBenchmark {
+
+    @Param({"jpa", "reactive"})
+    private String path;
+
+    @Param({"2000"})
+    private int concurrency;
+
+    @Param({"5"})
+    private int dbLatencyMs;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private ExecutorService clientExecutor;
+    private HttpRequest request;
+    private Gauge connectionsInUse;
+    private ScheduledExecutorService sampler;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long peakConnections;
+        public long maxLatencyMs;
+        public long failedRequests;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            peakConnections = 0;
+            maxLatencyMs = 0;
+            failedRequests = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.builder()
+                .web(WebApplicationType.SERVLET)
+                .initializers(DatabaseLatency.initializer(Duration.ofMillis(dbLatencyMs)))
+                .run(BenchmarkApplication.args(
+                        "--server.port=0",
+                        "--server.tomcat.max-connections=" + concurrency * 2,
+                        "--server.tomcat.accept-count=" + concurrency,
+                        // Same ceiling as the R2DBC pool
+                        "--spring.datasource.hikari.maximum-pool-size=20",
+                        "--spring.datasource.hikari.connection-timeout=60000"));
+
+        ProductServiceImpl productService = context.getBean(ProductServiceImpl.class);
+        for (int i = 0; i < 200; i++) productService.createProduct(new ProductDto("Product " + i, new BigDecimal("12.34"), 100));
+
+        MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+        connectionsInUse = path.equals("jpa")
+                ? meterRegistry.get("hikaricp.connections.active").gauge()
+                : meterRegistry.get("r2dbc.pool.acquired").gauge();
+        sampler = Executors.newSingleThreadScheduledExecutor();
+
+        clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientExecutor)
+                .build();
+        String port = context.getEnvironment().getProperty("local.server.port");
+        String prefix = path.equals("jpa") ? "/api/products" : "/api/reactive/products";
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + prefix + "?limit=50"))
+                .timeout(Duration.ofSeconds(60))
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        sampler.shutdownNow();
+        clientExecutor.close();
+        context.close();
+    }
+
+    @Benchmark
+    public long burst(Footprint footprint) {
+        AtomicLong failed = new AtomicLong();
+        AtomicLong peakConnections = new AtomicLong();
+        List<Long> latencies = new CopyOnWriteArrayList<>();
+        ScheduledFuture<?> sampling = sampler.scheduleAtFixedRate(
+                () -> peakConnections.accumulateAndGet((long) connectionsInUse.value(), Math::max), 0, 1, TimeUnit.MILLISECONDS);
+        try (ExecutorService burst = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                burst.execute(() -> {
+                    long start = System.nanoTime();
+                    try {
+                        if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) failed.incrementAndGet();
+                    } catch (IOException | InterruptedException ex) {
+                        failed.incrementAndGet();
+                    }
+                    latencies.add((System.nanoTime() - start) / 1_000_000);
+                });
+            }
+        } finally {
+            sampling.cancel(false);
+        }
+        footprint.failedRequests += failed.get();
+        footprint.peakConnections = Math.max(footprint.peakConnections, peakConnections.get());
+        footprint.maxLatencyMs = Math.max(footprint.maxLatencyMs, new ArrayList<>(latencies).stream().mapToLong(Long::longValue).max().orElse(0));
+        return failed.get();
+    }
+}
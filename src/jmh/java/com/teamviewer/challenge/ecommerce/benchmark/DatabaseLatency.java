@@ -0,0 +1,76 @@
+package com.teamviewer.challenge.ecommerce.benchmark;
+
+import io.r2dbc.spi.ConnectionFactory;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.reactivestreams.Publisher;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+
+// Adds a fixed delay to every statement execution, standing in for the network round trip to a real database that an
+// in-memory H2 does not have. JDBC statements sleep outside any driver lock, so a virtual thread parks;
+// R2DBC statements delay their result publisher, so no thread waits at all.
+public final class DatabaseLatency {
+
+    private DatabaseLatency() {
+    }
+
+    public static ApplicationContextInitializer<ConfigurableApplicationContext> initializer(Duration latency) {
+        return context -> context.getBeanFactory().addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (latency.isZero()) return bean;
+                if (!(bean instanceof DataSource) && !(bean instanceof ConnectionFactory)) return bean;
+                // A subclass proxy keeps the bean assignable to HikariDataSource and ConnectionPool,
+                // which the factory methods declare and the pool metrics look for
+                ProxyFactory proxyFactory = new ProxyFactory(bean);
+                proxyFactory.setProxyTargetClass(true);
+                proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+                    Object result = invocation.proceed();
+                    if (result instanceof java.sql.Connection) return wrap(java.sql.Connection.class, result, latency);
+                    if (bean instanceof ConnectionFactory && invocation.getMethod().getName().equals("create")) {
+                        return Mono.from((Publisher<?>) result)
+                                .map(connection -> wrap(io.r2dbc.spi.Connection.class, connection, latency));
+                    }
+                    return result;
+                });
+                return proxyFactory.getProxy();
+            }
+        });
+    }
+
+    private static Object wrap(Class<?> type, Object target, Duration latency) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (java.sql.Statement.class.isAssignableFrom(type) && method.getName().startsWith("execute")) Thread.sleep(latency);
+            Object result = invoke(method, target, args);
+            if (result == target) return proxy;
+            if (type == io.r2dbc.spi.Statement.class && method.getName().equals("execute")) {
+                return Mono.delay(latency).thenMany(Flux.from((Publisher<?>) result));
+            }
+            if (type == java.sql.Connection.class && result instanceof java.sql.Statement) {
+                return wrap(method.getReturnType(), result, latency);
+            }
+            if (type == io.r2dbc.spi.Connection.class && method.getName().equals("createStatement")) {
+                return wrap(io.r2dbc.spi.Statement.class, result, latency);
+            }
+            return result;
+        });
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getCause();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.teamviewer.challenge.ecommerce.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teamviewer.challenge.ecommerce.entity.Order;
+import com.teamviewer.challenge.ecommerce.entity.OrderItem;
+import com.teamviewer.challenge.ecommerce.entity.Product;
+import com.teamviewer.challenge.ecommerce.model.OrderResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+// JSON cost of a large order, as the entity graph and as the response projection the controllers return
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"10", "1000"})
+    private int items;
+
+    private ObjectMapper objectMapper;
+    private Order order;
+    private OrderResponse orderResponse;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        order = new Order();
+        order.setId(1L);
+        order.setCustomerName("Benchmark Customer");
+        order.setAddress("1 Benchmark Street");
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < items; i++) {
+            Product product = new Product();
+            product.setId((long) i);
+            product.setName("Product " + i);
+            product.setPrice(new BigDecimal("12.34"));
+            product.setUnitsInStock(100);
+
+            OrderItem orderItem = new OrderItem();
+            orderItem.setId((long) i);
+            orderItem.setProduct(product);
+            orderItem.setQuantity(3);
+            orderItem.setOrderItemPrice(new BigDecimal("37.02"));
+            order.addOrderItem(orderItem);
+            total = total.add(orderItem.getOrderItemPrice());
+        }
+        order.setTotalPrice(total);
+        orderResponse = OrderResponse.from(order);
+    }
+
+    @Benchmark
+    public byte[] orderEntity() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public byte[] orderResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(orderResponse);
+    }
+
+    @Benchmark
+    public byte[] mapAndSerialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(OrderResponse.from(order));
+    }
+}
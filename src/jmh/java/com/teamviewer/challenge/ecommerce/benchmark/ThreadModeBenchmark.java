@@ -0,0 +1,139 @@
+package com.teamviewer.challenge.ecommerce.benchmark;
+
+import com.teamviewer.challenge.ecommerce.dto.OrderItemDto;
+import com.teamviewer.challenge.ecommerce.dto.ProductDto;
+import com.teamviewer.challenge.ecommerce.service.OrderItemServiceImpl;
+import com.teamviewer.challenge.ecommerce.service.ProductServiceImpl;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Platform vs virtual request threads under a burst of concurrent connections, each request making two sequential
+// JDBC round trips (the order item, then its product). One operation is a whole burst, so throughput is
+// connections / score. The footprint counters report the peak platform thread count and the peak resident set size.
+// JMH adds up event counters across measurement iterations, so the peaks are only meaningful with a single one.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 1, time = 30)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx1g", "-Xss1m"})
+public class ThreadModeBenchmark {
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    @Param({"5000"})
+    private int connections;
+
+    @Param({"2", "20"})
+    private int jdbcLatencyMs;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private ExecutorService clientExecutor;
+    private HttpRequest request;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public long peakPlatformThreads;
+        public long peakRssMb;
+        public long failedRequests;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            peakPlatformThreads = 0;
+            peakRssMb = 0;
+            failedRequests = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.builder()
+                .web(WebApplicationType.SERVLET)
+                .initializers(DatabaseLatency.initializer(Duration.ofMillis(jdbcLatencyMs)))
+                .run(BenchmarkApplication.args(
+                        "--server.port=0",
+                        "--spring.threads.virtual.enabled=" + threads.equals("virtual"),
+                        // Both modes get enough connections that the pool is not what limits them
+                        "--spring.datasource.hikari.maximum-pool-size=500",
+                        "--spring.datasource.hikari.connection-timeout=60000",
+                        "--server.tomcat.max-connections=" + connections * 2,
+                        "--server.tomcat.accept-count=" + connections));
+
+        Long productId = context.getBean(ProductServiceImpl.class)
+                .createProduct(new ProductDto("Benchmark Product", new BigDecimal("12.34"), 1000))
+                .getId();
+        OrderItemDto orderItemDto = new OrderItemDto();
+        orderItemDto.setProductId(productId);
+        orderItemDto.setQuantity(1);
+        Long orderItemId = context.getBean(OrderItemServiceImpl.class).createOrderItem(orderItemDto).getId();
+
+        clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientExecutor)
+                .build();
+        String port = context.getEnvironment().getProperty("local.server.port");
+        request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/order-items/" + orderItemId))
+                .timeout(Duration.ofSeconds(60))
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        clientExecutor.close();
+        context.close();
+    }
+
+    // The client side always uses virtual threads, so only the server's threads show up in the platform thread count
+    @Benchmark
+    public long burst(Footprint footprint) {
+        AtomicLong failed = new AtomicLong();
+        try (ExecutorService burst = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < connections; i++) {
+                burst.execute(() -> {
+                    try {
+                        if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) failed.incrementAndGet();
+                    } catch (IOException | InterruptedException ex) {
+                        failed.incrementAndGet();
+                    }
+                });
+            }
+        }
+        footprint.failedRequests += failed.get();
+        footprint.peakPlatformThreads = ManagementFactory.getThreadMXBean().getPeakThreadCount();
+        footprint.peakRssMb = peakRssMb();
+        return failed.get();
+    }
+
+    // VmHWM is the peak resident set size of this forked JVM, -1 where /proc is not available
+    private static long peakRssMb() {
+        try {
+            return Files.readAllLines(Path.of("/proc/self/status")).stream()
+                    .filter(line -> line.startsWith("VmHWM:"))
+                    .mapToLong(line -> Long.parseLong(line.replaceAll("\\D", "")) / 1024)
+                    .findFirst()
+                    .orElse(-1);
+        } catch (IOException ex) {
+            return -1;
+        }
+    }
+}
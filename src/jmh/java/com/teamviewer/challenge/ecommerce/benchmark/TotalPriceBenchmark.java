@@ -0,0 +1,58 @@
+package com.teamviewer.challenge.ecommerce.benchmark;
+
+import com.teamviewer.challenge.ecommerce.entity.OrderItem;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Order total as OrderServiceImpl.processOrder computes it, against a plain loop over the same items
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TotalPriceBenchmark {
+
+    @Param({"10", "1000"})
+    private int items;
+
+    private List<OrderItem> orderItems;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        orderItems = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            OrderItem orderItem = new OrderItem();
+            orderItem.setOrderItemPrice(BigDecimal.valueOf(random.nextInt(1_000_000), 2));
+            orderItems.add(orderItem);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal streamReduce() {
+        return orderItems.stream()
+                .map(OrderItem::getOrderItemPrice)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    @Benchmark
+    public BigDecimal loop() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (OrderItem orderItem : orderItems) total = total.add(orderItem.getOrderItemPrice());
+        return total;
+    }
+
+    // Exact as long as every price has scale 2 and the sum fits in a long of cents
+    @Benchmark
+    public BigDecimal unscaledCents() {
+        long cents = 0;
+        for (OrderItem orderItem : orderItems) cents += orderItem.getOrderItemPrice().unscaledValue().longValueExact();
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
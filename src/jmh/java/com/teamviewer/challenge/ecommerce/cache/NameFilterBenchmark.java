@@ -0,0 +1,94 @@
+package com.teamviewer.challenge.ecommerce.cache;
+
+import com.teamviewer.challenge.ecommerce.repository.ProductRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Product name filter sized like the default name-filter settings: one million names at a 1% false positive rate.
+// The unique-name check is the one createProduct makes. H2 cannot index lower(name), so the indexed lookup it skips
+// is stood in for by a fixed round trip.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NameFilterBenchmark {
+
+    private static final int NAMES = 1_000_000;
+
+    @Param({"200"})
+    private long lookupMicros;
+
+    private ProductNameFilter filter;
+    private Duration lookup;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        filter = build();
+        lookup = Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(lookupMicros));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public ProductNameFilter build() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.count()).thenReturn((long) NAMES);
+        when(productRepository.streamAllNames())
+                .thenAnswer(invocation -> IntStream.range(0, NAMES).mapToObj(i -> "Product " + i));
+        ProductNameFilter productNameFilter = new ProductNameFilter(productRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), Runnable::run, NAMES, 0.01);
+        productNameFilter.rebuild();
+        return productNameFilter;
+    }
+
+    @Benchmark
+    public boolean mightContainPresent() {
+        return filter.mightContain("Product " + (next++ % NAMES));
+    }
+
+    @Benchmark
+    public boolean mightContainMissing() {
+        return filter.mightContain("Missing " + (next++ % NAMES));
+    }
+
+    // A new name: the filter rules it out and the lookup is skipped, except for false positives
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean uniqueNameCheckNewName() throws InterruptedException {
+        String name = "Missing " + (next++ % NAMES);
+        return filter.mightContain(name) && existsByNameIgnoreCase(name);
+    }
+
+    // A taken name: the filter cannot rule it out and the lookup runs
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean uniqueNameCheckTakenName() throws InterruptedException {
+        String name = "Product " + (next++ % NAMES);
+        return filter.mightContain(name) && existsByNameIgnoreCase(name);
+    }
+
+    // The check without the filter, as before it
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public boolean uniqueNameCheckWithoutFilter() throws InterruptedException {
+        return existsByNameIgnoreCase("Missing " + (next++ % NAMES));
+    }
+
+    private boolean existsByNameIgnoreCase(String name) throws InterruptedException {
+        Thread.sleep(lookup);
+        return name.startsWith("Product ");
+    }
+}
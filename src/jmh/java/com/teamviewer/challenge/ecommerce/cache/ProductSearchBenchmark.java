@@ -0,0 +1,115 @@
+package com.teamviewer.challenge.ecommerce.cache;
+
+import com.teamviewer.challenge.ecommerce.model.ProductName;
+import com.teamviewer.challenge.ecommerce.repository.ProductRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Search latency over one million products named like "Vintage Steel Mug 123456": 8000 distinct word combinations,
+// each shared by 125 products, plus a number of its own. Pages are 51 ids, as the endpoint asks for by default.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProductSearchBenchmark {
+
+    private static final int PRODUCTS = 1_000_000;
+    private static final int PAGE = 51;
+
+    private static final String[] ADJECTIVES = {"vintage", "modern", "classic", "rustic", "compact", "deluxe", "slim",
+            "rugged", "premium", "basic", "elegant", "portable", "heavy", "light", "smart", "retro", "sturdy", "soft",
+            "bold", "quiet"};
+    private static final String[] MATERIALS = {"steel", "oak", "ceramic", "glass", "cotton", "leather", "bamboo",
+            "copper", "linen", "marble", "wool", "silicone", "walnut", "brass", "stone", "denim", "silk", "cork",
+            "aluminium", "porcelain"};
+    private static final String[] NOUNS = {"mug", "lamp", "chair", "table", "shelf", "bowl", "vase", "clock",
+            "mirror", "basket", "kettle", "blanket", "pillow", "tray", "stool", "bench", "jar", "plate", "rug",
+            "candle"};
+
+    private ProductSearchIndex index;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        index = build();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public ProductSearchIndex build() {
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.streamAllIdsAndNames())
+                .thenAnswer(invocation -> LongStream.rangeClosed(1, PRODUCTS).mapToObj(id -> new ProductName(id, name(id))));
+        ProductSearchIndex searchIndex = new ProductSearchIndex(productRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), "memory");
+        searchIndex.build();
+        return searchIndex;
+    }
+
+    // Two whole words, 2500 matches
+    @Benchmark
+    public Optional<List<Long>> twoWords() {
+        int i = next++;
+        return index.search(List.of(MATERIALS[i % MATERIALS.length], NOUNS[i / MATERIALS.length % NOUNS.length]), 0, PAGE);
+    }
+
+    // Three whole words, 125 matches
+    @Benchmark
+    public Optional<List<Long>> threeWords() {
+        int i = next++;
+        return index.search(List.of(ADJECTIVES[i % ADJECTIVES.length], MATERIALS[i / ADJECTIVES.length % MATERIALS.length],
+                NOUNS[i % NOUNS.length]), 0, PAGE);
+    }
+
+    // A word and a prefix of the product numbers, ranging over about 11000 number tokens
+    @Benchmark
+    public Optional<List<Long>> wordAndNumberPrefix() {
+        int i = next++;
+        return index.search(List.of(NOUNS[i % NOUNS.length], Integer.toString(10 + i % 90)), 0, PAGE);
+    }
+
+    // One letter, a prefix of several words, matching a large share of the products
+    @Benchmark
+    public Optional<List<Long>> singleLetter() {
+        int i = next++;
+        return index.search(List.of(String.valueOf(NOUNS[i % NOUNS.length].charAt(0))), 0, PAGE);
+    }
+
+    // A deep page of a broad query
+    @Benchmark
+    public Optional<List<Long>> oneWordPage100() {
+        int i = next++;
+        return index.search(List.of(NOUNS[i % NOUNS.length]), 100L * (PAGE - 1), PAGE);
+    }
+
+    // A rename and back, outside a transaction, so both apply right away; the shared words sit in the middle of
+    // postings of 50000 ids
+    @Benchmark
+    public void rename() {
+        long id = 1 + (next++ % PRODUCTS);
+        String name = name(id);
+        index.update(id, name, "renamed " + id);
+        index.update(id, "renamed " + id, name);
+    }
+
+    private static String name(long id) {
+        int combination = (int) (id % (ADJECTIVES.length * MATERIALS.length * NOUNS.length));
+        return ADJECTIVES[combination % ADJECTIVES.length] + " "
+                + MATERIALS[combination / ADJECTIVES.length % MATERIALS.length] + " "
+                + NOUNS[combination / (ADJECTIVES.length * MATERIALS.length)] + " " + id;
+    }
+}
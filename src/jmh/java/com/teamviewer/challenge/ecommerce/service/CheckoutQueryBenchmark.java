@@ -0,0 +1,147 @@
+package com.teamviewer.challenge.ecommerce.service;
+
+import com.teamviewer.challenge.ecommerce.benchmark.BenchmarkApplication;
+import com.teamviewer.challenge.ecommerce.dto.CheckoutDto;
+import com.teamviewer.challenge.ecommerce.dto.OrderDto;
+import com.teamviewer.challenge.ecommerce.dto.OrderItemDto;
+import com.teamviewer.challenge.ecommerce.dto.ProductDto;
+import com.teamviewer.challenge.ecommerce.entity.Order;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// A checkout with and without Hibernate's second-level and query cache, on H2 in PostgreSQL mode: one order item per
+// product in the basket, then the order over them, against the same basket through the one-call checkout. Next to the
+// time, the counters report the JDBC statements and the second-level cache hits of an average checkout, read from
+// Hibernate's statistics.
+// JMH adds up event counters across measurement iterations, so the averages are only meaningful with a single one.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 1, time = 5)
+@Fork(1)
+public class CheckoutQueryBenchmark {
+
+    @Param({"false", "true"})
+    private boolean secondLevelCache;
+
+    @Param({"5"})
+    private int basketSize;
+
+    private ConfigurableApplicationContext context;
+    private OrderItemServiceImpl orderItemService;
+    private OrderServiceImpl orderService;
+    private TransactionTemplate transactionTemplate;
+    private Statistics statistics;
+
+    private final List<Long> productIds = new ArrayList<>();
+    private long checkoutCounter;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Queries {
+        public double statementsPerCheckout;
+        public double cacheHitsPerCheckout;
+
+        private long checkouts;
+        private long statements;
+        private long cacheHits;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            statementsPerCheckout = 0;
+            cacheHitsPerCheckout = 0;
+            checkouts = 0;
+            statements = 0;
+            cacheHits = 0;
+        }
+
+        void record(long statementCount, long cacheHitCount) {
+            checkouts++;
+            statements += statementCount;
+            cacheHits += cacheHitCount;
+            statementsPerCheckout = (double) statements / checkouts;
+            cacheHitsPerCheckout = (double) cacheHits / checkouts;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start(
+                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=" + secondLevelCache,
+                "--spring.jpa.properties.hibernate.cache.use_query_cache=" + secondLevelCache,
+                "--spring.jpa.properties.hibernate.generate_statistics=true");
+        ProductServiceImpl productService = context.getBean(ProductServiceImpl.class);
+        orderItemService = context.getBean(OrderItemServiceImpl.class);
+        orderService = context.getBean(OrderServiceImpl.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        for (int i = 0; i < 20; i++) {
+            productIds.add(productService.createProduct(
+                    new ProductDto("Product " + i, new BigDecimal("12.34"), Integer.MAX_VALUE)).getId());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    // Baskets rotate through the products, so their stock changes between two reads of the same one
+    @Benchmark
+    public Order checkout(Queries queries) {
+        long statementsBefore = statistics.getPrepareStatementCount();
+        long cacheHitsBefore = statistics.getSecondLevelCacheHitCount() + statistics.getQueryCacheHitCount();
+
+        List<Long> orderItemIds = new ArrayList<>(basketSize);
+        for (OrderItemDto orderItemDto : nextBasket()) {
+            orderItemIds.add(orderItemService.createOrderItem(orderItemDto).getId());
+        }
+        OrderDto orderDto = new OrderDto();
+        orderDto.setCustomerName("Customer " + checkoutCounter++);
+        orderDto.setAddress("1 Benchmark Street");
+        orderDto.setOrderItemIds(orderItemIds);
+        Order order = transactionTemplate.execute(status -> orderService.createOrder(orderDto));
+
+        queries.record(statistics.getPrepareStatementCount() - statementsBefore,
+                statistics.getSecondLevelCacheHitCount() + statistics.getQueryCacheHitCount() - cacheHitsBefore);
+        return order;
+    }
+
+    @Benchmark
+    public Order oneCallCheckout(Queries queries) {
+        long statementsBefore = statistics.getPrepareStatementCount();
+        long cacheHitsBefore = statistics.getSecondLevelCacheHitCount() + statistics.getQueryCacheHitCount();
+
+        CheckoutDto checkoutDto = new CheckoutDto();
+        checkoutDto.setItems(nextBasket());
+        checkoutDto.setCustomerName("Customer " + checkoutCounter++);
+        checkoutDto.setAddress("1 Benchmark Street");
+        Order order = orderService.checkout(checkoutDto);
+
+        queries.record(statistics.getPrepareStatementCount() - statementsBefore,
+                statistics.getSecondLevelCacheHitCount() + statistics.getQueryCacheHitCount() - cacheHitsBefore);
+        return order;
+    }
+
+    private List<OrderItemDto> nextBasket() {
+        List<OrderItemDto> basket = new ArrayList<>(basketSize);
+        for (int i = 0; i < basketSize; i++) {
+            OrderItemDto orderItemDto = new OrderItemDto();
+            orderItemDto.setProductId(productIds.get((int) ((checkoutCounter * basketSize + i) % productIds.size())));
+            orderItemDto.setQuantity(1);
+            basket.add(orderItemDto);
+        }
+        return basket;
+    }
+}
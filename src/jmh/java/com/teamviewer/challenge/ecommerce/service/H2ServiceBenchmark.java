@@ -0,0 +1,77 @@
+package com.teamviewer.challenge.ecommerce.service;
+
+import com.teamviewer.challenge.ecommerce.benchmark.BenchmarkApplication;
+import com.teamviewer.challenge.ecommerce.dto.OrderDto;
+import com.teamviewer.challenge.ecommerce.dto.OrderItemDto;
+import com.teamviewer.challenge.ecommerce.dto.ProductDto;
+import com.teamviewer.challenge.ecommerce.entity.Order;
+import com.teamviewer.challenge.ecommerce.entity.OrderItem;
+import com.teamviewer.challenge.ecommerce.entity.Product;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// The same service methods through the real Spring context, Hibernate and an embedded H2 in PostgreSQL mode
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class H2ServiceBenchmark {
+
+    @Param({"10", "100"})
+    private int items;
+
+    private ConfigurableApplicationContext context;
+    private OrderItemServiceImpl orderItemService;
+    private OrderServiceImpl orderService;
+    private TransactionTemplate transactionTemplate;
+
+    private OrderItemDto orderItemDto;
+    private List<Long> orderItemIds;
+    private long customerCounter;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        ProductServiceImpl productService = context.getBean(ProductServiceImpl.class);
+        orderItemService = context.getBean(OrderItemServiceImpl.class);
+        orderService = context.getBean(OrderServiceImpl.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        Product product = productService.createProduct(new ProductDto("Benchmark Product", new BigDecimal("12.34"), Integer.MAX_VALUE));
+        orderItemDto = new OrderItemDto();
+        orderItemDto.setProductId(product.getId());
+        orderItemDto.setQuantity(1);
+
+        orderItemIds = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) orderItemIds.add(orderItemService.createOrderItem(orderItemDto).getId());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public OrderItem createOrderItem() {
+        return orderItemService.createOrderItem(orderItemDto);
+    }
+
+    // Outside a web request there is no open session, so the order and its items share an explicit transaction.
+    // Every call moves the same items to a new order, which keeps the item count fixed.
+    @Benchmark
+    public Order createOrder() {
+        OrderDto orderDto = new OrderDto();
+        orderDto.setCustomerName("Customer " + customerCounter++);
+        orderDto.setAddress("1 Benchmark Street");
+        orderDto.setOrderItemIds(orderItemIds);
+        return transactionTemplate.execute(status -> orderService.createOrder(orderDto));
+    }
+}
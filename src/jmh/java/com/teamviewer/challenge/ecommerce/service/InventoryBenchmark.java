@@ -0,0 +1,56 @@
+package com.teamviewer.challenge.ecommerce.service;
+
+import com.teamviewer.challenge.ecommerce.benchmark.BenchmarkApplication;
+import com.teamviewer.challenge.ecommerce.dto.ProductDto;
+import com.teamviewer.challenge.ecommerce.service.interfaces.InventoryService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+// Reservation cost of each inventory mode, single threaded and with four threads on the same product
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InventoryBenchmark {
+
+    @Param({"jpa", "memory"})
+    private String mode;
+
+    private ConfigurableApplicationContext context;
+    private InventoryService inventoryService;
+    private Long productId;
+
+    @Setup
+    public void setUp() throws IOException {
+        context = BenchmarkApplication.start(
+                "--inventory.mode=" + mode,
+                "--inventory.memory.journal-dir=" + Files.createTempDirectory("inventory-journal"));
+        inventoryService = context.getBean(InventoryService.class);
+        productId = context.getBean(ProductServiceImpl.class)
+                .createProduct(new ProductDto("Benchmark Product", new BigDecimal("12.34"), Integer.MAX_VALUE))
+                .getId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean reserve() {
+        return inventoryService.reserve(productId, 1);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean reserveContended() {
+        return inventoryService.reserve(productId, 1);
+    }
+}
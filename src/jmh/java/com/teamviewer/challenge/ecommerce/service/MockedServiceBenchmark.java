@@ -0,0 +1,158 @@
+package com.teamviewer.challenge.ecommerce.service;
+
+import com.teamviewer.challenge.ecommerce.cache.CustomerNameFilter;
+import com.teamviewer.challenge.ecommerce.cache.ProductCache;
+import com.teamviewer.challenge.ecommerce.cache.ProductNameFilter;
+import com.teamviewer.challenge.ecommerce.cache.ProductSearchIndex;
+import com.teamviewer.challenge.ecommerce.cache.ReferencedProducts;
+import com.teamviewer.challenge.ecommerce.dto.OrderDto;
+import com.teamviewer.challenge.ecommerce.dto.OrderItemDto;
+import com.teamviewer.challenge.ecommerce.dto.ProductDto;
+import com.teamviewer.challenge.ecommerce.entity.Order;
+import com.teamviewer.challenge.ecommerce.entity.OrderItem;
+import com.teamviewer.challenge.ecommerce.entity.Product;
+import com.teamviewer.challenge.ecommerce.repository.OrderItemRepository;
+import com.teamviewer.challenge.ecommerce.repository.DailySalesRepository;
+import com.teamviewer.challenge.ecommerce.repository.OrderRepository;
+import com.teamviewer.challenge.ecommerce.repository.ProductRepository;
+import com.teamviewer.challenge.ecommerce.repository.ProductSalesRepository;
+import com.teamviewer.challenge.ecommerce.repository.ProductSearchRepository;
+import com.teamviewer.challenge.ecommerce.service.interfaces.InventoryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+
+// Service logic alone: repositories are in-memory stubs, so the numbers exclude JDBC and Hibernate.
+// The product cache and the name filters are the real classes.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MockedServiceBenchmark {
+
+    @Param({"10", "1000"})
+    private int items;
+
+    private ProductServiceImpl productService;
+    private OrderItemServiceImpl orderItemService;
+    private OrderServiceImpl orderService;
+
+    private ProductDto productDto;
+    private OrderItemDto orderItemDto;
+    private OrderDto orderDto;
+
+    @Setup
+    public void setUp() {
+        Product product = new Product();
+        product.setId(1L);
+        product.setName("Benchmark Product");
+        product.setPrice(new BigDecimal("12.34"));
+        product.setUnitsInStock(Integer.MAX_VALUE);
+
+        // The items start out in another order, so createOrder also takes them off that order's sales
+        Order previousOrder = new Order();
+        previousOrder.setCreatedAt(Instant.now());
+        List<OrderItem> orderItems = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            OrderItem orderItem = new OrderItem();
+            orderItem.setId((long) i);
+            orderItem.setOrder(previousOrder);
+            orderItem.setProduct(product);
+            orderItem.setQuantity(3);
+            orderItem.setOrderItemPrice(new BigDecimal("37.02"));
+            orderItems.add(orderItem);
+        }
+
+        OrderItemRepository orderItemRepository = stub(OrderItemRepository.class, Map.of(
+                "save", args -> args[0],
+                "loadAllById", args -> orderItems));
+        OrderRepository orderRepository = stub(OrderRepository.class, Map.of(
+                "save", args -> args[0],
+                "existsByCustomerNameIgnoreCase", args -> false));
+        ProductRepository productRepository = stub(ProductRepository.class, Map.of(
+                "findById", args -> Optional.of(product),
+                "getReferenceById", args -> product,
+                "existsByNameIgnoreCase", args -> false));
+        InventoryService inventoryService = stub(InventoryService.class, Map.of(
+                "reserve", args -> true));
+
+        ProductCache productCache = new ProductCache(productRepository, new SimpleMeterRegistry(), 10_000, Duration.ofMinutes(10));
+        TransactionTemplate transactionTemplate = new TransactionTemplate();
+        ProductNameFilter productNameFilter = new ProductNameFilter(productRepository, transactionTemplate, Runnable::run, 1_000_000, 0.01);
+        CustomerNameFilter customerNameFilter = new CustomerNameFilter(orderRepository, transactionTemplate, Runnable::run, 1_000_000, 0.01);
+        ReferencedProducts referencedProducts = new ReferencedProducts(orderItemRepository, transactionTemplate, false);
+        // Never built, as in trigram mode, so product writes only pass through it
+        ProductSearchIndex productSearchIndex = new ProductSearchIndex(productRepository, transactionTemplate, "trigram");
+        Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+        productService = new ProductServiceImpl(orderItemRepository, productRepository, inventoryService,
+                productCache, productNameFilter, productSearchIndex, new ProductSearchRepository(new JdbcTemplate()),
+                referencedProducts, validator);
+        orderItemService = new OrderItemServiceImpl(orderItemRepository, productRepository, inventoryService,
+                productCache, referencedProducts, validator);
+        SalesStatsServiceImpl salesStatsService = new SalesStatsServiceImpl(stub(ProductSalesRepository.class, Map.of()),
+                stub(DailySalesRepository.class, Map.of()), productRepository);
+        orderService = new OrderServiceImpl(orderRepository, orderItemRepository, customerNameFilter, salesStatsService,
+                productRepository, inventoryService, productCache, referencedProducts);
+
+        productDto = new ProductDto("Benchmark Product", new BigDecimal("12.34"), 100);
+        orderItemDto = new OrderItemDto();
+        orderItemDto.setProductId(1L);
+        orderItemDto.setQuantity(3);
+        orderDto = new OrderDto();
+        orderDto.setCustomerName("Benchmark Customer");
+        orderDto.setAddress("1 Benchmark Street");
+        orderDto.setOrderItemIds(LongStream.range(0, items).boxed().toList());
+    }
+
+    @Benchmark
+    public boolean productIsValid() {
+        return productService.isValid(productDto);
+    }
+
+    // Every reservation invalidates the cached product, so each call also reloads it through the stub
+    @Benchmark
+    public OrderItem createOrderItem() {
+        return orderItemService.createOrderItem(orderItemDto);
+    }
+
+    // createOrder runs processOrder on a fresh Order, including the BigDecimal total over every item
+    @Benchmark
+    public Order createOrder() {
+        return orderService.createOrder(orderDto);
+    }
+
+    // Answers by method name, anything not listed returns null. Mockito captures a stack trace on every call,
+    // which would outweigh the service code being measured.
+    @SuppressWarnings("unchecked")
+    private static <T> T stub(Class<T> type, Map<String, Function<Object[], Object>> answers) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> type.getSimpleName() + " stub";
+                };
+            }
+            Function<Object[], Object> answer = answers.get(method.getName());
+            return answer == null ? null : answer.apply(args);
+        });
+    }
+}
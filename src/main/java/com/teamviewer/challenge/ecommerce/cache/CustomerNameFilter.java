@@ -0,0 +1,36 @@
+package com.teamviewer.challenge.ecommerce.cache;
+
+import com.teamviewer.challenge.ecommerce.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+@Component
+public class CustomerNameFilter extends NameFilter {
+
+    private final OrderRepository orderRepository;
+
+    public CustomerNameFilter(OrderRepository orderRepository,
+                             TransactionTemplate transactionTemplate,
+                             @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor rebuildExecutor,
+                             @Value("${name-filter.expected-insertions:1000000}") long expectedInsertions,
+                             @Value("${name-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        super("customer", transactionTemplate, rebuildExecutor, expectedInsertions, falsePositiveRate);
+        this.orderRepository = orderRepository;
+    }
+
+    @Override
+    protected long countNames() {
+        return orderRepository.count();
+    }
+
+    @Override
+    protected Stream<String> streamNames() {
+        return orderRepository.streamAllCustomerNames();
+    }
+}
@@ -0,0 +1,105 @@
+package com.teamviewer.challenge.ecommerce.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+// Negative lookup for case-insensitive unique names: when mightContain is false the name is certainly not in the table.
+// Until the first build finishes, and after a build fails, every name might exist and callers fall back to the database.
+@Slf4j
+public abstract class NameFilter {
+
+    private final String name;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor rebuildExecutor;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+
+    private final AtomicLong insertions = new AtomicLong();
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile BloomFilter current;
+    // Receives the writes made while a rebuild is scanning the table
+    private volatile BloomFilter building;
+    private volatile long capacity;
+
+    protected NameFilter(String name, TransactionTemplate transactionTemplate, Executor rebuildExecutor,
+                         long expectedInsertions, double falsePositiveRate) {
+        this.name = name;
+        this.transactionTemplate = transactionTemplate;
+        this.rebuildExecutor = rebuildExecutor;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    protected abstract long countNames();
+
+    protected abstract Stream<String> streamNames();
+
+    public boolean mightContain(String value) {
+        BloomFilter filter = current;
+        return filter == null || filter.mightContain(normalize(value));
+    }
+
+    // The row holding the name must have been written in the current transaction, if there is one
+    public void add(String value) {
+        AfterCommit.run(() -> put(normalize(value)));
+    }
+
+    private void put(String normalized) {
+        BloomFilter next = building;
+        if (next != null) next.put(normalized);
+        BloomFilter filter = current;
+        if (filter != null) filter.put(normalized);
+
+        if (filter != null && insertions.incrementAndGet() > capacity && rebuilding.compareAndSet(false, true)) {
+            rebuildExecutor.execute(this::rebuildQuietly);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (rebuilding.compareAndSet(false, true)) rebuildQuietly();
+    }
+
+    void rebuild() {
+        long count = countNames();
+        long size = Math.max(expectedInsertions, count * 2);
+        BloomFilter filter = new BloomFilter(size, falsePositiveRate);
+        building = filter;
+        try {
+            long start = System.nanoTime();
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<String> names = streamNames()) {
+                    names.forEach(value -> filter.put(normalize(value)));
+                }
+            });
+            capacity = size;
+            insertions.set(count);
+            current = filter;
+            log.info("Built {} name filter for {} names in {} ms", name, count, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            building = null;
+        }
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException ex) {
+            log.warn("Could not build the {} name filter, lookups go to the database", name, ex);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
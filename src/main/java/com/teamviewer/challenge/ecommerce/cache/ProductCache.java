@@ -0,0 +1,120 @@
+package com.teamviewer.challenge.ecommerce.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.teamviewer.challenge.ecommerce.entity.Product;
+import com.teamviewer.challenge.ecommerce.model.ProductResponse;
+import com.teamviewer.challenge.ecommerce.replica.ReplicaRouting;
+import com.teamviewer.challenge.ecommerce.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Holds immutable ProductResponse views, never managed entities, so cached values can be shared across requests.
+// Every write to a product row must call put or invalidate once it has committed.
+// A miss is loaded by the caller that found it, on its own thread and inside its own transaction, if it has one. Only an
+// empty future is put into the map under its bin lock, so a virtual thread waiting on JDBC never pins its carrier;
+// concurrent readers of the same id wait on that one future.
+@Component
+public class ProductCache {
+
+    public static final String NAME = "products";
+
+    private final ProductRepository productRepository;
+    private final AsyncCache<Long, ProductResponse> cache;
+    // Bumped by every product write, so anything derived from several products can tell whether it is still current
+    private final AtomicLong generation = new AtomicLong();
+
+    public ProductCache(ProductRepository productRepository,
+                        MeterRegistry meterRegistry,
+                        @Value("${product-cache.maximum-size:10000}") long maximumSize,
+                        @Value("${product-cache.expire-after-write:10m}") Duration expireAfterWrite) {
+        this.productRepository = productRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .executor(Runnable::run)
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, NAME);
+    }
+
+    public Optional<ProductResponse> get(Long id) {
+        CompletableFuture<ProductResponse> loading = new CompletableFuture<>();
+        CompletableFuture<ProductResponse> future = cache.get(id, (key, executor) -> loading);
+        if (future == loading) load(id, loading);
+        try {
+            return Optional.ofNullable(future.join());
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) throw cause;
+            throw ex;
+        }
+    }
+
+    // Never loads: a value is returned only when a completed load or put is already cached
+    public Optional<ProductResponse> getIfPresent(Long id) {
+        CompletableFuture<ProductResponse> future = cache.getIfPresent(id);
+        if (future == null || !future.isDone() || future.isCompletedExceptionally()) return Optional.empty();
+        return Optional.ofNullable(future.join());
+    }
+
+    public long generation() {
+        return generation.get();
+    }
+
+    // For writes that add products without caching them, such as batches and imports
+    public void catalogChanged() {
+        afterCommit(generation::incrementAndGet);
+    }
+
+    // The response is taken at commit, once the version has been flushed
+    public void put(Product product) {
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            cache.put(product.getId(), CompletableFuture.completedFuture(ProductResponse.from(product)));
+        });
+    }
+
+    public void invalidate(Long id) {
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            cache.synchronous().invalidate(id);
+        });
+    }
+
+    public void invalidateAll(Collection<Long> ids) {
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            cache.synchronous().invalidateAll(ids);
+        });
+    }
+
+    // A missing product or a failed load is removed before the future completes, so the next get loads again
+    private void load(Long id, CompletableFuture<ProductResponse> loading) {
+        ProductResponse response;
+        try {
+            // Kept until the next write, so never loaded from a replica that may not have seen the last one
+            response = ReplicaRouting.onPrimary(() -> productRepository.findById(id).map(ProductResponse::from).orElse(null));
+        } catch (RuntimeException | Error ex) {
+            cache.asMap().remove(id, loading);
+            loading.completeExceptionally(ex);
+            return;
+        }
+        if (response == null) cache.asMap().remove(id, loading);
+        loading.complete(response);
+    }
+
+    // Inside a transaction every change waits for the commit: until then the entries still match what other
+    // transactions read, and a page read in between cannot be cached as current. A rollback leaves them as they were.
+    private static void afterCommit(Runnable change) {
+        AfterCommit.run(change);
+    }
+}
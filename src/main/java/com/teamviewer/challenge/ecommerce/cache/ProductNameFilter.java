@@ -0,0 +1,36 @@
+package com.teamviewer.challenge.ecommerce.cache;
+
+import com.teamviewer.challenge.ecommerce.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
+@Component
+public class ProductNameFilter extends NameFilter {
+
+    private final ProductRepository productRepository;
+
+    public ProductNameFilter(ProductRepository productRepository,
+                             TransactionTemplate transactionTemplate,
+                             @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor rebuildExecutor,
+                             @Value("${name-filter.expected-insertions:1000000}") long expectedInsertions,
+                             @Value("${name-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        super("product", transactionTemplate, rebuildExecutor, expectedInsertions, falsePositiveRate);
+        this.productRepository = productRepository;
+    }
+
+    @Override
+    protected long countNames() {
+        return productRepository.count();
+    }
+
+    @Override
+    protected Stream<String> streamNames() {
+        return productRepository.streamAllNames();
+    }
+}
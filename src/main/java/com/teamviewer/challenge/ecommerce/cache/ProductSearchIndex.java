@@ -0,0 +1,317 @@
+package com.teamviewer.challenge.ecommerce.cache;
+
+import com.teamviewer.challenge.ecommerce.model.ProductName;
+import com.teamviewer.challenge.ecommerce.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+// Inverted index of product names for GET /api/products/search. Names are split on everything but letters and digits
+// and lower-cased; a query token matches every name token it is a prefix of, and a product matches when all query
+// tokens do. Matches are ranked by how many query tokens are whole tokens of the name, then by id.
+// Built when the application is ready and kept current by the product writes once they commit. While
+// product-search.mode is trigram, until the build finishes and after a build fails, search returns nothing and callers
+// go to the database. Only products written through this node are seen, so it is meant for a single node.
+@Slf4j
+@Component
+public class ProductSearchIndex {
+
+    public static final int MAX_QUERY_TOKENS = 8;
+
+    // Roughly the steps of a binary search, against one step of a merge
+    private static final int PROBE_COST = 16;
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Both guarded by lock
+    private NavigableMap<String, Postings> current;
+    // The changes made while a build is scanning the table, replayed onto it once the scan is done
+    private List<Change> pending;
+
+    public ProductSearchIndex(ProductRepository productRepository,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${product-search.mode:memory}") String mode) {
+        this.productRepository = productRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = "memory".equals(mode);
+    }
+
+    // The distinct tokens of a name or query, in order of appearance
+    public static List<String> tokenize(String text) {
+        if (text == null) return List.of();
+        Set<String> tokens = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean tokenChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return List.copyOf(tokens);
+    }
+
+    // Ids of the matching products in rank order, skipping the first offset; empty while the index is not built
+    public Optional<List<Long>> search(List<String> tokens, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            if (current == null) return Optional.empty();
+            if (tokens.isEmpty()) return Optional.of(List.of());
+            long[] matches = match(current, tokens);
+            return Optional.of(rank(current, tokens, matches, offset, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // The product row must have been written in the current transaction, if there is one
+    public void add(Long id, String name) {
+        AfterCommit.run(() -> apply(new Change(id, null, name)));
+    }
+
+    public void update(Long id, String previousName, String name) {
+        AfterCommit.run(() -> apply(new Change(id, previousName, name)));
+    }
+
+    public void remove(Long id, String name) {
+        AfterCommit.run(() -> apply(new Change(id, name, null)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) return;
+        try {
+            build();
+        } catch (RuntimeException ex) {
+            log.warn("Could not build the product search index, searches go to the database", ex);
+        }
+    }
+
+    void build() {
+        withWriteLock(() -> pending = new ArrayList<>());
+        try {
+            long start = System.nanoTime();
+            NavigableMap<String, Postings> index = new TreeMap<>();
+            long[] count = new long[1];
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<ProductName> products = productRepository.streamAllIdsAndNames()) {
+                    products.forEach(product -> {
+                        for (String token : tokenize(product.getName())) {
+                            index.computeIfAbsent(token, key -> new Postings()).append(product.getId());
+                        }
+                        count[0]++;
+                    });
+                }
+            });
+            index.values().forEach(Postings::sort);
+            withWriteLock(() -> {
+                pending.forEach(change -> change.applyTo(index));
+                current = index;
+            });
+            log.info("Built product search index for {} products and {} tokens in {} ms",
+                    count[0], index.size(), (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            withWriteLock(() -> pending = null);
+        }
+    }
+
+    private void apply(Change change) {
+        withWriteLock(() -> {
+            if (current != null) change.applyTo(current);
+            if (pending != null) pending.add(change);
+        });
+    }
+
+    private void withWriteLock(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Intersects the tokens starting from the one with the fewest postings, so the candidates only shrink
+    private static long[] match(NavigableMap<String, Postings> index, List<String> tokens) {
+        List<List<Postings>> matchesPerToken = new ArrayList<>();
+        for (String token : tokens) {
+            // Copied out of the map view, which would look the prefix up again on every iteration
+            List<Postings> postings = new ArrayList<>(withPrefix(index, token).values());
+            if (postings.isEmpty()) return new long[0];
+            matchesPerToken.add(postings);
+        }
+        matchesPerToken.sort(Comparator.comparingLong(ProductSearchIndex::size));
+
+        long[] candidates = union(matchesPerToken.get(0));
+        for (int i = 1; i < matchesPerToken.size() && candidates.length > 0; i++) {
+            candidates = retain(candidates, matchesPerToken.get(i));
+        }
+        return candidates;
+    }
+
+    private static List<Long> rank(NavigableMap<String, Postings> index, List<String> tokens, long[] matches,
+                                   long offset, int limit) {
+        Postings[] exact = new Postings[tokens.size()];
+        for (int i = 0; i < exact.length; i++) exact[i] = index.get(tokens.get(i));
+        byte[] wholeTokens = new byte[matches.length];
+        for (int i = 0; i < matches.length; i++) {
+            for (Postings postings : exact) {
+                if (postings != null && postings.contains(matches[i])) wholeTokens[i]++;
+            }
+        }
+
+        // Ids are already ascending, so one pass per rank yields the final order
+        List<Long> page = new ArrayList<>(Math.min(limit, matches.length));
+        long skip = offset;
+        for (int rank = exact.length; rank >= 0 && page.size() < limit; rank--) {
+            for (int i = 0; i < matches.length && page.size() < limit; i++) {
+                if (wholeTokens[i] != rank) continue;
+                if (skip > 0) skip--;
+                else page.add(matches[i]);
+            }
+        }
+        return page;
+    }
+
+    private static SortedMap<String, Postings> withPrefix(NavigableMap<String, Postings> index, String prefix) {
+        return index.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private static long size(List<Postings> postings) {
+        long size = 0;
+        for (Postings p : postings) size += p.size;
+        return size;
+    }
+
+    private static long[] union(List<Postings> postings) {
+        if (postings.size() == 1) return Arrays.copyOf(postings.get(0).ids, postings.get(0).size);
+        long[] ids = new long[Math.toIntExact(size(postings))];
+        int size = 0;
+        for (Postings p : postings) {
+            System.arraycopy(p.ids, 0, ids, size, p.size);
+            size += p.size;
+        }
+        Arrays.sort(ids);
+        return distinct(ids);
+    }
+
+    // Probes every candidate when a binary search per candidate and token costs less than merging the postings
+    private static long[] retain(long[] candidates, List<Postings> postings) {
+        if (postings.size() == 1) return intersect(candidates, postings.get(0).ids, postings.get(0).size);
+        if ((long) candidates.length * postings.size() * PROBE_COST > size(postings)) {
+            long[] merged = union(postings);
+            return intersect(candidates, merged, merged.length);
+        }
+        long[] retained = new long[candidates.length];
+        int size = 0;
+        for (long candidate : candidates) {
+            for (Postings p : postings) {
+                if (p.contains(candidate)) {
+                    retained[size++] = candidate;
+                    break;
+                }
+            }
+        }
+        return Arrays.copyOf(retained, size);
+    }
+
+    private static long[] intersect(long[] left, long[] right, int rightSize) {
+        long[] both = new long[Math.min(left.length, rightSize)];
+        int size = 0;
+        for (int i = 0, j = 0; i < left.length && j < rightSize; ) {
+            if (left[i] < right[j]) i++;
+            else if (left[i] > right[j]) j++;
+            else {
+                both[size++] = left[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(both, size);
+    }
+
+    private static long[] distinct(long[] sorted) {
+        if (sorted.length == 0) return sorted;
+        int size = 1;
+        for (int i = 1; i < sorted.length; i++) {
+            if (sorted[i] != sorted[size - 1]) sorted[size++] = sorted[i];
+        }
+        return size == sorted.length ? sorted : Arrays.copyOf(sorted, size);
+    }
+
+    // A product written under a name: added when there was no previous name, removed when there is no new one
+    private record Change(Long id, String previousName, String name) {
+
+        void applyTo(NavigableMap<String, Postings> index) {
+            List<String> tokens = tokenize(name);
+            for (String token : tokenize(previousName)) {
+                if (tokens.contains(token)) continue;
+                Postings postings = index.get(token);
+                if (postings != null && postings.remove(id) && postings.size == 0) index.remove(token);
+            }
+            for (String token : tokens) index.computeIfAbsent(token, key -> new Postings()).add(id);
+        }
+    }
+
+    // The ids of the products with one token, ascending. New products take ids from a sequence, so adding them is
+    // usually an append; an update or delete of an old product shifts the ids after it.
+    private static final class Postings {
+
+        private long[] ids = new long[1];
+        private int size;
+
+        // Unordered, for the build, which sorts once at the end
+        void append(long id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            ids[size++] = id;
+        }
+
+        // Also drops the spare capacity, which is most of the memory of a token only a few products have
+        void sort() {
+            Arrays.sort(ids, 0, size);
+            ids = Arrays.copyOf(ids, size);
+        }
+
+        void add(long id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                int index = Arrays.binarySearch(ids, 0, size, id);
+                if (index >= 0) return;
+                insert(-index - 1, id);
+            } else {
+                append(id);
+            }
+        }
+
+        boolean remove(long id) {
+            int index = Arrays.binarySearch(ids, 0, size, id);
+            if (index < 0) return false;
+            System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+            size--;
+            return true;
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        private void insert(int index, long id) {
+            if (size == ids.length) ids = Arrays.copyOf(ids, size * 2);
+            System.arraycopy(ids, index, ids, index + 1, size - index);
+            ids[index] = id;
+            size++;
+        }
+    }
+}
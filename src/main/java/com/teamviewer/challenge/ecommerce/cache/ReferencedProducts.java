@@ -0,0 +1,78 @@
+package com.teamviewer.challenge.ecommerce.cache;
+
+import com.teamviewer.challenge.ecommerce.repository.OrderItemRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.BitSet;
+import java.util.stream.Stream;
+
+// Bitmap of the product ids order items point to, indexed by id. A clear bit means no order item references the
+// product, so the product update and delete guards skip the database; a set bit only means one might, since bits stay
+// set when items go away or move. Built before the server takes requests. While disabled, after a failed build and
+// for ids past Integer.MAX_VALUE every product might be referenced.
+// Only order items written through this node are seen, so it is off unless a single node writes them.
+@Slf4j
+@Component
+public class ReferencedProducts {
+
+    private final OrderItemRepository orderItemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+
+    private volatile BitSet current;
+
+    public ReferencedProducts(OrderItemRepository orderItemRepository,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${referenced-products.bitmap:false}") boolean enabled) {
+        this.orderItemRepository = orderItemRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+    }
+
+    public boolean mightBeReferenced(Long productId) {
+        BitSet bits = current;
+        if (bits == null || !fits(productId)) return true;
+        synchronized (bits) {
+            return bits.get(productId.intValue());
+        }
+    }
+
+    // Called before the order item is written, so a guard running meanwhile can only err towards the database
+    public void add(Long productId) {
+        BitSet bits = current;
+        if (bits == null || !fits(productId)) return;
+        synchronized (bits) {
+            bits.set(productId.intValue());
+        }
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) return;
+        try {
+            build();
+        } catch (RuntimeException ex) {
+            log.warn("Could not build the referenced products bitmap, product guards go to the database", ex);
+        }
+    }
+
+    void build() {
+        BitSet bits = new BitSet();
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Long> productIds = orderItemRepository.streamReferencedProductIds()) {
+                productIds.filter(ReferencedProducts::fits).forEach(productId -> bits.set(productId.intValue()));
+            }
+        });
+        current = bits;
+        log.info("Built referenced products bitmap for {} products in {} ms", bits.cardinality(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private static boolean fits(Long productId) {
+        return productId != null && productId >= 0 && productId <= Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,51 @@
+package com.teamviewer.challenge.ecommerce.cache;
+
+import com.teamviewer.challenge.ecommerce.entity.Product;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+
+// Hibernate keeps its second-level cache in step with writes made through the session only. Products changed with
+// plain SQL (stock updates, imports, the inventory write-behind) are evicted here instead: right away, and once
+// more after the transaction completes, so a read in between cannot put the old row back for good.
+@Component
+public class SecondLevelCache {
+
+    public static final String PRODUCT_LOOKUPS_REGION = "product-lookups";
+    public static final String ORDER_ITEM_LOOKUPS_REGION = "order-item-lookups";
+
+    private final Cache cache;
+
+    public SecondLevelCache(EntityManagerFactory entityManagerFactory) {
+        this.cache = entityManagerFactory.getCache().unwrap(Cache.class);
+    }
+
+    public void evictProduct(Long id) {
+        evictNowAndAfterCompletion(() -> cache.evictEntityData(Product.class, id));
+    }
+
+    public void evictProducts(Collection<Long> ids) {
+        evictNowAndAfterCompletion(() -> ids.forEach(id -> cache.evictEntityData(Product.class, id)));
+    }
+
+    // Cached name lookups may have answered "not taken" for a name that now exists
+    public void evictProductLookups() {
+        evictNowAndAfterCompletion(() -> cache.evictQueryRegion(PRODUCT_LOOKUPS_REGION));
+    }
+
+    private static void evictNowAndAfterCompletion(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.teamviewer.challenge.ecommerce.config;
+
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+    // Replaces reflective getter and setter calls with generated lambdas in every ObjectMapper Spring Boot builds
+    @Bean
+    public BlackbirdModule blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
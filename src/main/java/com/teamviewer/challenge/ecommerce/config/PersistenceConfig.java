@@ -0,0 +1,56 @@
+package com.teamviewer.challenge.ecommerce.config;
+
+import com.teamviewer.challenge.ecommerce.replica.ReplicaRoutingTransactionManager;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.orm.jpa.JpaTransactionManager;
+
+import java.util.Map;
+
+// JPA and R2DBC side by side. Spring Boot backs off the JDBC DataSource and the JPA transaction manager once an R2DBC
+// ConnectionFactory exists, so they are declared here from the usual spring.datasource properties; Flyway still finds
+// the DataSource and migrates it before Hibernate validates the schema. The JPA transaction manager is the primary
+// one, which is what plain @Transactional and TransactionTemplate resolve to. With replica.enabled the DataSource
+// comes from ReplicaConfig and the transaction manager keeps replica reads out of the second-level cache.
+@Configuration
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class PersistenceConfig {
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource.hikari")
+    @ConditionalOnProperty(name = "replica.enabled", havingValue = "false", matchIfMissing = true)
+    public HikariDataSource dataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // Flyway holds its migration lock in an open transaction by default, which CREATE INDEX CONCURRENTLY would wait on
+    // forever; a session-level advisory lock is held instead
+    @Bean
+    public FlywayConfigurationCustomizer flywaySessionLock() {
+        return configuration -> configuration.configuration(Map.of("flyway.postgresql.transactional.lock", "false"));
+    }
+
+    @Bean
+    @Primary
+    public JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory,
+                                                    ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers,
+                                                    @Value("${replica.enabled:false}") boolean replicaEnabled) {
+        JpaTransactionManager transactionManager = replicaEnabled
+                ? new ReplicaRoutingTransactionManager(entityManagerFactory)
+                : new JpaTransactionManager(entityManagerFactory);
+        transactionManagerCustomizers.ifAvailable(customizers -> customizers.customize(transactionManager));
+        return transactionManager;
+    }
+}
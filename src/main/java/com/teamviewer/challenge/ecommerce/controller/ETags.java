@@ -0,0 +1,26 @@
+package com.teamviewer.challenge.ecommerce.controller;
+
+import com.teamviewer.challenge.ecommerce.model.CursorPage;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Function;
+
+// Strong entity tags derived from @Version columns. A page's tag covers the id and version of every item plus the
+// next cursor, so it changes whenever an item on the page is updated, added or removed.
+final class ETags {
+
+    private ETags() {
+    }
+
+    static String of(Long version) {
+        return "\"" + version + "\"";
+    }
+
+    static <T> String of(CursorPage<T> page, Function<T, Long> id, Function<T, Long> version) {
+        StringBuilder versions = new StringBuilder();
+        for (T item : page.getItems()) versions.append(id.apply(item)).append(':').append(version.apply(item)).append(',');
+        versions.append(page.getNext());
+        return "\"" + DigestUtils.md5DigestAsHex(versions.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
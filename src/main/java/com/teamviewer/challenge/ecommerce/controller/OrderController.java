@@ -1,19 +1,35 @@
 package com.teamviewer.challenge.ecommerce.controller;
 
+import com.teamviewer.challenge.ecommerce.dto.CheckoutDto;
 import com.teamviewer.challenge.ecommerce.dto.OrderDto;
 import com.teamviewer.challenge.ecommerce.entity.Order;
+import com.teamviewer.challenge.ecommerce.model.CursorPage;
+import com.teamviewer.challenge.ecommerce.model.EntityVersion;
+import com.teamviewer.challenge.ecommerce.model.OrderIntakeStatus;
+import com.teamviewer.challenge.ecommerce.model.OrderResponse;
+import com.teamviewer.challenge.ecommerce.service.OrderIntakeServiceImpl;
 import com.teamviewer.challenge.ecommerce.service.OrderServiceImpl;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
 
 @Validated
 @RestController
@@ -21,28 +37,68 @@ import java.util.List;
 public class OrderController {
 
     private final OrderServiceImpl orderServiceImpl;
+    private final OrderIntakeServiceImpl orderIntakeServiceImpl;
+    private final ObjectWriter orderWriter;
 
     @Autowired
-    public OrderController(OrderServiceImpl orderServiceImpl) {
+    public OrderController(OrderServiceImpl orderServiceImpl, OrderIntakeServiceImpl orderIntakeServiceImpl, ObjectMapper objectMapper) {
         this.orderServiceImpl = orderServiceImpl;
+        this.orderIntakeServiceImpl = orderIntakeServiceImpl;
+        // Every order goes to the same response stream, which Tomcat flushes as its buffer fills
+        this.orderWriter = objectMapper.writerFor(OrderResponse.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
-    @Operation(summary = "Get a list of all orders")
-    @ApiResponse(responseCode = "200", description = "Successfully retrieved list of orders")
+    // With If-None-Match the ETag is first computed from the order versions alone, so an unchanged page costs one
+    // narrow query and neither the items nor the serialization
+    @Operation(summary = "Get a page of orders ordered by ID, continuing after the given cursor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved page of orders"),
+            @ApiResponse(responseCode = "304", description = "The page has not changed since the given ETag")
+    })
     @GetMapping
-    public ResponseEntity<List<Order>> getAllOrders() {
-        return ResponseEntity.ok(orderServiceImpl.getAllOrders());
+    public ResponseEntity<CursorPage<OrderResponse>> getAllOrders(@RequestParam(required = false) String cursor,
+                                                                  @RequestParam(defaultValue = "50") int limit,
+                                                                  WebRequest webRequest) {
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && webRequest.checkNotModified(ETags.of(orderServiceImpl.getOrderVersions(cursor, limit), EntityVersion::getId, EntityVersion::getVersion))) {
+            return null;
+        }
+        CursorPage<OrderResponse> page = orderServiceImpl.getAllOrders(cursor, limit);
+        return ResponseEntity.ok().eTag(ETags.of(page, OrderResponse::getId, OrderResponse::getVersion)).body(page);
+    }
+
+    // Written as the rows are read, so memory stays flat however many orders there are
+    @Operation(summary = "Export every order with its items as newline-delimited JSON, ordered by ID")
+    @ApiResponse(responseCode = "200", description = "Successfully streamed orders")
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportOrders() {
+        StreamingResponseBody body = outputStream -> orderServiceImpl.exportOrders(order -> {
+            try {
+                orderWriter.writeValue(outputStream, order);
+                outputStream.write('\n');
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @Operation(summary = "Get an order by ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved order"),
+            @ApiResponse(responseCode = "304", description = "The order has not changed since the given ETag"),
             @ApiResponse(responseCode = "404", description = "Order not found")
     })
     @GetMapping("/{id}")
-    public ResponseEntity<Order> getOrderById(@PathVariable Long id) {
-        Order order = orderServiceImpl.getOrderById(id);
-        return ResponseEntity.ok(order);
+    public ResponseEntity<OrderResponse> getOrderById(@PathVariable Long id, WebRequest webRequest) {
+        if (webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null
+                && webRequest.checkNotModified(ETags.of(orderServiceImpl.getOrderVersion(id)))) {
+            return null;
+        }
+        OrderResponse order = OrderResponse.from(orderServiceImpl.getOrderById(id));
+        return ResponseEntity.ok().eTag(ETags.of(order.getVersion())).body(order);
     }
 
     @Operation(summary = "Create a new order")
@@ -52,8 +108,42 @@ public class OrderController {
             @ApiResponse(responseCode = "409", description = "Order with the same customerName already exists")
     })
     @PostMapping
-    public ResponseEntity<Order> createOrder(@Valid @RequestBody OrderDto order) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(orderServiceImpl.createOrder(order));
+    public ResponseEntity<OrderResponse> createOrder(@Valid @RequestBody OrderDto order) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(OrderResponse.from(orderServiceImpl.createOrder(order)));
+    }
+
+    @Operation(summary = "Create an order together with its items in one call")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Successfully created order and its items"),
+            @ApiResponse(responseCode = "400", description = "Invalid checkout input or not enough units in stock"),
+            @ApiResponse(responseCode = "404", description = "Product not found")
+    })
+    @PostMapping("/checkout")
+    public ResponseEntity<OrderResponse> checkout(@Valid @RequestBody CheckoutDto checkout) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(OrderResponse.from(orderServiceImpl.checkout(checkout)));
+    }
+
+    // Answers before the order is placed; the outcome is polled under the returned Location
+    @Operation(summary = "Queue a checkout to be placed asynchronously and return its tracking id")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Checkout queued"),
+            @ApiResponse(responseCode = "400", description = "Invalid checkout input"),
+            @ApiResponse(responseCode = "503", description = "Too many checkouts are queued, retry later")
+    })
+    @PostMapping("/intake")
+    public ResponseEntity<OrderIntakeStatus> submitCheckout(@Valid @RequestBody CheckoutDto checkout) {
+        OrderIntakeStatus status = orderIntakeServiceImpl.submit(checkout);
+        return ResponseEntity.accepted().location(URI.create("/api/orders/intake/" + status.getTrackingId())).body(status);
+    }
+
+    @Operation(summary = "Get the outcome of a queued checkout")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved the checkout status"),
+            @ApiResponse(responseCode = "404", description = "Unknown or expired tracking id")
+    })
+    @GetMapping("/intake/{trackingId}")
+    public ResponseEntity<OrderIntakeStatus> getCheckoutStatus(@PathVariable String trackingId) {
+        return ResponseEntity.ok(orderIntakeServiceImpl.getStatus(trackingId));
     }
 
     @Operation(summary = "Update an existing order")
@@ -64,8 +154,8 @@ public class OrderController {
             @ApiResponse(responseCode = "409", description = "Product with the same name already exists")
     })
     @PutMapping("/{id}")
-    public ResponseEntity<Order> updateOrder(@PathVariable Long id, @Valid @RequestBody OrderDto orderDto) {
-        return ResponseEntity.ok(orderServiceImpl.updateOrder(id, orderDto));
+    public ResponseEntity<OrderResponse> updateOrder(@PathVariable Long id, @Valid @RequestBody OrderDto orderDto) {
+        return ResponseEntity.ok(OrderResponse.from(orderServiceImpl.updateOrder(id, orderDto)));
     }
 
     @Operation(summary = "Delete an order by ID")
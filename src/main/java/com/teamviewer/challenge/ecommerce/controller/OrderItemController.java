@@ -2,6 +2,9 @@ package com.teamviewer.challenge.ecommerce.controller;
 
 import com.teamviewer.challenge.ecommerce.dto.OrderItemDto;
 import com.teamviewer.challenge.ecommerce.entity.OrderItem;
+import com.teamviewer.challenge.ecommerce.model.BatchItemResult;
+import com.teamviewer.challenge.ecommerce.model.CursorPage;
+import com.teamviewer.challenge.ecommerce.model.OrderItemResponse;
 import com.teamviewer.challenge.ecommerce.service.OrderItemServiceImpl;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -27,11 +30,12 @@ public class OrderItemController {
         this.orderItemServiceImpl = orderItemServiceImpl;
     }
 
-    @Operation(summary = "Get a list of all order items")
-    @ApiResponse(responseCode = "200", description = "Successfully retrieved list of order items")
+    @Operation(summary = "Get a page of order items ordered by ID, continuing after the given cursor")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved page of order items")
     @GetMapping
-    public ResponseEntity<List<OrderItem>> getAllOrderItems() {
-        return ResponseEntity.ok(orderItemServiceImpl.getAllOrderItems());
+    public ResponseEntity<CursorPage<OrderItemResponse>> getAllOrderItems(@RequestParam(required = false) String cursor,
+                                                                          @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(orderItemServiceImpl.getAllOrderItems(cursor, limit));
     }
 
     @Operation(summary = "Get an order item by ID")
@@ -40,9 +44,9 @@ public class OrderItemController {
             @ApiResponse(responseCode = "404", description = "Order item not found")
     })
     @GetMapping("/{id}")
-    public ResponseEntity<OrderItem> getOrderItemById(@PathVariable Long id) {
+    public ResponseEntity<OrderItemResponse> getOrderItemById(@PathVariable Long id) {
         OrderItem orderItem = orderItemServiceImpl.getOrderItemById(id);
-        return ResponseEntity.ok(orderItem);
+        return ResponseEntity.ok(OrderItemResponse.from(orderItem));
     }
 
     @Operation(summary = "Create a new order item")
@@ -51,9 +55,21 @@ public class OrderItemController {
             @ApiResponse(responseCode = "400", description = "Invalid input")
     })
     @PostMapping
-    public ResponseEntity<OrderItem> createOrderItem(@Valid @RequestBody OrderItemDto orderItemDto) {
+    public ResponseEntity<OrderItemResponse> createOrderItem(@Valid @RequestBody OrderItemDto orderItemDto) {
         OrderItem createdOrderItem = orderItemServiceImpl.createOrderItem(orderItemDto);
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdOrderItem);
+        return ResponseEntity.status(HttpStatus.CREATED).body(OrderItemResponse.from(createdOrderItem));
+    }
+
+    @Operation(summary = "Create up to 10000 order items in one request, returning a result per row")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Successfully created every order item"),
+            @ApiResponse(responseCode = "207", description = "Some order items were rejected, see the per-row results"),
+            @ApiResponse(responseCode = "400", description = "More rows than a single batch accepts")
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchItemResult<OrderItemResponse>>> createOrderItems(@RequestBody List<OrderItemDto> orderItemDtos) {
+        List<BatchItemResult<OrderItemResponse>> results = orderItemServiceImpl.createOrderItems(orderItemDtos);
+        return ResponseEntity.status(BatchItemResult.overallStatus(results)).body(results);
     }
 
     @Operation(summary = "Update an existing order item")
@@ -63,9 +79,9 @@ public class OrderItemController {
             @ApiResponse(responseCode = "404", description = "Order item not found")
     })
     @PutMapping("/{id}")
-    public ResponseEntity<OrderItem> updateOrderItem(@PathVariable Long id, @Valid @RequestBody OrderItemDto orderItemDto) {
+    public ResponseEntity<OrderItemResponse> updateOrderItem(@PathVariable Long id, @Valid @RequestBody OrderItemDto orderItemDto) {
         OrderItem updatedOrderItem = orderItemServiceImpl.updateOrderItem(id, orderItemDto);
-        return ResponseEntity.ok(updatedOrderItem);
+        return ResponseEntity.ok(OrderItemResponse.from(updatedOrderItem));
     }
 
     @Operation(summary = "Delete an order item by ID")
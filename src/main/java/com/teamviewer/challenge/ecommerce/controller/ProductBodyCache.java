@@ -0,0 +1,113 @@
+package com.teamviewer.challenge.ecommerce.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.teamviewer.challenge.ecommerce.cache.ProductCache;
+import com.teamviewer.challenge.ecommerce.model.CursorPage;
+import com.teamviewer.challenge.ecommerce.model.ProductResponse;
+import com.teamviewer.challenge.ecommerce.replica.ReplicaRouting;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+// Serialized product and catalog page bodies, written to the response as they are. A product body is reused while
+// the cached product still has the version it was built from; a page body while no product has been written since,
+// going by ProductCache.generation(). Stale entries are never served and are simply replaced on the next read.
+@Component
+class ProductBodyCache {
+
+    public static final String PRODUCTS_NAME = "product-bodies";
+    public static final String PAGES_NAME = "product-page-bodies";
+
+    private final ProductCache productCache;
+    private final ObjectWriter productWriter;
+    private final ObjectWriter pageWriter;
+    private final Cache<Long, SerializedBody> products;
+    private final Cache<PageKey, SerializedBody> pages;
+    private final int gzipMinSize;
+
+    ProductBodyCache(ObjectMapper objectMapper,
+                     ProductCache productCache,
+                     MeterRegistry meterRegistry,
+                     @Value("${product-cache.maximum-size:10000}") long maximumProducts,
+                     @Value("${product-cache.body.maximum-pages:1000}") long maximumPages,
+                     @Value("${product-cache.expire-after-write:10m}") Duration expireAfterWrite,
+                     @Value("${product-cache.body.gzip-min-size:2048}") int gzipMinSize) {
+        this.productCache = productCache;
+        this.productWriter = objectMapper.writerFor(ProductResponse.class);
+        this.pageWriter = objectMapper.writerFor(new TypeReference<CursorPage<ProductResponse>>() {
+        });
+        this.products = Caffeine.newBuilder()
+                .maximumSize(maximumProducts)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.pages = Caffeine.newBuilder()
+                .maximumSize(maximumPages)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.gzipMinSize = gzipMinSize;
+        CaffeineCacheMetrics.monitor(meterRegistry, products, PRODUCTS_NAME);
+        CaffeineCacheMetrics.monitor(meterRegistry, pages, PAGES_NAME);
+    }
+
+    SerializedBody product(ProductResponse product) {
+        SerializedBody body = product.getId() == null ? null : products.getIfPresent(product.getId());
+        if (body != null && Objects.equals(body.getSource(), product.getVersion())) return body;
+        body = serialize(productWriter, product, ETags.of(product.getVersion()), product.getVersion());
+        if (product.getId() != null) products.put(product.getId(), body);
+        return body;
+    }
+
+    // The generation is read before loading, so a write committed during the load leaves the entry already stale.
+    // Loaded from the primary: the generation says nothing about how far behind a replica is
+    SerializedBody page(String cursor, int limit, Supplier<CursorPage<ProductResponse>> loader) {
+        PageKey key = new PageKey(CursorPage.decode(cursor), CursorPage.normalizeLimit(limit));
+        long generation = productCache.generation();
+        SerializedBody body = pages.getIfPresent(key);
+        if (body != null && Objects.equals(body.getSource(), generation)) return body;
+        CursorPage<ProductResponse> page = ReplicaRouting.onPrimary(loader);
+        body = serialize(pageWriter, page, ETags.of(page, ProductResponse::getId, ProductResponse::getVersion), generation);
+        pages.put(key, body);
+        return body;
+    }
+
+    private SerializedBody serialize(ObjectWriter writer, Object value, String eTag, Long source) {
+        try {
+            byte[] json = writer.writeValueAsBytes(value);
+            return new SerializedBody(eTag, source, json, json.length >= gzipMinSize ? gzip(json) : null);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(json);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return compressed.toByteArray();
+    }
+
+    @lombok.Value
+    private static class PageKey {
+        Long afterId;
+        int limit;
+    }
+}
@@ -2,17 +2,28 @@ package com.teamviewer.challenge.ecommerce.controller;
 
 import com.teamviewer.challenge.ecommerce.dto.ProductDto;
 import com.teamviewer.challenge.ecommerce.entity.Product;
+import com.teamviewer.challenge.ecommerce.model.BatchItemResult;
+import com.teamviewer.challenge.ecommerce.model.CursorPage;
+import com.teamviewer.challenge.ecommerce.model.ProductImportResult;
+import com.teamviewer.challenge.ecommerce.model.ProductResponse;
+import com.teamviewer.challenge.ecommerce.service.ProductImportServiceImpl;
 import com.teamviewer.challenge.ecommerce.service.ProductServiceImpl;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @Validated
@@ -20,29 +31,61 @@ import java.util.List;
 @RequestMapping("/api/products")
 public class ProductController {
 
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
     private final ProductServiceImpl productServiceImpl;
+    private final ProductImportServiceImpl productImportServiceImpl;
+    private final ProductBodyCache productBodyCache;
 
     @Autowired
-    public ProductController(ProductServiceImpl productServiceImpl) {
+    public ProductController(ProductServiceImpl productServiceImpl, ProductImportServiceImpl productImportServiceImpl,
+                             ProductBodyCache productBodyCache) {
         this.productServiceImpl = productServiceImpl;
+        this.productImportServiceImpl = productImportServiceImpl;
+        this.productBodyCache = productBodyCache;
     }
 
-    @Operation(summary = "Get a list of all products")
-    @ApiResponse(responseCode = "200", description = "Successfully retrieved list of products")
+    // Until a product is written, the same page is answered with the bytes serialized for it the first time, without
+    // a query. An If-None-Match that matches the ETag is answered with 304 by Spring.
+    @Operation(summary = "Get a page of products ordered by ID, continuing after the given cursor")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved page of products",
+                    content = @Content(schema = @Schema(implementation = ProductPage.class))),
+            @ApiResponse(responseCode = "304", description = "The page has not changed since the given ETag")
+    })
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        return ResponseEntity.ok(productServiceImpl.getAllProducts());
+    public ResponseEntity<byte[]> getAllProducts(@RequestParam(required = false) String cursor,
+                                                 @RequestParam(defaultValue = "50") int limit,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return productBodyCache.page(cursor, limit, () -> productServiceImpl.getAllProducts(cursor, limit)).toResponse(acceptEncoding);
+    }
+
+    @Operation(summary = "Search products by name: every word of q has to start a word of the name, and names holding more of "
+            + "the words whole come first")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved page of matching products"),
+            @ApiResponse(responseCode = "400", description = "The query has no letter or digit, or too many words")
+    })
+    @GetMapping("/search")
+    public ResponseEntity<CursorPage<ProductResponse>> searchProducts(@RequestParam String q,
+                                                                      @RequestParam(required = false) String cursor,
+                                                                      @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(productServiceImpl.searchProducts(q, cursor, limit));
     }
 
     @Operation(summary = "Get a product by its ID")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Successfully retrieved product"),
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved product",
+                    content = @Content(schema = @Schema(implementation = ProductResponse.class))),
+            @ApiResponse(responseCode = "304", description = "The product has not changed since the given ETag"),
             @ApiResponse(responseCode = "404", description = "Product not found")
     })
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable Long id) {
-        Product product = productServiceImpl.getProductById(id);
-        return ResponseEntity.ok(product);
+    public ResponseEntity<byte[]> getProductById(@PathVariable Long id,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        // Usually a cache hit, which carries the version, so matching ETags cost no query at all
+        ProductResponse product = productServiceImpl.getProductResponseById(id);
+        return productBodyCache.product(product).toResponse(acceptEncoding);
     }
 
     @Operation(summary = "Create a new product")
@@ -52,9 +95,36 @@ public class ProductController {
             @ApiResponse(responseCode = "409", description = "Product with the same name already exists")
     })
     @PostMapping
-    public ResponseEntity<Product> createProduct(@Valid @RequestBody ProductDto productDto) {
+    public ResponseEntity<ProductResponse> createProduct(@Valid @RequestBody ProductDto productDto) {
         Product createdOrderItem = productServiceImpl.createProduct(productDto);
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdOrderItem);
+        return ResponseEntity.status(HttpStatus.CREATED).body(ProductResponse.from(createdOrderItem));
+    }
+
+    @Operation(summary = "Create up to 10000 products in one request, returning a result per row")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Successfully created every product"),
+            @ApiResponse(responseCode = "207", description = "Some products were rejected, see the per-row results"),
+            @ApiResponse(responseCode = "400", description = "More rows than a single batch accepts")
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<List<BatchItemResult<ProductResponse>>> createProducts(@RequestBody List<ProductDto> productDtos) {
+        List<BatchItemResult<ProductResponse>> results = productServiceImpl.createProducts(productDtos);
+        return ResponseEntity.status(BatchItemResult.overallStatus(results)).body(results);
+    }
+
+    @Operation(summary = "Import products from CSV with a name,price,unitsInStock header, or from JSON objects, returning the rejected rows")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Successfully imported every product"),
+            @ApiResponse(responseCode = "207", description = "Some rows were rejected, see the per-row results"),
+            @ApiResponse(responseCode = "400", description = "The input is not well-formed CSV or JSON")
+    })
+    @PostMapping(value = "/import", consumes = {TEXT_CSV_VALUE, MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<ProductImportResult> importProducts(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                              InputStream body) throws IOException {
+        ProductImportResult result = contentType.isCompatibleWith(MediaType.parseMediaType(TEXT_CSV_VALUE))
+                ? productImportServiceImpl.importCsv(body)
+                : productImportServiceImpl.importJson(body);
+        return ResponseEntity.status(result.getRejected().isEmpty() ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS).body(result);
     }
 
     @Operation(summary = "Update an existing product")
@@ -65,9 +135,9 @@ public class ProductController {
             @ApiResponse(responseCode = "409", description = "Product with the same name already exists")
     })
     @PutMapping("/{id}")
-    public ResponseEntity<Product> updateProduct(@PathVariable Long id, @Valid @RequestBody ProductDto productDto) {
+    public ResponseEntity<ProductResponse> updateProduct(@PathVariable Long id, @Valid @RequestBody ProductDto productDto) {
         Product updatedOrderItem = productServiceImpl.updateProduct(id, productDto);
-        return ResponseEntity.ok(updatedOrderItem);
+        return ResponseEntity.ok(ProductResponse.from(updatedOrderItem));
     }
 
     @Operation(summary = "Delete a product by ID")
@@ -81,4 +151,8 @@ public class ProductController {
         productServiceImpl.deleteProduct(id);
         return ResponseEntity.noContent().build();
     }
+
+    // Documents the page schema, which a byte[] return type hides
+    private static class ProductPage extends CursorPage<ProductResponse> {
+    }
 }
@@ -0,0 +1,52 @@
+package com.teamviewer.challenge.ecommerce.controller;
+
+import com.teamviewer.challenge.ecommerce.model.CursorPage;
+import com.teamviewer.challenge.ecommerce.model.ProductResponse;
+import com.teamviewer.challenge.ecommerce.service.ReactiveProductServiceImpl;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Same responses as the catalog reads in ProductController, served over R2DBC without holding a request thread
+// or a JDBC connection while the query runs
+@RestController
+@RequestMapping("/api/reactive/products")
+public class ReactiveProductController {
+
+    private final ReactiveProductServiceImpl reactiveProductServiceImpl;
+
+    @Autowired
+    public ReactiveProductController(ReactiveProductServiceImpl reactiveProductServiceImpl) {
+        this.reactiveProductServiceImpl = reactiveProductServiceImpl;
+    }
+
+    @Operation(summary = "Get a page of products ordered by ID, continuing after the given cursor")
+    @ApiResponse(responseCode = "200", description = "Successfully retrieved page of products")
+    @GetMapping
+    public Mono<CursorPage<ProductResponse>> getAllProducts(@RequestParam(required = false) String cursor,
+                                                            @RequestParam(defaultValue = "50") int limit) {
+        return reactiveProductServiceImpl.getAllProducts(cursor, limit);
+    }
+
+    @Operation(summary = "Get a product by its ID")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved product"),
+            @ApiResponse(responseCode = "404", description = "Product not found")
+    })
+    @GetMapping("/{id}")
+    public Mono<ProductResponse> getProductById(@PathVariable Long id) {
+        return reactiveProductServiceImpl.getProductById(id);
+    }
+
+    @Operation(summary = "Stream every product ordered by ID as newline-delimited JSON, at the pace the client reads")
+    @ApiResponse(responseCode = "200", description = "Successfully streamed products")
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ProductResponse> streamAllProducts() {
+        return reactiveProductServiceImpl.streamAllProducts();
+    }
+}
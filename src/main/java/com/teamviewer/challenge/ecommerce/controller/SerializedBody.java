@@ -0,0 +1,50 @@
+package com.teamviewer.challenge.ecommerce.controller;
+
+import lombok.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+// A JSON response body serialized once, with a gzip copy when it is large enough to be worth compressing
+@Value
+class SerializedBody {
+    String eTag;
+    // The product version or catalog generation the body was built from
+    Long source;
+    byte[] json;
+    byte[] gzip;
+
+    ResponseEntity<byte[]> toResponse(String acceptEncoding) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON);
+        if (gzip == null) return response.eTag(eTag).body(json);
+
+        response.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!acceptsGzip(acceptEncoding)) return response.eTag(eTag).body(json);
+        // Each encoding gets its own strong ETag
+        return response.eTag(eTag.substring(0, eTag.length() - 1) + "-gzip\"")
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .body(gzip);
+    }
+
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) continue;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=") && isZero(parameter.substring(2))) return false;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isZero(String quality) {
+        try {
+            return Double.parseDouble(quality) == 0;
+        } catch (NumberFormatException ex) {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.teamviewer.challenge.ecommerce.controller;
+
+import com.teamviewer.challenge.ecommerce.model.DailySalesResponse;
+import com.teamviewer.challenge.ecommerce.model.ProductSalesResponse;
+import com.teamviewer.challenge.ecommerce.service.SalesStatsServiceImpl;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Answers from the sales rollups, which are updated with every order write instead of summing order items per request
+@RestController
+@RequestMapping("/api/stats")
+public class StatsController {
+
+    private final SalesStatsServiceImpl salesStatsServiceImpl;
+
+    @Autowired
+    public StatsController(SalesStatsServiceImpl salesStatsServiceImpl) {
+        this.salesStatsServiceImpl = salesStatsServiceImpl;
+    }
+
+    @Operation(summary = "Get the units sold and the revenue of a product across all orders")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved product sales"),
+            @ApiResponse(responseCode = "404", description = "Product not found")
+    })
+    @GetMapping("/products/{productId}")
+    public ResponseEntity<ProductSalesResponse> getProductSales(@PathVariable Long productId) {
+        return ResponseEntity.ok(salesStatsServiceImpl.getProductSales(productId));
+    }
+
+    @Operation(summary = "Get the best selling products by revenue or by units sold")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved top products"),
+            @ApiResponse(responseCode = "400", description = "Unknown sort")
+    })
+    @GetMapping("/products/top")
+    public ResponseEntity<List<ProductSalesResponse>> getTopProducts(@RequestParam(defaultValue = "revenue") String sort,
+                                                                     @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(salesStatsServiceImpl.getTopProducts(sort, limit));
+    }
+
+    @Operation(summary = "Get the orders, units sold and revenue per day (UTC) between two dates, both inclusive")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully retrieved daily sales, days without orders are left out"),
+            @ApiResponse(responseCode = "400", description = "from is after to")
+    })
+    @GetMapping("/daily")
+    public ResponseEntity<List<DailySalesResponse>> getDailySales(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(salesStatsServiceImpl.getDailySales(from, to));
+    }
+
+    @Operation(summary = "Recompute the sales rollups from all orders, to backfill existing data")
+    @ApiResponse(responseCode = "204", description = "Successfully rebuilt the sales rollups")
+    @PostMapping("/rebuild")
+    public ResponseEntity<Void> rebuild() {
+        salesStatsServiceImpl.rebuild();
+        return ResponseEntity.noContent().build();
+    }
+}
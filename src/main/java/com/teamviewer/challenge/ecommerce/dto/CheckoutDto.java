@@ -0,0 +1,22 @@
+package com.teamviewer.challenge.ecommerce.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class CheckoutDto {
+    @NotBlank(message = "Customer name cannot be blank")
+    private String customerName;
+
+    @NotBlank(message = "Address cannot be blank")
+    private String address;
+
+    @NotEmpty(message = "Items list cannot be empty")
+    @NotNull(message = "Items list cannot be null")
+    private List<@Valid @NotNull(message = "Item cannot be null") OrderItemDto> items;
+}
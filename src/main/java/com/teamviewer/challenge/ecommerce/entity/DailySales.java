@@ -0,0 +1,36 @@
+package com.teamviewer.challenge.ecommerce.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Orders and their items summed per UTC day of the order's creation
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "daily_sales")
+public class DailySales {
+
+    @Id
+    @Column(name = "sales_day")
+    private LocalDate day;
+
+    @Column(nullable = false)
+    private Long orders;
+
+    @Column(name = "units_sold", nullable = false)
+    private Long unitsSold;
+
+    @Column(nullable = false, precision = 300, scale = 2)
+    private BigDecimal revenue;
+}
@@ -0,0 +1,45 @@
+package com.teamviewer.challenge.ecommerce.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.Length;
+
+import java.time.Instant;
+
+// A claimed Idempotency-Key, still in flight while responseStatus is null
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "idempotency_keys", indexes = @Index(name = "ix_idempotency_keys_created_at", columnList = "created_at"))
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "idempotency_key", length = 512)
+    private String key;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    // Set by whoever claimed the key last, so a request whose claim was taken over cannot finish the new one's
+    @Column(length = 36)
+    private String token;
+
+    private Integer responseStatus;
+
+    private String contentType;
+
+    @Column(length = Length.LONG)
+    private byte[] body;
+
+    @Column(length = 64)
+    private String requestHash;
+}
@@ -4,6 +4,9 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 
@@ -12,10 +15,14 @@ import java.math.BigDecimal;
 @Entity
 @NoArgsConstructor
 @Table(name = "products")
+// Stock is changed with native updates, which evict the product through SecondLevelCache
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Product {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "products_id_gen")
+    @SequenceGenerator(name = "products_id_gen", sequenceName = "products_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -26,4 +33,10 @@ public class Product {
 
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal price;
+
+    // The default lets ddl-auto add the column to a table that already has rows
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
 }
@@ -0,0 +1,32 @@
+package com.teamviewer.challenge.ecommerce.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+// Running totals of every order item currently in an order, kept up to date by OrderServiceImpl
+@Getter
+@Setter
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "product_sales", indexes = {
+        @Index(name = "ix_product_sales_revenue", columnList = "revenue, product_id"),
+        @Index(name = "ix_product_sales_units_sold", columnList = "units_sold, product_id")
+})
+public class ProductSales {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Column(name = "units_sold", nullable = false)
+    private Long unitsSold;
+
+    @Column(nullable = false, precision = 300, scale = 2)
+    private BigDecimal revenue;
+}
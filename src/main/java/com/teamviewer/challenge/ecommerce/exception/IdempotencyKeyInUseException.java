@@ -0,0 +1,17 @@
+package com.teamviewer.challenge.ecommerce.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.io.Serial;
+
+@ResponseStatus(value = HttpStatus.CONFLICT)
+public class IdempotencyKeyInUseException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public IdempotencyKeyInUseException(String message) {
+        super(message);
+    }
+}
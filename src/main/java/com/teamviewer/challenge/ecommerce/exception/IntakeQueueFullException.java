@@ -0,0 +1,17 @@
+package com.teamviewer.challenge.ecommerce.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import java.io.Serial;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class IntakeQueueFullException extends RuntimeException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public IntakeQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,133 @@
+package com.teamviewer.challenge.ecommerce.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.teamviewer.challenge.ecommerce.entity.IdempotencyRecord;
+import com.teamviewer.challenge.ecommerce.exception.IdempotencyKeyInUseException;
+import com.teamviewer.challenge.ecommerce.repository.IdempotencyRecordRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Shared by every node through the idempotency_keys table. Completed responses are also kept in a local cache, so
+// retries reaching the node that already answered them never touch the database.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "idempotency.store", havingValue = "database")
+public class DatabaseIdempotencyStore implements IdempotencyStore {
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    private final Cache<String, IdempotentResponse> responses;
+    private final Duration ttl;
+    private final Duration waitTimeout;
+    private final Duration pollInterval;
+    private final Duration abandonAfter;
+    private ScheduledExecutorService purger;
+
+    public DatabaseIdempotencyStore(IdempotencyRecordRepository idempotencyRecordRepository,
+                                    @Value("${idempotency.maximum-size:100000}") long maximumSize,
+                                    @Value("${idempotency.ttl:24h}") Duration ttl,
+                                    @Value("${idempotency.wait-timeout:30s}") Duration waitTimeout,
+                                    @Value("${idempotency.database.poll-interval:50ms}") Duration pollInterval,
+                                    @Value("${idempotency.database.abandon-after:5m}") Duration abandonAfter) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.ttl = ttl;
+        this.waitTimeout = waitTimeout;
+        this.pollInterval = pollInterval;
+        this.abandonAfter = abandonAfter;
+    }
+
+    @PostConstruct
+    void start() {
+        purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "idempotency-purger");
+            thread.setDaemon(true);
+            return thread;
+        });
+        purger.scheduleWithFixedDelay(this::purgeQuietly, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void stop() {
+        purger.shutdownNow();
+    }
+
+    // Other nodes' claims are polled, there is no cross-node notification when they finish
+    @Override
+    public Optional<IdempotentResponse> claimOrAwait(String key, String token) {
+        IdempotentResponse stored = responses.getIfPresent(key);
+        if (stored != null) return Optional.of(stored);
+
+        Instant deadline = Instant.now().plus(waitTimeout);
+        while (true) {
+            Instant now = Instant.now();
+            if (idempotencyRecordRepository.insertIfAbsent(key, token, now) > 0
+                    || idempotencyRecordRepository.reclaim(key, token, now, now.minus(abandonAfter), now.minus(ttl)) > 0) {
+                return Optional.empty();
+            }
+            Optional<IdempotencyRecord> record = idempotencyRecordRepository.findById(key);
+            if (record.isPresent() && record.get().getResponseStatus() != null) {
+                IdempotentResponse response = new IdempotentResponse(record.get().getResponseStatus(),
+                        record.get().getContentType(), record.get().getBody(), record.get().getRequestHash());
+                responses.put(key, response);
+                return Optional.of(response);
+            }
+            if (now.isAfter(deadline)) {
+                throw new IdempotencyKeyInUseException("A request with this Idempotency-Key is still being processed: " + key);
+            }
+            sleep(key);
+        }
+    }
+
+    // A request slower than abandon-after may find its key reclaimed by a retry; its response is then dropped
+    @Override
+    public void complete(String key, String token, IdempotentResponse response) {
+        if (idempotencyRecordRepository.complete(key, token, response.getStatus(), response.getContentType(),
+                response.getBody(), response.getRequestHash()) == 0) {
+            log.warn("Idempotency key {} was reclaimed before its request finished, the response is not stored", key);
+            return;
+        }
+        responses.put(key, response);
+    }
+
+    @Override
+    public void release(String key, String token) {
+        idempotencyRecordRepository.release(key, token);
+    }
+
+    void purge() {
+        int deleted = idempotencyRecordRepository.deleteExpired(Instant.now().minus(ttl));
+        if (deleted > 0) log.debug("Purged {} expired idempotency keys", deleted);
+    }
+
+    private void purgeQuietly() {
+        try {
+            purge();
+        } catch (RuntimeException ex) {
+            log.warn("Purging expired idempotency keys failed", ex);
+        }
+    }
+
+    private void sleep(String key) {
+        try {
+            Thread.sleep(pollInterval.toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyInUseException("Interrupted while waiting for the request with this Idempotency-Key: " + key);
+        }
+    }
+}
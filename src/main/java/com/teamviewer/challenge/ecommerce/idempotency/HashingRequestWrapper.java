@@ -0,0 +1,101 @@
+package com.teamviewer.challenge.ecommerce.idempotency;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+// Hashes the request body as it is read instead of buffering it, so streamed uploads stay streamed
+class HashingRequestWrapper extends HttpServletRequestWrapper {
+
+    private final MessageDigest digest;
+    private HashingInputStream inputStream;
+    private BufferedReader reader;
+
+    HashingRequestWrapper(HttpServletRequest request) {
+        super(request);
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if (inputStream == null) inputStream = new HashingInputStream(super.getInputStream());
+        return inputStream;
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        if (reader == null) {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1;
+            reader = new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+        return reader;
+    }
+
+    // Reads whatever the application left unread, or null when the body can no longer be read to the end
+    String bodyHash() {
+        try {
+            HashingInputStream stream = (HashingInputStream) getInputStream();
+            if (!stream.isFinished()) stream.transferTo(OutputStream.nullOutputStream());
+        } catch (IOException | IllegalStateException ex) {
+            return null;
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private class HashingInputStream extends ServletInputStream {
+
+        private final ServletInputStream delegate;
+        private boolean finished;
+
+        HashingInputStream(ServletInputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = delegate.read();
+            if (b < 0) finished = true;
+            else digest.update((byte) b);
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = delegate.read(b, off, len);
+            if (read < 0) finished = true;
+            else digest.update(b, off, read);
+            return read;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            delegate.setReadListener(readListener);
+        }
+    }
+}
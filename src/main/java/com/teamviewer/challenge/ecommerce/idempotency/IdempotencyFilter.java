@@ -0,0 +1,105 @@
+package com.teamviewer.challenge.ecommerce.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teamviewer.challenge.ecommerce.exception.IdempotencyKeyInUseException;
+import com.teamviewer.challenge.ecommerce.model.ErrorResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.UUID;
+
+// A POST carrying an Idempotency-Key runs once: retries with the same key get the stored response without reaching
+// the controllers, and retries arriving while it still runs wait for it. Keys are scoped to the request path.
+// 5xx responses and exceptions are not stored, so the next retry runs the request again. A retry whose body differs
+// from the stored request's is rejected with 422: the key was reused for a different request.
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore idempotencyStore;
+    private final ObjectMapper objectMapper;
+
+    public IdempotencyFilter(IdempotencyStore idempotencyStore, ObjectMapper objectMapper) {
+        this.idempotencyStore = idempotencyStore;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.POST.matches(request.getMethod()) || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST, "Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters.");
+            return;
+        }
+        String key = request.getRequestURI() + " " + idempotencyKey;
+
+        String token = UUID.randomUUID().toString();
+        HashingRequestWrapper requestWrapper = new HashingRequestWrapper(request);
+
+        Optional<IdempotentResponse> stored;
+        try {
+            stored = idempotencyStore.claimOrAwait(key, token);
+        } catch (IdempotencyKeyInUseException ex) {
+            writeError(response, HttpStatus.CONFLICT, "A request with this Idempotency-Key is still being processed.");
+            return;
+        }
+        if (stored.isPresent()) {
+            String requestHash = stored.get().getRequestHash();
+            if (requestHash != null && !requestHash.equals(requestWrapper.bodyHash())) {
+                writeError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                        "This Idempotency-Key was already used for a request with a different body.");
+                return;
+            }
+            replay(stored.get(), response);
+            return;
+        }
+
+        // The body is hashed while the controller reads it, and stored with the response once it is complete
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            filterChain.doFilter(requestWrapper, responseWrapper);
+            if (responseWrapper.getStatus() < HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+                idempotencyStore.complete(key, token, new IdempotentResponse(responseWrapper.getStatus(),
+                        responseWrapper.getContentType(), responseWrapper.getContentAsByteArray(), requestWrapper.bodyHash()));
+                completed = true;
+            }
+        } finally {
+            if (!completed) idempotencyStore.release(key, token);
+            responseWrapper.copyBodyToResponse();
+        }
+    }
+
+    private void replay(IdempotentResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.getStatus());
+        if (stored.getContentType() != null) response.setContentType(stored.getContentType());
+        response.setHeader(REPLAYED_HEADER, "true");
+        response.setContentLength(stored.getBody().length);
+        response.getOutputStream().write(stored.getBody());
+    }
+
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(status.value(), message));
+    }
+}
@@ -0,0 +1,13 @@
+package com.teamviewer.challenge.ecommerce.idempotency;
+
+import java.util.Optional;
+
+public interface IdempotencyStore {
+    // Returns the stored response for the key, after waiting for an in-flight request with the same key to finish.
+    // Empty means the caller now owns the key under its token and must run the request, then complete or release it.
+    Optional<IdempotentResponse> claimOrAwait(String key, String token);
+    // Complete and release do nothing once another token has taken the key over
+    void complete(String key, String token, IdempotentResponse response);
+    // The request failed without a response worth replaying, so the next retry runs it again
+    void release(String key, String token);
+}
@@ -0,0 +1,13 @@
+package com.teamviewer.challenge.ecommerce.idempotency;
+
+import lombok.Value;
+
+// What a retry with the same Idempotency-Key is answered with, if its body hashes the same as the first request's.
+// requestHash is null when the first request's body could not be read to the end, and then never compared.
+@Value
+public class IdempotentResponse {
+    int status;
+    String contentType;
+    byte[] body;
+    String requestHash;
+}
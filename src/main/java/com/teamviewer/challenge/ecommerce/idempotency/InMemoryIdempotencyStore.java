@@ -0,0 +1,92 @@
+package com.teamviewer.challenge.ecommerce.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.teamviewer.challenge.ecommerce.exception.IdempotencyKeyInUseException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Single node only: a retry that lands on another instance runs again
+@Component
+@ConditionalOnProperty(name = "idempotency.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+    private final Cache<String, IdempotentResponse> responses;
+    // Duplicates of an in-flight request wait on its future, which completes with null when it is released
+    private final Map<String, Claim> inFlight = new ConcurrentHashMap<>();
+    private final Duration waitTimeout;
+
+    public InMemoryIdempotencyStore(@Value("${idempotency.maximum-size:100000}") long maximumSize,
+                                    @Value("${idempotency.ttl:24h}") Duration ttl,
+                                    @Value("${idempotency.wait-timeout:30s}") Duration waitTimeout) {
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .build();
+        this.waitTimeout = waitTimeout;
+    }
+
+    @Override
+    public Optional<IdempotentResponse> claimOrAwait(String key, String token) {
+        while (true) {
+            IdempotentResponse stored = responses.getIfPresent(key);
+            if (stored != null) return Optional.of(stored);
+
+            Claim claim = new Claim(token, new CompletableFuture<>());
+            Claim running = inFlight.putIfAbsent(key, claim);
+            if (running == null) {
+                // The previous owner may have completed between the lookup and the claim
+                stored = responses.getIfPresent(key);
+                if (stored == null) return Optional.empty();
+                inFlight.remove(key, claim);
+                claim.response().complete(stored);
+                return Optional.of(stored);
+            }
+            IdempotentResponse response = await(key, running.response());
+            if (response != null) return Optional.of(response);
+        }
+    }
+
+    @Override
+    public void complete(String key, String token, IdempotentResponse response) {
+        Claim claim = inFlight.get(key);
+        if (claim == null || !claim.token().equals(token)) return;
+        responses.put(key, response);
+        inFlight.remove(key, claim);
+        claim.response().complete(response);
+    }
+
+    @Override
+    public void release(String key, String token) {
+        Claim claim = inFlight.get(key);
+        if (claim == null || !claim.token().equals(token)) return;
+        inFlight.remove(key, claim);
+        claim.response().complete(null);
+    }
+
+    private IdempotentResponse await(String key, CompletableFuture<IdempotentResponse> running) {
+        try {
+            return running.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            throw new IdempotencyKeyInUseException("A request with this Idempotency-Key is still being processed: " + key);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyKeyInUseException("Interrupted while waiting for the request with this Idempotency-Key: " + key);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private record Claim(String token, CompletableFuture<IdempotentResponse> response) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.teamviewer.challenge.ecommerce.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+import org.springframework.http.HttpStatus;
+
+import java.util.List;
+
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult<T> {
+    public static final int MAX_ROWS = 10_000;
+
+    int index;
+    int statusCode;
+    T item;
+    String message;
+
+    public static <T> BatchItemResult<T> created(int index, T item) {
+        return new BatchItemResult<>(index, HttpStatus.CREATED.value(), item, null);
+    }
+
+    public static <T> BatchItemResult<T> rejected(int index, HttpStatus status, String message) {
+        return new BatchItemResult<>(index, status.value(), null, message);
+    }
+
+    public static HttpStatus overallStatus(List<? extends BatchItemResult<?>> results) {
+        boolean allCreated = results.stream().allMatch(result -> result.getStatusCode() == HttpStatus.CREATED.value());
+        return allCreated ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+    }
+}
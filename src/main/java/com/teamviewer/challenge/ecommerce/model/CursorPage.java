@@ -0,0 +1,51 @@
+package com.teamviewer.challenge.ecommerce.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPage<T> {
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 500;
+
+    private List<T> items;
+    private String next;
+
+    public static int normalizeLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    // Callers fetch limit + 1 rows so the extra row tells us whether another page exists
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, Long> idExtractor) {
+        if (rows.size() <= limit) return new CursorPage<>(rows, null);
+        List<T> items = rows.subList(0, limit);
+        return new CursorPage<>(items, encode(idExtractor.apply(items.get(limit - 1))));
+    }
+
+    // For pages in an order other than by id, where the cursor holds how many rows came before
+    public static <T> CursorPage<T> ofOffset(List<T> rows, int limit, long offset) {
+        if (rows.size() <= limit) return new CursorPage<>(rows, null);
+        return new CursorPage<>(rows.subList(0, limit), encode(offset + limit));
+    }
+
+    public static String encode(Long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return 0L;
+        try {
+            return Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, ex);
+        }
+    }
+}
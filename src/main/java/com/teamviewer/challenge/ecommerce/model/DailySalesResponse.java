@@ -0,0 +1,19 @@
+package com.teamviewer.challenge.ecommerce.model;
+
+import com.teamviewer.challenge.ecommerce.entity.DailySales;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Value
+public class DailySalesResponse {
+    LocalDate day;
+    Long orders;
+    Long unitsSold;
+    BigDecimal revenue;
+
+    public static DailySalesResponse from(DailySales dailySales) {
+        return new DailySalesResponse(dailySales.getDay(), dailySales.getOrders(), dailySales.getUnitsSold(), dailySales.getRevenue());
+    }
+}
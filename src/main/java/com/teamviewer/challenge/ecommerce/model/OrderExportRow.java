@@ -0,0 +1,23 @@
+package com.teamviewer.challenge.ecommerce.model;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+// One order joined with one of its items; the item columns are null for an order without items
+@Value
+public class OrderExportRow {
+    Long orderId;
+    String customerName;
+    String address;
+    BigDecimal totalPrice;
+    Long version;
+    Long orderItemId;
+    Long productId;
+    Integer quantity;
+    BigDecimal orderItemPrice;
+
+    public OrderItemResponse toOrderItemResponse() {
+        return new OrderItemResponse(orderItemId, orderId, productId, quantity, orderItemPrice);
+    }
+}
@@ -0,0 +1,32 @@
+package com.teamviewer.challenge.ecommerce.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+import org.springframework.http.HttpStatus;
+
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class OrderIntakeStatus {
+
+    public enum State {
+        QUEUED, COMPLETED, FAILED
+    }
+
+    String trackingId;
+    State state;
+    Long orderId;
+    Integer statusCode;
+    String message;
+
+    public static OrderIntakeStatus queued(String trackingId) {
+        return new OrderIntakeStatus(trackingId, State.QUEUED, null, null, null);
+    }
+
+    public static OrderIntakeStatus completed(String trackingId, Long orderId) {
+        return new OrderIntakeStatus(trackingId, State.COMPLETED, orderId, HttpStatus.CREATED.value(), null);
+    }
+
+    public static OrderIntakeStatus failed(String trackingId, HttpStatus status, String message) {
+        return new OrderIntakeStatus(trackingId, State.FAILED, null, status.value(), message);
+    }
+}
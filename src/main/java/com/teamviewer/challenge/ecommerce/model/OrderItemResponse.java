@@ -0,0 +1,25 @@
+package com.teamviewer.challenge.ecommerce.model;
+
+import com.teamviewer.challenge.ecommerce.entity.OrderItem;
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+@Value
+public class OrderItemResponse {
+    Long id;
+    Long orderId;
+    Long productId;
+    Integer quantity;
+    BigDecimal orderItemPrice;
+
+    // Only the ids of the lazy associations are read, so neither the order nor the product gets loaded
+    public static OrderItemResponse from(OrderItem orderItem) {
+        return new OrderItemResponse(
+                orderItem.getId(),
+                orderItem.getOrder() != null ? orderItem.getOrder().getId() : null,
+                orderItem.getProduct() != null ? orderItem.getProduct().getId() : null,
+                orderItem.getQuantity(),
+                orderItem.getOrderItemPrice());
+    }
+}
@@ -0,0 +1,28 @@
+package com.teamviewer.challenge.ecommerce.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.teamviewer.challenge.ecommerce.entity.Order;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Value
+public class OrderResponse {
+    Long id;
+    String customerName;
+    String address;
+    List<OrderItemResponse> orderItems;
+    BigDecimal totalPrice;
+    // Sent as the ETag rather than in the body
+    @JsonIgnore
+    Long version;
+
+    public static OrderResponse from(Order order) {
+        return of(order, order.getOrderItems().stream().map(OrderItemResponse::from).toList());
+    }
+
+    public static OrderResponse of(Order order, List<OrderItemResponse> orderItems) {
+        return new OrderResponse(order.getId(), order.getCustomerName(), order.getAddress(), orderItems, order.getTotalPrice(), order.getVersion());
+    }
+}
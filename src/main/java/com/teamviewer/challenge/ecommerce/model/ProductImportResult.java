@@ -0,0 +1,12 @@
+package com.teamviewer.challenge.ecommerce.model;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class ProductImportResult {
+    int rows;
+    int imported;
+    List<BatchItemResult<Void>> rejected;
+}
@@ -0,0 +1,22 @@
+package com.teamviewer.challenge.ecommerce.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.teamviewer.challenge.ecommerce.entity.Product;
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+@Value
+public class ProductResponse {
+    Long id;
+    String name;
+    Integer unitsInStock;
+    BigDecimal price;
+    // Sent as the ETag rather than in the body
+    @JsonIgnore
+    Long version;
+
+    public static ProductResponse from(Product product) {
+        return new ProductResponse(product.getId(), product.getName(), product.getUnitsInStock(), product.getPrice(), product.getVersion());
+    }
+}
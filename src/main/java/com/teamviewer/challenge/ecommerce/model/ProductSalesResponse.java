@@ -0,0 +1,17 @@
+package com.teamviewer.challenge.ecommerce.model;
+
+import com.teamviewer.challenge.ecommerce.entity.ProductSales;
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+@Value
+public class ProductSalesResponse {
+    Long productId;
+    Long unitsSold;
+    BigDecimal revenue;
+
+    public static ProductSalesResponse from(ProductSales productSales) {
+        return new ProductSalesResponse(productSales.getProductId(), productSales.getUnitsSold(), productSales.getRevenue());
+    }
+}
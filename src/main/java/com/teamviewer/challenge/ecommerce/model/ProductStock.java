@@ -0,0 +1,9 @@
+package com.teamviewer.challenge.ecommerce.model;
+
+import lombok.Value;
+
+@Value
+public class ProductStock {
+    Long id;
+    Integer unitsInStock;
+}
@@ -0,0 +1,88 @@
+package com.teamviewer.challenge.ecommerce.model;
+
+import com.teamviewer.challenge.ecommerce.entity.Order;
+import com.teamviewer.challenge.ecommerce.entity.OrderItem;
+import lombok.Getter;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Changes to the sales rollups made by one order write. Items count towards their product and towards the day
+// of the order holding them, so the order is captured when a change is recorded: an item moved between orders is
+// removed under the old one and added under the new one.
+public class SalesDelta {
+    private final List<Change> changes = new ArrayList<>();
+
+    public static LocalDate dayOf(Instant instant) {
+        return LocalDate.ofInstant(instant, ZoneOffset.UTC);
+    }
+
+    public void addOrder(Order order) {
+        changes.add(new Change(order, null, 1));
+    }
+
+    public void removeOrder(Order order) {
+        changes.add(new Change(order, null, -1));
+    }
+
+    public void addItem(OrderItem orderItem) {
+        changes.add(new Change(orderItem.getOrder(), orderItem, 1));
+    }
+
+    public void removeItem(OrderItem orderItem) {
+        changes.add(new Change(orderItem.getOrder(), orderItem, -1));
+    }
+
+    // Sorted, so concurrent writers lock the rollup rows in the same order
+    public Map<Long, Totals> productTotals() {
+        Map<Long, Totals> totals = new TreeMap<>();
+        for (Change change : changes) {
+            if (change.getOrderItem() == null) continue;
+            totals.computeIfAbsent(change.getOrderItem().getProduct().getId(), productId -> new Totals()).add(change);
+        }
+        return totals;
+    }
+
+    public Map<LocalDate, Totals> dayTotals() {
+        Map<LocalDate, Totals> totals = new TreeMap<>();
+        for (Change change : changes) {
+            totals.computeIfAbsent(dayOf(change.getOrder().getCreatedAt()), day -> new Totals()).add(change);
+        }
+        return totals;
+    }
+
+    @Value
+    private static class Change {
+        Order order;
+        OrderItem orderItem;
+        int sign;
+    }
+
+    @Getter
+    public static class Totals {
+        private long orders;
+        private long units;
+        private BigDecimal revenue = BigDecimal.ZERO;
+
+        private void add(Change change) {
+            if (change.getOrderItem() == null) {
+                orders += change.getSign();
+                return;
+            }
+            units += (long) change.getSign() * change.getOrderItem().getQuantity();
+            BigDecimal price = change.getOrderItem().getOrderItemPrice();
+            revenue = revenue.add(change.getSign() < 0 ? price.negate() : price);
+        }
+
+        public boolean isZero() {
+            return orders == 0 && units == 0 && revenue.signum() == 0;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.teamviewer.challenge.ecommerce.replica;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+// GET and HEAD requests may read from the replica. Any other request pins its client to the primary for the
+// read-your-writes window with a cookie, so the client's next reads see what it just wrote even if the replica has
+// not replayed it yet.
+@Component
+@ConditionalOnProperty(name = "replica.enabled", havingValue = "true")
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String PRIMARY_UNTIL_COOKIE = "primary-until";
+
+    private final Duration window;
+
+    public ReadYourWritesFilter(@Value("${replica.read-your-writes:5s}") Duration window) {
+        this.window = window;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        boolean read = HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+        if (!read) {
+            // Set before the chain runs: the response may already be committed once it returns
+            response.addCookie(primaryUntil(System.currentTimeMillis() + window.toMillis()));
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (pinnedToPrimary(request)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        ReplicaRouting.allowReplica();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ReplicaRouting.clear();
+        }
+    }
+
+    private Cookie primaryUntil(long until) {
+        Cookie cookie = new Cookie(PRIMARY_UNTIL_COOKIE, Long.toString(until));
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge((int) Math.max(1, window.toSeconds()));
+        return cookie;
+    }
+
+    private static boolean pinnedToPrimary(HttpServletRequest request) {
+        if (request.getCookies() == null) return false;
+        for (Cookie cookie : request.getCookies()) {
+            if (!PRIMARY_UNTIL_COOKIE.equals(cookie.getName())) continue;
+            try {
+                return Long.parseLong(cookie.getValue()) > System.currentTimeMillis();
+            } catch (NumberFormatException ex) {
+                return false;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,79 @@
+package com.teamviewer.challenge.ecommerce.replica;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Asks the replica how far behind it is every check interval. Until the first answer, while it is further behind
+// than max-lag, and while it cannot be reached, every read goes to the primary.
+@Slf4j
+public class ReplicaLagMonitor {
+
+    static final String LAG_METER = "replica.lag";
+
+    private final JdbcTemplate replica;
+    private final String lagQuery;
+    private final double maxLagSeconds;
+    private final Duration checkInterval;
+
+    private volatile boolean replicaUsable;
+    private volatile double lagSeconds = Double.NaN;
+    private ScheduledExecutorService checker;
+
+    public ReplicaLagMonitor(JdbcTemplate replica, String lagQuery, Duration maxLag, Duration checkInterval,
+                             MeterRegistry meterRegistry) {
+        this.replica = replica;
+        this.lagQuery = lagQuery;
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        this.checkInterval = checkInterval;
+        Gauge.builder(LAG_METER, this, monitor -> monitor.lagSeconds)
+                .description("Seconds the replica is behind the primary, NaN while it cannot be reached")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checker.scheduleWithFixedDelay(this::check, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        checker.shutdownNow();
+    }
+
+    public boolean isReplicaUsable() {
+        return replicaUsable;
+    }
+
+    void check() {
+        boolean usable;
+        try {
+            Double lag = replica.queryForObject(lagQuery, Double.class);
+            lagSeconds = lag == null ? Double.NaN : lag;
+            usable = lag != null && lag <= maxLagSeconds;
+        } catch (RuntimeException ex) {
+            lagSeconds = Double.NaN;
+            usable = false;
+            if (replicaUsable) log.warn("Replica lag check failed, reads go to the primary", ex);
+        }
+        if (usable != replicaUsable) {
+            log.info(usable ? "Replica caught up, read-only transactions use it again"
+                    : "Replica is {}s behind, read-only transactions use the primary", lagSeconds);
+        }
+        replicaUsable = usable;
+    }
+}
@@ -0,0 +1,36 @@
+package com.teamviewer.challenge.ecommerce.replica;
+
+import java.util.function.Supplier;
+
+// Whether read-only transactions started on the current thread may go to the replica. Only requests let through by
+// ReadYourWritesFilter allow it; background work and every other request stay on the primary.
+public final class ReplicaRouting {
+
+    private static final ThreadLocal<Boolean> REPLICA_ALLOWED = new ThreadLocal<>();
+
+    private ReplicaRouting() {
+    }
+
+    public static boolean isReplicaAllowed() {
+        return Boolean.TRUE.equals(REPLICA_ALLOWED.get());
+    }
+
+    // For reads whose result outlives the request, such as cache fills, which must not keep a lagging replica's rows
+    public static <T> T onPrimary(Supplier<T> reads) {
+        Boolean previous = REPLICA_ALLOWED.get();
+        REPLICA_ALLOWED.remove();
+        try {
+            return reads.get();
+        } finally {
+            if (previous != null) REPLICA_ALLOWED.set(previous);
+        }
+    }
+
+    static void allowReplica() {
+        REPLICA_ALLOWED.set(Boolean.TRUE);
+    }
+
+    static void clear() {
+        REPLICA_ALLOWED.remove();
+    }
+}
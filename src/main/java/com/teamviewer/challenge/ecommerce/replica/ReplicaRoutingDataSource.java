@@ -0,0 +1,33 @@
+package com.teamviewer.challenge.ecommerce.replica;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+// Picks the database when a connection is taken. Has to sit behind a LazyConnectionDataSourceProxy: the transaction
+// manager asks for the connection before the transaction is marked read-only, the proxy only fetches it on the first
+// statement.
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private final ReplicaLagMonitor lagMonitor;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean replica = TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && ReplicaRouting.isReplicaAllowed()
+                && lagMonitor.isReplicaUsable();
+        return replica ? Target.REPLICA : Target.PRIMARY;
+    }
+}
@@ -0,0 +1,37 @@
+package com.teamviewer.challenge.ecommerce.replica;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Transactions that may read from the replica still read Hibernate's second-level cache but never fill it: a
+// replica row can be older than what a write on the primary has just evicted, and would otherwise be cached as
+// current.
+public class ReplicaRoutingTransactionManager extends JpaTransactionManager {
+
+    public ReplicaRoutingTransactionManager(EntityManagerFactory entityManagerFactory) {
+        super(entityManagerFactory);
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        super.doBegin(transaction, definition);
+        if (definition.isReadOnly() && ReplicaRouting.isReplicaAllowed()) session().setCacheMode(CacheMode.GET);
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        Session session = session();
+        if (session != null && session.isOpen() && session.getCacheMode() == CacheMode.GET) session.setCacheMode(CacheMode.NORMAL);
+        super.doCleanupAfterCompletion(transaction);
+    }
+
+    private Session session() {
+        EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(obtainEntityManagerFactory());
+        return holder == null ? null : holder.getEntityManager().unwrap(Session.class);
+    }
+}
@@ -0,0 +1,47 @@
+package com.teamviewer.challenge.ecommerce.repository;
+
+import com.teamviewer.challenge.ecommerce.entity.DailySales;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailySalesRepository extends JpaRepository<DailySales, LocalDate> {
+    List<DailySales> findByDayBetweenOrderByDayAsc(LocalDate from, LocalDate to);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "daily_sales"))
+    @Query(value = "INSERT INTO daily_sales (sales_day, orders, units_sold, revenue) VALUES (:day, 0, 0, 0) ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    void insertIfMissing(@Param("day") LocalDate day);
+
+    @Modifying
+    @Query("UPDATE DailySales s SET s.orders = s.orders + :orders, s.unitsSold = s.unitsSold + :units, " +
+            "s.revenue = s.revenue + :revenue WHERE s.day = :day")
+    void add(@Param("day") LocalDate day, @Param("orders") long orders, @Param("units") long units,
+             @Param("revenue") BigDecimal revenue);
+
+    @Modifying
+    @Query("DELETE FROM DailySales")
+    void deleteAllRows();
+
+    // Orders without items still count as orders
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "daily_sales"))
+    @Query(value = "INSERT INTO daily_sales (sales_day, orders, units_sold, revenue) " +
+            "SELECT CAST(o.created_at AT TIME ZONE 'UTC' AS DATE), COUNT(*), SUM(o.units_sold), SUM(o.revenue) FROM (" +
+            "SELECT o.created_at, COALESCE(SUM(oi.quantity), 0) AS units_sold, COALESCE(SUM(oi.order_item_price), 0) AS revenue " +
+            "FROM orders o LEFT JOIN order_items oi ON oi.order_id = o.id GROUP BY o.id, o.created_at) o " +
+            "GROUP BY CAST(o.created_at AT TIME ZONE 'UTC' AS DATE)",
+            nativeQuery = true)
+    int insertFromOrders();
+}
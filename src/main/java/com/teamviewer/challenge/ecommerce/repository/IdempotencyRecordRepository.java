@@ -0,0 +1,51 @@
+package com.teamviewer.challenge.ecommerce.repository;
+
+import com.teamviewer.challenge.ecommerce.entity.IdempotencyRecord;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+// Every statement commits on its own, so other nodes see a claim or a response as soon as it is written
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+    @Transactional
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_keys"))
+    @Query(value = "INSERT INTO idempotency_keys (idempotency_key, created_at, token) VALUES (:key, :now, :token) ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("key") String key, @Param("token") String token, @Param("now") Instant now);
+
+    // Takes over a key whose owner never finished, e.g. because its node went down, or whose response has expired
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.createdAt = :now, r.token = :token, r.responseStatus = NULL, r.contentType = NULL, " +
+            "r.body = NULL, r.requestHash = NULL " +
+            "WHERE r.key = :key AND ((r.responseStatus IS NULL AND r.createdAt < :abandonedBefore) OR r.createdAt < :expiredBefore)")
+    int reclaim(@Param("key") String key, @Param("token") String token, @Param("now") Instant now,
+                @Param("abandonedBefore") Instant abandonedBefore, @Param("expiredBefore") Instant expiredBefore);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.responseStatus = :status, r.contentType = :contentType, r.body = :body, " +
+            "r.requestHash = :requestHash WHERE r.key = :key AND r.token = :token AND r.responseStatus IS NULL")
+    int complete(@Param("key") String key, @Param("token") String token, @Param("status") int status,
+                 @Param("contentType") String contentType, @Param("body") byte[] body, @Param("requestHash") String requestHash);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.key = :key AND r.token = :token AND r.responseStatus IS NULL")
+    int release(@Param("key") String key, @Param("token") String token);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :expiredBefore")
+    int deleteExpired(@Param("expiredBefore") Instant expiredBefore);
+}
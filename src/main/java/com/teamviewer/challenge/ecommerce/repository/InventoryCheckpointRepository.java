@@ -0,0 +1,9 @@
+package com.teamviewer.challenge.ecommerce.repository;
+
+import com.teamviewer.challenge.ecommerce.entity.InventoryCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface InventoryCheckpointRepository extends JpaRepository<InventoryCheckpoint, Integer> {
+}
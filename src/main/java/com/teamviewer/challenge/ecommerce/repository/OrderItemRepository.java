@@ -1,12 +1,38 @@
 package com.teamviewer.challenge.ecommerce.repository;
 
+import com.teamviewer.challenge.ecommerce.cache.SecondLevelCache;
 import com.teamviewer.challenge.ecommerce.entity.OrderItem;
+import com.teamviewer.challenge.ecommerce.model.OrderItemResponse;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
-    List<OrderItem> findByProductId(Long productId);
+public interface OrderItemRepository extends JpaRepository<OrderItem, Long>, OrderItemRepositoryCustom {
+    // Stops at the first matching row of the product_id index instead of loading every item. Cached until order_items
+    // is written
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = SecondLevelCache.ORDER_ITEM_LOOKUPS_REGION)})
+    boolean existsByProductId(Long productId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query("SELECT DISTINCT oi.product.id FROM OrderItem oi")
+    Stream<Long> streamReferencedProductIds();
+
+    @Query("SELECT new com.teamviewer.challenge.ecommerce.model.OrderItemResponse(oi.id, oi.order.id, oi.product.id, oi.quantity, oi.orderItemPrice) " +
+            "FROM OrderItem oi WHERE oi.id > :afterId ORDER BY oi.id")
+    List<OrderItemResponse> findPageAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.teamviewer.challenge.ecommerce.model.OrderItemResponse(oi.id, oi.order.id, oi.product.id, oi.quantity, oi.orderItemPrice) " +
+            "FROM OrderItem oi WHERE oi.order.id IN :orderIds ORDER BY oi.id")
+    List<OrderItemResponse> findResponsesByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
 }
@@ -0,0 +1,10 @@
+package com.teamviewer.challenge.ecommerce.repository;
+
+import com.teamviewer.challenge.ecommerce.entity.OrderItem;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface OrderItemRepositoryCustom {
+    List<OrderItem> loadAllById(Collection<Long> ids);
+}
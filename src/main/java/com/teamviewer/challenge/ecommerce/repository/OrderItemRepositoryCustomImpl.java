@@ -0,0 +1,32 @@
+package com.teamviewer.challenge.ecommerce.repository;
+
+import com.teamviewer.challenge.ecommerce.entity.OrderItem;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+
+class OrderItemRepositoryCustomImpl implements OrderItemRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // findAllById always runs an IN query. A multi-load takes what it can from the persistence context and the
+    // second-level cache, where items land when they are created, and only queries the rest.
+    @Override
+    public List<OrderItem> loadAllById(Collection<Long> ids) {
+        return entityManager.unwrap(Session.class).byMultipleIds(OrderItem.class)
+                .enableSessionCheck(true)
+                // Without an explicit cache mode a multi-load skips the second-level cache
+                .with(CacheMode.NORMAL)
+                .multiLoad(List.copyOf(ids)).stream()
+                // Unknown ids come back as null and repeated ones as the same instance; findAllById returns neither
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+    }
+}
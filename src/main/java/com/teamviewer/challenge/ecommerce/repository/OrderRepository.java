@@ -1,15 +1,53 @@
 package com.teamviewer.challenge.ecommerce.repository;
 
 import com.teamviewer.challenge.ecommerce.entity.Order;
+import com.teamviewer.challenge.ecommerce.model.EntityVersion;
+import com.teamviewer.challenge.ecommerce.model.OrderExportRow;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
-    boolean existsByCustomerNameIgnoreCase(String customerName);
-    Order findByCustomerNameIgnoreCase(String customerName);
-    @Query("SELECT CASE WHEN COUNT(o) > 0 THEN TRUE ELSE FALSE END FROM Order o JOIN o.orderItems oi WHERE oi.id = :orderItemId")
-    boolean existsByOrderItemId(@Param("orderItemId") Long orderItemId);
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderRepositoryCustom {
+    @Override
+    @EntityGraph(attributePaths = "orderItems")
+    Optional<Order> findById(Long id);
+
+    @Query("SELECT CASE WHEN COUNT(o) > 0 THEN TRUE ELSE FALSE END FROM Order o WHERE lower(o.customerName) = lower(:customerName)")
+    boolean existsByCustomerNameIgnoreCase(@Param("customerName") String customerName);
+
+    @Query("SELECT o FROM Order o WHERE lower(o.customerName) = lower(:customerName)")
+    Order findByCustomerNameIgnoreCase(@Param("customerName") String customerName);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query("SELECT o.customerName FROM Order o")
+    Stream<String> streamAllCustomerNames();
+
+    // A projection, so nothing enters the persistence context however many rows go by;
+    // the fetch size makes the PostgreSQL driver read through a cursor inside the transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.teamviewer.challenge.ecommerce.model.OrderExportRow(o.id, o.customerName, o.address, o.totalPrice, o.version, " +
+            "oi.id, oi.product.id, oi.quantity, oi.orderItemPrice) " +
+            "FROM Order o LEFT JOIN o.orderItems oi ORDER BY o.id, oi.id")
+    Stream<OrderExportRow> streamAllForExport();
+
+    List<Order> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // Enough to answer If-None-Match without loading orders and their items
+    @Query("SELECT o.version FROM Order o WHERE o.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Query("SELECT new com.teamviewer.challenge.ecommerce.model.EntityVersion(o.id, o.version) FROM Order o " +
+            "WHERE o.id > :afterId ORDER BY o.id")
+    List<EntityVersion> findVersionPageAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
@@ -0,0 +1,7 @@
+package com.teamviewer.challenge.ecommerce.repository;
+
+import com.teamviewer.challenge.ecommerce.entity.Order;
+
+public interface OrderRepositoryCustom {
+    void incrementVersion(Order order);
+}
@@ -0,0 +1,19 @@
+package com.teamviewer.challenge.ecommerce.repository;
+
+import com.teamviewer.challenge.ecommerce.entity.Order;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+
+class OrderRepositoryCustomImpl implements OrderRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // For changes the order's own columns and collection do not show, such as an item moved to another order.
+    // The version is bumped at flush, and checked against the row like any other update.
+    @Override
+    public void incrementVersion(Order order) {
+        entityManager.lock(order, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+    }
+}
@@ -0,0 +1,101 @@
+package com.teamviewer.challenge.ecommerce.repository;
+
+import com.teamviewer.challenge.ecommerce.dto.ProductDto;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+// Bulk product import on PostgreSQL: rows are streamed through COPY into a temporary staging table and merged into
+// products with set-based statements. Has to run inside one transaction, which the staging table is dropped with.
+@Repository
+@RequiredArgsConstructor
+public class ProductImportRepository {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final String REJECTED_ROWS = "SELECT row_index FROM (" +
+            "SELECT row_index, imported, row_number() OVER (PARTITION BY lower(name) ORDER BY row_index) AS occurrence " +
+            "FROM product_import) s WHERE NOT imported AND ";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StagingWriter openStaging() {
+        jdbcTemplate.execute("CREATE TEMPORARY TABLE product_import (row_index integer PRIMARY KEY, " +
+                "name varchar(255) NOT NULL, price numeric(10, 2) NOT NULL, units_in_stock integer NOT NULL, " +
+                "imported boolean NOT NULL DEFAULT false) ON COMMIT DROP");
+        return jdbcTemplate.execute((ConnectionCallback<StagingWriter>) connection -> new StagingWriter(new PGCopyOutputStream(
+                connection.unwrap(PGConnection.class),
+                "COPY product_import (row_index, name, price, units_in_stock) FROM STDIN WITH (FORMAT csv)", COPY_BUFFER_SIZE)));
+    }
+
+    // Inserts the first staged row of every name that is not taken yet and marks it imported. Ids come from the
+    // entity's sequence one value per row: Hibernate's pooled optimizer treats each value as the top of a block of
+    // allocationSize ids, so a value taken here is a block no instance will hand out. ON CONFLICT skips names
+    // created concurrently after the NOT EXISTS check.
+    public int merge() {
+        jdbcTemplate.execute("ANALYZE product_import");
+        return jdbcTemplate.update("WITH candidates AS (" +
+                "SELECT DISTINCT ON (lower(s.name)) s.row_index, s.name, s.price, s.units_in_stock FROM product_import s " +
+                "WHERE NOT EXISTS (SELECT 1 FROM products p WHERE lower(p.name) = lower(s.name)) " +
+                "ORDER BY lower(s.name), s.row_index" +
+                "), inserted AS (" +
+                "INSERT INTO products (id, name, price, units_in_stock, version) " +
+                "SELECT nextval('products_seq'), name, price, units_in_stock, 0 FROM candidates ORDER BY row_index " +
+                "ON CONFLICT ((lower(name))) DO NOTHING RETURNING name" +
+                ") UPDATE product_import s SET imported = true FROM candidates c JOIN inserted i ON i.name = c.name " +
+                "WHERE s.row_index = c.row_index");
+    }
+
+    public List<Integer> findRowsRepeatingAnEarlierName() {
+        return jdbcTemplate.queryForList(REJECTED_ROWS + "occurrence > 1 ORDER BY row_index", Integer.class);
+    }
+
+    public List<Integer> findRowsWithExistingName() {
+        return jdbcTemplate.queryForList(REJECTED_ROWS + "occurrence = 1 ORDER BY row_index", Integer.class);
+    }
+
+    public void forEachImportedProduct(BiConsumer<Long, String> consumer) {
+        jdbcTemplate.query("SELECT p.id, p.name FROM product_import s JOIN products p ON lower(p.name) = lower(s.name) " +
+                        "WHERE s.imported",
+                (RowCallbackHandler) resultSet -> consumer.accept(resultSet.getLong(1), resultSet.getString(2)));
+    }
+
+    // Writes rows in COPY's CSV format; closing it ends the COPY
+    public static class StagingWriter implements Closeable {
+
+        private final Writer writer;
+
+        StagingWriter(OutputStream copyStream) {
+            this.writer = new OutputStreamWriter(copyStream, StandardCharsets.UTF_8);
+        }
+
+        public void write(int rowIndex, ProductDto productDto) throws IOException {
+            writer.write(Integer.toString(rowIndex));
+            writer.write(",\"");
+            writer.write(productDto.getName().replace("\"", "\"\""));
+            writer.write("\",");
+            writer.write(productDto.getPrice().toPlainString());
+            writer.write(',');
+            writer.write(Integer.toString(productDto.getUnitsInStock()));
+            writer.write('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+}
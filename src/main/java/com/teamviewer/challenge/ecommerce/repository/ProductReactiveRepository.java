@@ -0,0 +1,54 @@
+package com.teamviewer.challenge.ecommerce.repository;
+
+import com.teamviewer.challenge.ecommerce.model.ProductResponse;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+
+// Read-only access to products over R2DBC. Rows map straight to ProductResponse, there are no managed entities here.
+@Repository
+@RequiredArgsConstructor
+public class ProductReactiveRepository {
+
+    private static final String COLUMNS = "SELECT id, name, units_in_stock, price, version FROM products";
+    // Rows requested from the database per round trip while streaming, so a slow client holds back the query
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<ProductResponse> findById(Long id) {
+        return databaseClient.sql(COLUMNS + " WHERE id = :id")
+                .bind("id", id)
+                .map(ProductReactiveRepository::toProductResponse)
+                .one();
+    }
+
+    public Flux<ProductResponse> findPageAfter(Long afterId, int limit) {
+        return databaseClient.sql(COLUMNS + " WHERE id > :afterId ORDER BY id LIMIT :limit")
+                .bind("afterId", afterId)
+                .bind("limit", limit)
+                .map(ProductReactiveRepository::toProductResponse)
+                .all();
+    }
+
+    public Flux<ProductResponse> streamAll() {
+        return databaseClient.sql(COLUMNS + " ORDER BY id")
+                .filter((statement, next) -> next.execute(statement.fetchSize(STREAM_FETCH_SIZE)))
+                .map(ProductReactiveRepository::toProductResponse)
+                .all();
+    }
+
+    private static ProductResponse toProductResponse(Readable row) {
+        return new ProductResponse(
+                row.get("id", Long.class),
+                row.get("name", String.class),
+                row.get("units_in_stock", Integer.class),
+                row.get("price", BigDecimal.class),
+                row.get("version", Long.class));
+    }
+}
@@ -1,11 +1,95 @@
 package com.teamviewer.challenge.ecommerce.repository;
 
+import com.teamviewer.challenge.ecommerce.cache.SecondLevelCache;
 import com.teamviewer.challenge.ecommerce.entity.Product;
+import com.teamviewer.challenge.ecommerce.model.ProductName;
+import com.teamviewer.challenge.ecommerce.model.ProductResponse;
+import com.teamviewer.challenge.ecommerce.model.ProductStock;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
-    boolean existsByNameIgnoreCase(String name);
-    Product findByNameIgnoreCase(String name);
+    // lower() on both sides lets these lookups use the unique index on lower(name).
+    // The answer is kept in the query cache until the products table is written through Hibernate.
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = SecondLevelCache.PRODUCT_LOOKUPS_REGION)})
+    @Query("SELECT CASE WHEN COUNT(p) > 0 THEN TRUE ELSE FALSE END FROM Product p WHERE lower(p.name) = lower(:name)")
+    boolean existsByNameIgnoreCase(@Param("name") String name);
+
+    @Query("SELECT p FROM Product p WHERE lower(p.name) = lower(:name)")
+    Product findByNameIgnoreCase(@Param("name") String name);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query("SELECT p.name FROM Product p")
+    Stream<String> streamAllNames();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query("SELECT new com.teamviewer.challenge.ecommerce.model.ProductName(p.id, p.name) FROM Product p")
+    Stream<ProductName> streamAllIdsAndNames();
+
+    @Query("SELECT new com.teamviewer.challenge.ecommerce.model.ProductResponse(p.id, p.name, p.unitsInStock, p.price, p.version) " +
+            "FROM Product p WHERE p.id IN :ids")
+    List<ProductResponse> findResponsesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT new com.teamviewer.challenge.ecommerce.model.ProductResponse(p.id, p.name, p.unitsInStock, p.price, p.version) " +
+            "FROM Product p WHERE p.id > :afterId ORDER BY p.id")
+    List<ProductResponse> findPageAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT lower(p.name) FROM Product p WHERE lower(p.name) IN :names")
+    List<String> findExistingLowerNames(@Param("names") Collection<String> names);
+
+    @Query("SELECT p.unitsInStock FROM Product p WHERE p.id = :id")
+    Optional<Integer> findUnitsInStockById(@Param("id") Long id);
+
+    // The stock check and the decrement happen in one statement, so concurrent checkouts cannot oversell.
+    // Both stock updates increment the version themselves. They are native statements synchronized on a query space
+    // no entity or cached query uses: a JPQL update would make Hibernate drop every cached product, while only the
+    // one product changes. Callers evict it through SecondLevelCache. The persistence context is kept, like for
+    // reserveStockAll: a product already loaded in it keeps the old stock and version, which nothing writes back, since
+    // only changed entities are flushed.
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "product_stock"))
+    @Query(value = "UPDATE products SET units_in_stock = units_in_stock - :quantity, version = version + 1 " +
+            "WHERE id = :id AND units_in_stock >= :quantity", nativeQuery = true)
+    int reserveStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "product_stock"))
+    @Query(value = "UPDATE products SET units_in_stock = units_in_stock + :quantity, version = version + 1 WHERE id = :id",
+            nativeQuery = true)
+    int releaseStock(@Param("id") Long id, @Param("quantity") int quantity);
+
+    // Rows are locked in id order, so checkouts sharing products wait for each other instead of deadlocking
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new com.teamviewer.challenge.ecommerce.model.ProductStock(p.id, p.unitsInStock) " +
+            "FROM Product p WHERE p.id IN :ids ORDER BY p.id")
+    List<ProductStock> lockStockByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Every line of a checkout in one statement, joined to the caller's transaction. The rows are expected to be
+    // locked already; the stock condition only keeps a missed lock from overselling. The persistence context is kept,
+    // since the checkout's new items reference the products loaded in it.
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "product_stock"))
+    @Query(value = "UPDATE products p SET units_in_stock = p.units_in_stock - r.quantity, version = p.version + 1 " +
+            "FROM unnest(:ids, :quantities) AS r(id, quantity) WHERE p.id = r.id AND p.units_in_stock >= r.quantity",
+            nativeQuery = true)
+    int reserveStockAll(@Param("ids") Long[] ids, @Param("quantities") Integer[] quantities);
 }
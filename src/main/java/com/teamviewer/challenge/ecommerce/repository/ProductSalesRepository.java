@@ -0,0 +1,53 @@
+package com.teamviewer.challenge.ecommerce.repository;
+
+import com.teamviewer.challenge.ecommerce.entity.ProductSales;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface ProductSalesRepository extends JpaRepository<ProductSales, Long> {
+    // Top products through the (revenue, product_id) and (units_sold, product_id) indexes, without a count query
+    List<ProductSales> findAllBy(Pageable pageable);
+
+    // Creating the row first and adding to it second is safe under concurrent orders and also runs on H2,
+    // which has no ON CONFLICT DO UPDATE. Native writes name the table they change, or Hibernate would empty its
+    // whole second-level cache after each one.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "product_sales"))
+    @Query(value = "INSERT INTO product_sales (product_id, units_sold, revenue) VALUES (:productId, 0, 0) ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    void insertIfMissing(@Param("productId") Long productId);
+
+    @Modifying
+    @Query("UPDATE ProductSales s SET s.unitsSold = s.unitsSold + :units, s.revenue = s.revenue + :revenue " +
+            "WHERE s.productId = :productId")
+    void add(@Param("productId") Long productId, @Param("units") long units, @Param("revenue") BigDecimal revenue);
+
+    // Blocks order writes, which add to these tables, until the rebuild commits; reads carry on
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "product_sales"))
+    @Query(value = "LOCK TABLE product_sales, daily_sales IN EXCLUSIVE MODE", nativeQuery = true)
+    void lockForRebuild();
+
+    @Modifying
+    @Query("DELETE FROM ProductSales")
+    void deleteAllRows();
+
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "product_sales"))
+    @Query(value = "INSERT INTO product_sales (product_id, units_sold, revenue) " +
+            "SELECT oi.product_id, SUM(oi.quantity), SUM(oi.order_item_price) FROM order_items oi " +
+            "WHERE oi.order_id IS NOT NULL GROUP BY oi.product_id",
+            nativeQuery = true)
+    int insertFromOrderItems();
+}
@@ -0,0 +1,46 @@
+package com.teamviewer.challenge.ecommerce.repository;
+
+import com.teamviewer.challenge.ecommerce.model.ProductResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Product search on PostgreSQL with the same matching and ranking as ProductSearchIndex: every query token has to
+// start a word of the name, and names holding more of the tokens as whole words come first. The trigram index on
+// lower(name) turns each pattern into an index search for tokens of three or more characters.
+// Tokens only hold letters and digits, so they go into the patterns as they are.
+@Repository
+@RequiredArgsConstructor
+public class ProductSearchRepository {
+
+    private static final String WORD_START = "(^|[^[:alnum:]])";
+    private static final String WORD_END = "([^[:alnum:]]|$)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<ProductResponse> search(List<String> tokens, long offset, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT id, name, units_in_stock, price, version FROM products WHERE true");
+        List<Object> args = new ArrayList<>();
+        for (String token : tokens) {
+            sql.append(" AND lower(name) ~ ?");
+            args.add(WORD_START + token);
+        }
+        sql.append(" ORDER BY ");
+        for (String token : tokens) {
+            sql.append("CASE WHEN lower(name) ~ ? THEN 1 ELSE 0 END + ");
+            args.add(WORD_START + token + WORD_END);
+        }
+        sql.append("0 DESC, id LIMIT ? OFFSET ?");
+        args.add(limit);
+        args.add(offset);
+        return jdbcTemplate.query(sql.toString(), (resultSet, rowNum) -> new ProductResponse(
+                resultSet.getLong("id"),
+                resultSet.getString("name"),
+                resultSet.getInt("units_in_stock"),
+                resultSet.getBigDecimal("price"),
+                resultSet.getLong("version")), args.toArray());
+    }
+}
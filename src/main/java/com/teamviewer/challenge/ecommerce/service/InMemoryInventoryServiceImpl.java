@@ -0,0 +1,436 @@
+package com.teamviewer.challenge.ecommerce.service;
+
+import com.teamviewer.challenge.ecommerce.cache.ProductCache;
+import com.teamviewer.challenge.ecommerce.cache.SecondLevelCache;
+import com.teamviewer.challenge.ecommerce.entity.InventoryCheckpoint;
+import com.teamviewer.challenge.ecommerce.repository.InventoryCheckpointRepository;
+import com.teamviewer.challenge.ecommerce.repository.ProductRepository;
+import com.teamviewer.challenge.ecommerce.service.interfaces.InventoryService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Keeps the available stock of every touched product in memory and decides reservations with a CAS on its counter.
+// Committed deltas are journaled to disk, then written to the products table in batches by a background flusher.
+// Only valid while this node is the single writer of units_in_stock.
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "inventory.mode", havingValue = "memory")
+public class InMemoryInventoryServiceImpl implements InventoryService {
+
+    private final ProductRepository productRepository;
+    private final InventoryCheckpointRepository checkpointRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SecondLevelCache secondLevelCache;
+    private final ProductCache productCache;
+    private final InventoryJournal journal;
+    private final long flushIntervalMs;
+    private final int maxPendingProducts;
+
+    private final Map<Long, AtomicInteger> available = new ConcurrentHashMap<>();
+    // Guards the journal and the pending deltas
+    private final ReentrantLock journalLock = new ReentrantLock();
+    // Held for a whole flush so counters are never loaded while a batch is half written
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private Map<Long, Integer> pending = new HashMap<>();
+    private final Map<Long, Integer> inFlight = new HashMap<>();
+    // Group commit: a sync covers every entry appended before it, so a commit that one already covered skips its own
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private long syncedSequence;
+    private ScheduledExecutorService flusher;
+
+    public InMemoryInventoryServiceImpl(ProductRepository productRepository,
+                                        InventoryCheckpointRepository checkpointRepository,
+                                        JdbcTemplate jdbcTemplate,
+                                        TransactionTemplate transactionTemplate,
+                                        SecondLevelCache secondLevelCache,
+                                        ProductCache productCache,
+                                        @Value("${inventory.memory.journal-dir:inventory-journal}") String journalDir,
+                                        @Value("${inventory.memory.flush-interval-ms:200}") long flushIntervalMs,
+                                        @Value("${inventory.memory.max-pending-products:1000}") int maxPendingProducts) throws IOException {
+        this.productRepository = productRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.secondLevelCache = secondLevelCache;
+        this.productCache = productCache;
+        this.journal = new InventoryJournal(Path.of(journalDir));
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxPendingProducts = maxPendingProducts;
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        recover();
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws IOException, InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(flushIntervalMs * 10, TimeUnit.MILLISECONDS);
+        flush();
+        journal.close();
+    }
+
+    // The counters change right away, so concurrent reservations see each other. The deltas are journaled only once
+    // the caller's transaction commits, and a rollback gives the units back without journaling anything.
+    @Override
+    public boolean reserve(Long productId, int quantity) {
+        if (!take(productId, quantity)) return false;
+        stage(Map.of(productId, -quantity));
+        return true;
+    }
+
+    @Override
+    public Set<Long> reserveAll(Map<Long, Integer> quantities) {
+        Map<Long, Integer> reserved = new TreeMap<>();
+        Set<Long> insufficient = new HashSet<>();
+        new TreeMap<>(quantities).forEach((productId, quantity) -> {
+            if (take(productId, quantity)) reserved.put(productId, -quantity);
+            else insufficient.add(productId);
+        });
+        if (!insufficient.isEmpty()) {
+            reserved.forEach((productId, delta) -> change(productId, -delta));
+            return insufficient;
+        }
+
+        stage(reserved);
+        return Set.of();
+    }
+
+    @Override
+    public void lockAll(Collection<Long> productIds) {
+        // Reservations are decided on the counters, there are no rows to lock
+    }
+
+    @Override
+    public void release(Long productId, int quantity) {
+        if (change(productId, quantity)) stage(Map.of(productId, quantity));
+    }
+
+    private boolean take(Long productId, int quantity) {
+        AtomicInteger counter = counterFor(productId);
+        if (counter == null) return false;
+
+        int current;
+        do {
+            current = counter.get();
+            if (current < quantity) return false;
+        } while (!counter.compareAndSet(current, current - quantity));
+        return true;
+    }
+
+    private boolean change(Long productId, int delta) {
+        AtomicInteger counter = counterFor(productId);
+        if (counter == null) return false;
+        counter.addAndGet(delta);
+        return true;
+    }
+
+    // Until the transaction completes the deltas are in flight: counted when a counter is loaded, but neither
+    // journaled nor flushed. Without a transaction they are journaled right away.
+    private void stage(Map<Long, Integer> deltas) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(deltas, false);
+            return;
+        }
+        inFlight(deltas, 1);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    record(deltas, true);
+                } else {
+                    inFlight(deltas, -1);
+                    deltas.forEach((productId, delta) -> {
+                        AtomicInteger counter = available.get(productId);
+                        if (counter != null) counter.addAndGet(-delta);
+                    });
+                }
+            }
+        });
+    }
+
+    private void inFlight(Map<Long, Integer> deltas, int sign) {
+        journalLock.lock();
+        try {
+            deltas.forEach((productId, delta) -> mergeDelta(inFlight, productId, sign * delta));
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    // Like the database row, the stock becomes the value written. Reservations that committed before are part of the
+    // old value and are dropped from pending, with an entry that cancels them in the journal; those still in flight
+    // apply on top of the new value once they commit. The flusher is held off from before the commit until the
+    // counter is rebased, so no batch can add old deltas to the new row in between; a batch written before the
+    // commit bumps the version and fails the caller's write instead.
+    @Override
+    public void stockSet(Long productId, int previousUnits, int unitsInStock) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            rebase(productId, unitsInStock - previousUnits);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                flushLock.lock();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) rebase(productId, unitsInStock - previousUnits);
+                } finally {
+                    if (flushLock.isHeldByCurrentThread()) flushLock.unlock();
+                }
+            }
+        });
+    }
+
+    private void rebase(Long productId, int change) {
+        flushLock.lock();
+        try {
+            int dropped = 0;
+            long lastSequence;
+            journalLock.lock();
+            try {
+                Integer removed = pending.remove(productId);
+                if (removed != null) {
+                    dropped = removed;
+                    journal.append(productId, -removed);
+                }
+                lastSequence = journal.lastSequence();
+            } catch (IOException ex) {
+                // Replaying the journal would then apply the dropped deltas again
+                log.error("Could not journal the inventory reset of product {}", productId, ex);
+                lastSequence = 0;
+            } finally {
+                journalLock.unlock();
+            }
+            syncUpToQuietly(lastSequence);
+
+            // Adjusted rather than replaced, so takes racing with this are kept
+            AtomicInteger counter = available.get(productId);
+            if (counter != null) counter.addAndGet(change - dropped);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // The next reservation finds the product gone
+    @Override
+    public void evict(Long productId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            remove(productId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                remove(productId);
+            }
+        });
+    }
+
+    private void remove(Long productId) {
+        flushLock.lock();
+        try {
+            available.remove(productId);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    void flush() {
+        flushLock.lock();
+        try {
+            Map<Long, Integer> batch;
+            long upTo;
+            journalLock.lock();
+            try {
+                if (pending.isEmpty()) return;
+                upTo = journal.roll();
+                batch = pending;
+                pending = new HashMap<>();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            } finally {
+                journalLock.unlock();
+            }
+
+            try {
+                write(batch, upTo);
+            } catch (RuntimeException ex) {
+                journalLock.lock();
+                try {
+                    batch.forEach((productId, delta) -> pending.merge(productId, delta, Integer::sum));
+                } finally {
+                    journalLock.unlock();
+                }
+                throw ex;
+            }
+            deleteSegmentsUpTo(upTo);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException ex) {
+            log.warn("Inventory flush failed, the deltas stay pending and will be retried", ex);
+        }
+    }
+
+    private AtomicInteger counterFor(Long productId) {
+        AtomicInteger counter = available.get(productId);
+        if (counter != null) return counter;
+
+        flushLock.lock();
+        try {
+            counter = available.get(productId);
+            if (counter != null) return counter;
+
+            Optional<Integer> unitsInStock = productRepository.findUnitsInStockById(productId);
+            if (unitsInStock.isEmpty()) return null;
+            int unflushed;
+            journalLock.lock();
+            try {
+                unflushed = pending.getOrDefault(productId, 0) + inFlight.getOrDefault(productId, 0);
+            } finally {
+                journalLock.unlock();
+            }
+            counter = new AtomicInteger(unitsInStock.get() + unflushed);
+            available.put(productId, counter);
+            return counter;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Returns once the entries are on disk. The deltas are pending for the flusher even when the journal fails, since
+    // the reservations they belong to may have committed already; they are then lost only if the process stops first.
+    private void record(Map<Long, Integer> deltas, boolean committed) {
+        boolean flushNow;
+        long lastSequence;
+        journalLock.lock();
+        try {
+            if (committed) deltas.forEach((productId, delta) -> mergeDelta(inFlight, productId, -delta));
+            deltas.forEach((productId, delta) -> pending.merge(productId, delta, Integer::sum));
+            flushNow = pending.size() >= maxPendingProducts;
+            for (Map.Entry<Long, Integer> entry : new TreeMap<>(deltas).entrySet()) {
+                journal.append(entry.getKey(), entry.getValue());
+            }
+            lastSequence = journal.lastSequence();
+        } catch (IOException ex) {
+            log.error("Could not journal inventory deltas {}", deltas, ex);
+            return;
+        } finally {
+            journalLock.unlock();
+        }
+        syncUpToQuietly(lastSequence);
+        if (flushNow && flusher != null) flusher.execute(this::flushQuietly);
+    }
+
+    private void syncUpToQuietly(long sequence) {
+        try {
+            syncUpTo(sequence);
+        } catch (IOException ex) {
+            log.error("Could not sync the inventory journal", ex);
+        }
+    }
+
+    private void syncUpTo(long sequence) throws IOException {
+        syncLock.lock();
+        try {
+            if (syncedSequence >= sequence) return;
+            long synced;
+            journalLock.lock();
+            try {
+                synced = journal.lastSequence();
+                journal.sync();
+            } finally {
+                journalLock.unlock();
+            }
+            syncedSequence = synced;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private static void mergeDelta(Map<Long, Integer> deltas, Long productId, int delta) {
+        if (deltas.merge(productId, delta, Integer::sum) == 0) deltas.remove(productId);
+    }
+
+    // Deltas and the checkpoint commit together, so replaying the journal never applies an entry twice
+    private void write(Map<Long, Integer> deltas, long upTo) {
+        List<Object[]> updates = new TreeMap<>(deltas).entrySet().stream()
+                .filter(entry -> entry.getValue() != 0)
+                .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+                .toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate("UPDATE products SET units_in_stock = units_in_stock + ?, version = version + 1 WHERE id = ?", updates);
+                secondLevelCache.evictProducts(deltas.keySet());
+                // A product loaded between its reservation and this write holds the old stock and version
+                productCache.invalidateAll(deltas.keySet());
+            }
+            checkpointRepository.save(new InventoryCheckpoint(InventoryCheckpoint.SINGLETON_ID, upTo));
+        });
+    }
+
+    private void recover() throws IOException {
+        long checkpoint = checkpointRepository.findById(InventoryCheckpoint.SINGLETON_ID)
+                .map(InventoryCheckpoint::getLastSequence)
+                .orElse(0L);
+        Map<Long, Integer> unapplied = new HashMap<>();
+        long lastSequence = checkpoint;
+        for (InventoryJournal.Entry entry : journal.readAll()) {
+            if (entry.sequence() > checkpoint) unapplied.merge(entry.productId(), entry.delta(), Integer::sum);
+            lastSequence = Math.max(lastSequence, entry.sequence());
+        }
+        journal.open(lastSequence + 1);
+        syncedSequence = lastSequence;
+
+        if (lastSequence > checkpoint) {
+            log.info("Replaying inventory journal from sequence {} to {}", checkpoint + 1, lastSequence);
+            write(unapplied, lastSequence);
+        }
+        deleteSegmentsUpTo(lastSequence);
+    }
+
+    private void deleteSegmentsUpTo(long sequence) {
+        try {
+            journal.deleteSegmentsUpTo(sequence);
+        } catch (IOException ex) {
+            log.warn("Could not delete flushed inventory journal segments", ex);
+        }
+    }
+}
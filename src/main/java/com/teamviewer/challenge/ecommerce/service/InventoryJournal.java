@@ -0,0 +1,109 @@
+package com.teamviewer.challenge.ecommerce.service;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Append-only log of stock deltas, split into segments named after the first sequence they contain.
+// Not thread safe, callers serialize access.
+class InventoryJournal implements Closeable {
+
+    record Entry(long sequence, long productId, int delta) {
+    }
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private FileOutputStream segment;
+    private DataOutputStream out;
+    private long nextSequence;
+    private long entriesInSegment;
+
+    InventoryJournal(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    List<Entry> readAll() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        for (Path path : segments()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                while (true) {
+                    entries.add(new Entry(in.readLong(), in.readLong(), in.readInt()));
+                }
+            } catch (EOFException ignored) {
+                // End of segment, or a record that was cut short by a crash
+            }
+        }
+        return entries;
+    }
+
+    void open(long firstSequence) throws IOException {
+        nextSequence = firstSequence;
+        entriesInSegment = 0;
+        segment = new FileOutputStream(directory.resolve(segmentName(firstSequence)).toFile(), true);
+        out = new DataOutputStream(new BufferedOutputStream(segment));
+    }
+
+    long append(long productId, int delta) throws IOException {
+        long sequence = nextSequence++;
+        out.writeLong(sequence);
+        out.writeLong(productId);
+        out.writeInt(delta);
+        entriesInSegment++;
+        return sequence;
+    }
+
+    long lastSequence() {
+        return nextSequence - 1;
+    }
+
+    // Appended entries are only durable once this returns
+    void sync() throws IOException {
+        out.flush();
+        segment.getFD().sync();
+    }
+
+    // Closes the current segment and returns the last sequence it holds
+    long roll() throws IOException {
+        if (entriesInSegment > 0) {
+            close();
+            open(nextSequence);
+        }
+        return nextSequence - 1;
+    }
+
+    void deleteSegmentsUpTo(long sequence) throws IOException {
+        List<Path> segments = segments();
+        for (int i = 0; i < segments.size() - 1; i++) {
+            if (firstSequence(segments.get(i + 1)) - 1 <= sequence) Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out == null) return;
+        out.flush();
+        segment.getFD().sync();
+        out.close();
+        out = null;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX)).sorted().toList();
+        }
+    }
+
+    private static String segmentName(long firstSequence) {
+        return String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX);
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,74 @@
+package com.teamviewer.challenge.ecommerce.service;
+
+import com.teamviewer.challenge.ecommerce.cache.SecondLevelCache;
+import com.teamviewer.challenge.ecommerce.model.ProductStock;
+import com.teamviewer.challenge.ecommerce.repository.ProductRepository;
+import com.teamviewer.challenge.ecommerce.service.interfaces.InventoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "inventory.mode", havingValue = "jpa", matchIfMissing = true)
+public class JpaInventoryServiceImpl implements InventoryService {
+
+    private final ProductRepository productRepository;
+    private final SecondLevelCache secondLevelCache;
+
+    @Override
+    public boolean reserve(Long productId, int quantity) {
+        if (productRepository.reserveStock(productId, quantity) == 0) return false;
+        secondLevelCache.evictProduct(productId);
+        return true;
+    }
+
+    // The rows are locked and checked first, so the single update either covers every line or is not run
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Set<Long> reserveAll(Map<Long, Integer> quantities) {
+        Map<Long, Integer> sorted = new TreeMap<>(quantities);
+        List<ProductStock> stock = productRepository.lockStockByIdIn(sorted.keySet());
+        Set<Long> insufficient = new HashSet<>(sorted.keySet());
+        stock.forEach(product -> {
+            if (product.getUnitsInStock() >= sorted.get(product.getId())) insufficient.remove(product.getId());
+        });
+        if (!insufficient.isEmpty()) return insufficient;
+
+        int reserved = productRepository.reserveStockAll(sorted.keySet().toArray(Long[]::new), sorted.values().toArray(Integer[]::new));
+        secondLevelCache.evictProducts(sorted.keySet());
+        if (reserved != sorted.size()) throw new IllegalStateException("Stock changed while the products were locked");
+        return Set.of();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lockAll(Collection<Long> productIds) {
+        productRepository.lockStockByIdIn(productIds);
+    }
+
+    @Override
+    public void release(Long productId, int quantity) {
+        productRepository.releaseStock(productId, quantity);
+        secondLevelCache.evictProduct(productId);
+    }
+
+    @Override
+    public void stockSet(Long productId, int previousUnits, int unitsInStock) {
+        // The write itself is the new stock, nothing to rebase
+    }
+
+    @Override
+    public void evict(Long productId) {
+        // The database is the only copy of the stock, nothing to evict
+    }
+}
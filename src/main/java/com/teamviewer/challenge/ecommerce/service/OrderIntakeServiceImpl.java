@@ -0,0 +1,220 @@
+package com.teamviewer.challenge.ecommerce.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.teamviewer.challenge.ecommerce.dto.CheckoutDto;
+import com.teamviewer.challenge.ecommerce.dto.OrderItemDto;
+import com.teamviewer.challenge.ecommerce.exception.DuplicateElementException;
+import com.teamviewer.challenge.ecommerce.exception.InsufficientStockException;
+import com.teamviewer.challenge.ecommerce.exception.IntakeQueueFullException;
+import com.teamviewer.challenge.ecommerce.exception.ResourceNotFoundException;
+import com.teamviewer.challenge.ecommerce.model.OrderIntakeStatus;
+import com.teamviewer.challenge.ecommerce.model.SalesDelta;
+import com.teamviewer.challenge.ecommerce.service.interfaces.InventoryService;
+import com.teamviewer.challenge.ecommerce.service.interfaces.OrderIntakeService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Checkouts are validated, queued and answered right away. Writer threads take whatever has queued up, up to
+// max-batch-size orders, and place it in one transaction, so the whole group shares one commit and its inserts are
+// batched together. A group that fails to commit is placed again one order per transaction, so one bad order cannot
+// fail the others. Outcomes are kept on this node only, for status-ttl.
+@Slf4j
+@Service
+public class OrderIntakeServiceImpl implements OrderIntakeService {
+
+    static final String QUEUE_DEPTH_METER = "order.intake.queue.depth";
+    static final String BATCH_SIZE_METER = "order.intake.batch.size";
+    static final String COMMIT_METER = "order.intake.commit";
+
+    private static final long POLL_TIMEOUT_MS = 100;
+
+    private final OrderServiceImpl orderServiceImpl;
+    private final SalesStatsServiceImpl salesStatsService;
+    private final InventoryService inventoryService;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<IntakeRequest> queue;
+    private final Cache<String, OrderIntakeStatus> statuses;
+    private final DistributionSummary batchSizes;
+    private final Timer commits;
+    private final int writers;
+    private final int maxBatchSize;
+
+    // Checkouts submitted before the writers start wait in the queue for them
+    private volatile boolean running = true;
+    private ExecutorService writerPool;
+
+    record IntakeRequest(String trackingId, CheckoutDto checkout) {
+    }
+
+    public OrderIntakeServiceImpl(OrderServiceImpl orderServiceImpl,
+                                  SalesStatsServiceImpl salesStatsService,
+                                  InventoryService inventoryService,
+                                  TransactionTemplate transactionTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${order-intake.capacity:10000}") int capacity,
+                                  @Value("${order-intake.writers:2}") int writers,
+                                  @Value("${order-intake.max-batch-size:100}") int maxBatchSize,
+                                  @Value("${order-intake.status-ttl:1h}") Duration statusTtl) {
+        this.orderServiceImpl = orderServiceImpl;
+        this.salesStatsService = salesStatsService;
+        this.inventoryService = inventoryService;
+        this.transactionTemplate = transactionTemplate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.statuses = Caffeine.newBuilder().expireAfterWrite(statusTtl).build();
+        this.writers = writers;
+        this.maxBatchSize = maxBatchSize;
+        Gauge.builder(QUEUE_DEPTH_METER, queue, Collection::size)
+                .description("Checkouts waiting for a writer")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder(BATCH_SIZE_METER)
+                .description("Orders placed per transaction")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.commits = Timer.builder(COMMIT_METER)
+                .description("Time to place and commit one group of orders")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        writerPool = Executors.newFixedThreadPool(writers, runnable -> {
+            Thread thread = new Thread(runnable, "order-intake-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < writers; i++) writerPool.execute(this::drain);
+    }
+
+    // New checkouts are refused from here on, the ones already queued are still placed
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writerPool.shutdown();
+        if (!writerPool.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Order intake stopped with {} checkouts still queued", queue.size());
+        }
+    }
+
+    @Override
+    public OrderIntakeStatus submit(CheckoutDto checkoutDto) {
+        if (!orderServiceImpl.isValid(checkoutDto)) throw new IllegalArgumentException("CheckoutDto is not valid");
+
+        // Stored before it is queued, so a writer's outcome cannot be overwritten by it
+        OrderIntakeStatus queued = OrderIntakeStatus.queued(UUID.randomUUID().toString());
+        statuses.put(queued.getTrackingId(), queued);
+        if (!running || !queue.offer(new IntakeRequest(queued.getTrackingId(), checkoutDto))) {
+            statuses.invalidate(queued.getTrackingId());
+            throw new IntakeQueueFullException("Too many orders are waiting to be placed, please retry later");
+        }
+        return queued;
+    }
+
+    @Override
+    public OrderIntakeStatus getStatus(String trackingId) {
+        OrderIntakeStatus status = statuses.getIfPresent(trackingId);
+        if (status == null) throw new ResourceNotFoundException("Order intake not found with tracking id: " + trackingId);
+        return status;
+    }
+
+    private void drain() {
+        List<IntakeRequest> group = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                IntakeRequest first = queue.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                group.add(first);
+                queue.drainTo(group, maxBatchSize - 1);
+                place(group);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                log.error("Order intake writer failed on a group of {} checkouts", group.size(), ex);
+                group.forEach(request -> statuses.put(request.trackingId(), failed(request.trackingId(), ex)));
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    // The products of the whole group are locked first and in id order, and the sales rollups are written once at
+    // the end, so two writers always take their locks in the same order
+    void place(List<IntakeRequest> group) {
+        batchSizes.record(group.size());
+        Map<String, OrderIntakeStatus> outcomes = new HashMap<>();
+        try {
+            commits.record(() -> transactionTemplate.executeWithoutResult(status -> {
+                inventoryService.lockAll(productIds(group));
+                SalesDelta salesDelta = new SalesDelta();
+                for (IntakeRequest request : group) {
+                    try {
+                        Long orderId = orderServiceImpl.placeOrder(request.checkout(), salesDelta).getId();
+                        outcomes.put(request.trackingId(), OrderIntakeStatus.completed(request.trackingId(), orderId));
+                    } catch (ResourceNotFoundException | InsufficientStockException | IllegalArgumentException ex) {
+                        // Rejected before the order wrote anything, the rest of the group goes on
+                        outcomes.put(request.trackingId(), failed(request.trackingId(), ex));
+                    }
+                }
+                salesStatsService.apply(salesDelta);
+            }));
+        } catch (RuntimeException ex) {
+            log.warn("A group of {} orders failed to commit, placing them one by one", group.size(), ex);
+            group.forEach(this::placeAlone);
+            return;
+        }
+        statuses.putAll(outcomes);
+    }
+
+    private void placeAlone(IntakeRequest request) {
+        OrderIntakeStatus outcome;
+        try {
+            outcome = OrderIntakeStatus.completed(request.trackingId(), orderServiceImpl.checkout(request.checkout()).getId());
+        } catch (RuntimeException ex) {
+            outcome = failed(request.trackingId(), ex);
+        }
+        statuses.put(request.trackingId(), outcome);
+    }
+
+    private static Set<Long> productIds(List<IntakeRequest> group) {
+        Set<Long> productIds = new TreeSet<>();
+        for (IntakeRequest request : group) {
+            for (OrderItemDto item : request.checkout().getItems()) productIds.add(item.getProductId());
+        }
+        return productIds;
+    }
+
+    // The status codes the synchronous checkout answers with
+    private static OrderIntakeStatus failed(String trackingId, RuntimeException ex) {
+        if (ex instanceof ResourceNotFoundException) return OrderIntakeStatus.failed(trackingId, HttpStatus.NOT_FOUND, ex.getMessage());
+        if (ex instanceof InsufficientStockException || ex instanceof IllegalArgumentException) {
+            return OrderIntakeStatus.failed(trackingId, HttpStatus.BAD_REQUEST, ex.getMessage());
+        }
+        if (ex instanceof DuplicateElementException) return OrderIntakeStatus.failed(trackingId, HttpStatus.CONFLICT, ex.getMessage());
+        if (ex instanceof DataIntegrityViolationException) {
+            return OrderIntakeStatus.failed(trackingId, HttpStatus.CONFLICT, "The request conflicts with existing data.");
+        }
+        return OrderIntakeStatus.failed(trackingId, HttpStatus.INTERNAL_SERVER_ERROR, "The order could not be placed.");
+    }
+}
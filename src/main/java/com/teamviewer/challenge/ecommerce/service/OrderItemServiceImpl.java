@@ -1,82 +1,137 @@
 package com.teamviewer.challenge.ecommerce.service;
 
+import com.teamviewer.challenge.ecommerce.cache.ProductCache;
+import com.teamviewer.challenge.ecommerce.cache.ReferencedProducts;
 import com.teamviewer.challenge.ecommerce.dto.OrderItemDto;
 import com.teamviewer.challenge.ecommerce.entity.OrderItem;
 import com.teamviewer.challenge.ecommerce.entity.Product;
 import com.teamviewer.challenge.ecommerce.exception.InsufficientStockException;
 import com.teamviewer.challenge.ecommerce.exception.ResourceNotFoundException;
+import com.teamviewer.challenge.ecommerce.model.BatchItemResult;
+import com.teamviewer.challenge.ecommerce.model.CursorPage;
+import com.teamviewer.challenge.ecommerce.model.OrderItemResponse;
+import com.teamviewer.challenge.ecommerce.model.ProductResponse;
 import com.teamviewer.challenge.ecommerce.repository.OrderItemRepository;
-import com.teamviewer.challenge.ecommerce.repository.OrderRepository;
 import com.teamviewer.challenge.ecommerce.repository.ProductRepository;
+import com.teamviewer.challenge.ecommerce.service.interfaces.InventoryService;
 import com.teamviewer.challenge.ecommerce.service.interfaces.OrderItemService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class OrderItemServiceImpl implements OrderItemService {
 
     private final OrderItemRepository orderItemRepository;
-    private final OrderRepository orderRepository;
     private final ProductRepository productRepository;
+    private final InventoryService inventoryService;
+    private final ProductCache productCache;
+    private final ReferencedProducts referencedProducts;
+    private final Validator validator;
 
     @Override
-    public List<OrderItem> getAllOrderItems() {
-        return orderItemRepository.findAll();
+    @Transactional(readOnly = true)
+    public CursorPage<OrderItemResponse> getAllOrderItems(String cursor, int limit) {
+        int pageSize = CursorPage.normalizeLimit(limit);
+        List<OrderItemResponse> rows = orderItemRepository.findPageAfter(CursorPage.decode(cursor), PageRequest.of(0, pageSize + 1));
+        return CursorPage.of(rows, pageSize, OrderItemResponse::getId);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public OrderItem getOrderItemById(Long id) {
         return orderItemRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("OrderItem not found with id: " + id));
     }
 
     @Override
+    @Transactional
     public OrderItem createOrderItem(OrderItemDto orderItemDto) {
         if (!isValid(orderItemDto)) throw new IllegalArgumentException("OrderItemDto is not valid");
 
-        Product product = productRepository.findById(orderItemDto.getProductId())
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + orderItemDto.getProductId()));
+        ProductResponse product = findProduct(orderItemDto.getProductId());
+        reserveStock(product, orderItemDto.getQuantity());
+        return orderItemRepository.save(toOrderItem(product.getId(), product.getPrice(), orderItemDto.getQuantity()));
+    }
 
-        if (product.getUnitsInStock() < orderItemDto.getQuantity()) {
-            throw new InsufficientStockException("Not enough units in stock for product: " + product.getName());
+    @Override
+    @Transactional
+    public List<BatchItemResult<OrderItemResponse>> createOrderItems(List<OrderItemDto> orderItemDtos) {
+        if (orderItemDtos.size() > BatchItemResult.MAX_ROWS) {
+            throw new IllegalArgumentException("A batch cannot contain more than " + BatchItemResult.MAX_ROWS + " rows");
         }
 
-        product.setUnitsInStock(product.getUnitsInStock() - orderItemDto.getQuantity());
-        productRepository.save(product);
+        List<BatchItemResult<OrderItemResponse>> results = new ArrayList<>(Collections.nCopies(orderItemDtos.size(), null));
+        Set<Long> productIds = new HashSet<>();
+        for (int i = 0; i < orderItemDtos.size(); i++) {
+            String rejectionReason = rejectionReason(orderItemDtos.get(i));
+            if (rejectionReason != null) results.set(i, BatchItemResult.rejected(i, HttpStatus.BAD_REQUEST, rejectionReason));
+            else productIds.add(orderItemDtos.get(i).getProductId());
+        }
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        List<OrderItem> orderItems = new ArrayList<>();
+        List<Integer> orderItemIndexes = new ArrayList<>();
+        Set<Long> reservedProductIds = new HashSet<>();
+        for (int i = 0; i < orderItemDtos.size(); i++) {
+            if (results.get(i) != null) continue;
+            OrderItemDto orderItemDto = orderItemDtos.get(i);
+            Product product = products.get(orderItemDto.getProductId());
+            if (product == null) {
+                results.set(i, BatchItemResult.rejected(i, HttpStatus.NOT_FOUND, "Product not found with id: " + orderItemDto.getProductId()));
+            } else if (!inventoryService.reserve(product.getId(), orderItemDto.getQuantity())) {
+                results.set(i, BatchItemResult.rejected(i, HttpStatus.BAD_REQUEST, "Not enough units in stock for product: " + product.getName()));
+            } else {
+                reservedProductIds.add(product.getId());
+                orderItems.add(toOrderItem(product.getId(), product.getPrice(), orderItemDto.getQuantity()));
+                orderItemIndexes.add(i);
+            }
+        }
 
-        OrderItem orderItem = new OrderItem();
-        orderItem.setProduct(product);
-        orderItem.setQuantity(orderItemDto.getQuantity());
-        orderItem.setOrderItemPrice(product.getPrice().multiply(new BigDecimal(orderItemDto.getQuantity())));
-        return orderItemRepository.save(orderItem);
+        // A failed insert rolls the reservations back with it
+        List<OrderItem> savedOrderItems = orderItemRepository.saveAll(orderItems);
+        productCache.invalidateAll(reservedProductIds);
+        for (int i = 0; i < savedOrderItems.size(); i++) {
+            int index = orderItemIndexes.get(i);
+            results.set(index, BatchItemResult.created(index, OrderItemResponse.from(savedOrderItems.get(i))));
+        }
+        return results;
     }
 
     @Override
+    @Transactional
     public OrderItem updateOrderItem(Long id, OrderItemDto orderItemDto) {
         if (!isValid(orderItemDto)) throw new IllegalArgumentException("OrderItemDto is not valid");
-        boolean orderExists = orderRepository.existsByOrderItemId(id);
-        if (orderExists) {
+        OrderItem orderItem = getOrderItemById(id);
+        if (isInOrder(orderItem)) {
             throw new IllegalStateException("Cannot update/delete OrderItem because it is associated with an existing Order.");
         }
-        Product product = productRepository.findById(orderItemDto.getProductId())
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + orderItemDto.getProductId()));
+        Long previousProductId = orderItem.getProduct().getId();
 
-        OrderItem orderItem = getOrderItemById(id);
-        int quantityDifference = orderItemDto.getQuantity() - orderItem.getQuantity();
+        ProductResponse product = findProduct(orderItemDto.getProductId());
 
-        if (quantityDifference > 0) {
-            if (product.getUnitsInStock() < quantityDifference) {
-                throw new InsufficientStockException("Not enough units in stock for product: " + product.getName());
-            }
-            product.setUnitsInStock(product.getUnitsInStock() - quantityDifference);
-        } else product.setUnitsInStock(product.getUnitsInStock() + Math.abs(quantityDifference));
+        if (previousProductId.equals(product.getId())) {
+            int quantityDifference = orderItemDto.getQuantity() - orderItem.getQuantity();
+            if (quantityDifference > 0) reserveStock(product, quantityDifference);
+            else if (quantityDifference < 0) releaseStock(previousProductId, -quantityDifference);
+        } else {
+            reserveStock(product, orderItemDto.getQuantity());
+            releaseStock(previousProductId, orderItem.getQuantity());
+        }
 
-        productRepository.save(product);
-        orderItem.setProduct(product);
+        referencedProducts.add(product.getId());
+        orderItem.setProduct(productRepository.getReferenceById(product.getId()));
         orderItem.setQuantity(orderItemDto.getQuantity());
         orderItem.setOrderItemPrice(product.getPrice().multiply(new BigDecimal(orderItemDto.getQuantity())));
 
@@ -84,22 +139,58 @@ public class OrderItemServiceImpl implements OrderItemService {
     }
 
     @Override
+    @Transactional
     public void deleteOrderItem(Long id) {
         OrderItem orderItem = orderItemRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Order item not found with id: " + id));
-        boolean orderExists = orderRepository.existsByOrderItemId(id);
-
-        if (orderExists) {
+        if (isInOrder(orderItem)) {
             throw new IllegalStateException("Cannot update/delete OrderItem because it is associated with an existing Order.");
         }
-        Product product = productRepository.findById(orderItem.getProduct().getId()).orElse(null);
+        releaseStock(orderItem.getProduct().getId(), orderItem.getQuantity());
+        orderItemRepository.deleteById(id);
+    }
 
-        if (product != null) {
-            product.setUnitsInStock(product.getUnitsInStock() + orderItem.getQuantity());
-            productRepository.save(product);
+    private void reserveStock(ProductResponse product, int quantity) {
+        if (!inventoryService.reserve(product.getId(), quantity)) {
+            throw new InsufficientStockException("Not enough units in stock for product: " + product.getName());
         }
+        productCache.invalidate(product.getId());
+    }
 
-        orderItemRepository.deleteById(id);
+    private void releaseStock(Long productId, int quantity) {
+        inventoryService.release(productId, quantity);
+        productCache.invalidate(productId);
+    }
+
+    // The order_id column is loaded with the item, so this needs neither the order nor another query
+    private static boolean isInOrder(OrderItem orderItem) {
+        return orderItem.getOrder() != null;
+    }
+
+    private OrderItem toOrderItem(Long productId, BigDecimal unitPrice, int quantity) {
+        referencedProducts.add(productId);
+        OrderItem orderItem = new OrderItem();
+        orderItem.setProduct(productRepository.getReferenceById(productId));
+        orderItem.setQuantity(quantity);
+        orderItem.setOrderItemPrice(unitPrice.multiply(new BigDecimal(quantity)));
+        return orderItem;
+    }
+
+    private ProductResponse findProduct(Long productId) {
+        return productCache.get(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
+    }
+
+    String rejectionReason(OrderItemDto orderItemDto) {
+        if (orderItemDto == null) return "Order item cannot be null";
+        Set<ConstraintViolation<OrderItemDto>> violations = validator.validate(orderItemDto);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> "Error: " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+        return isValid(orderItemDto) ? null : "OrderItemDto is not valid";
     }
 
     boolean isValid(OrderItemDto orderItemDto) {
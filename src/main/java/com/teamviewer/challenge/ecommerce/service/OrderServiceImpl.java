@@ -1,18 +1,45 @@
 package com.teamviewer.challenge.ecommerce.service;
 
+import com.teamviewer.challenge.ecommerce.cache.CustomerNameFilter;
+import com.teamviewer.challenge.ecommerce.cache.ProductCache;
+import com.teamviewer.challenge.ecommerce.cache.ReferencedProducts;
+import com.teamviewer.challenge.ecommerce.dto.CheckoutDto;
 import com.teamviewer.challenge.ecommerce.dto.OrderDto;
+import com.teamviewer.challenge.ecommerce.dto.OrderItemDto;
 import com.teamviewer.challenge.ecommerce.entity.Order;
 import com.teamviewer.challenge.ecommerce.entity.OrderItem;
+import com.teamviewer.challenge.ecommerce.entity.Product;
 import com.teamviewer.challenge.ecommerce.exception.DuplicateElementException;
+import com.teamviewer.challenge.ecommerce.exception.InsufficientStockException;
 import com.teamviewer.challenge.ecommerce.exception.ResourceNotFoundException;
+import com.teamviewer.challenge.ecommerce.model.CursorPage;
+import com.teamviewer.challenge.ecommerce.model.EntityVersion;
+import com.teamviewer.challenge.ecommerce.model.OrderExportRow;
+import com.teamviewer.challenge.ecommerce.model.OrderItemResponse;
+import com.teamviewer.challenge.ecommerce.model.OrderResponse;
+import com.teamviewer.challenge.ecommerce.model.SalesDelta;
 import com.teamviewer.challenge.ecommerce.repository.OrderItemRepository;
 import com.teamviewer.challenge.ecommerce.repository.OrderRepository;
+import com.teamviewer.challenge.ecommerce.repository.ProductRepository;
+import com.teamviewer.challenge.ecommerce.service.interfaces.InventoryService;
 import com.teamviewer.challenge.ecommerce.service.interfaces.OrderService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -20,64 +47,216 @@ public class OrderServiceImpl implements OrderService {
 
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
+    private final CustomerNameFilter customerNameFilter;
+    private final SalesStatsServiceImpl salesStatsService;
+    private final ProductRepository productRepository;
+    private final InventoryService inventoryService;
+    private final ProductCache productCache;
+    private final ReferencedProducts referencedProducts;
 
     @Override
-    public List<Order> getAllOrders() {
-        return orderRepository.findAll();
+    @Transactional(readOnly = true)
+    public CursorPage<OrderResponse> getAllOrders(String cursor, int limit) {
+        int pageSize = CursorPage.normalizeLimit(limit);
+        List<Order> rows = orderRepository.findByIdGreaterThanOrderByIdAsc(CursorPage.decode(cursor), PageRequest.of(0, pageSize + 1));
+        CursorPage<Order> orders = CursorPage.of(rows, pageSize, Order::getId);
+        if (orders.getItems().isEmpty()) return new CursorPage<>(List.of(), null);
+
+        // The items of the whole page are fetched with one query instead of initializing each order's collection
+        List<Long> orderIds = orders.getItems().stream().map(Order::getId).toList();
+        Map<Long, List<OrderItemResponse>> itemsByOrderId = orderItemRepository.findResponsesByOrderIdIn(orderIds).stream()
+                .collect(Collectors.groupingBy(OrderItemResponse::getOrderId));
+        List<OrderResponse> items = orders.getItems().stream()
+                .map(order -> OrderResponse.of(order, itemsByOrderId.getOrDefault(order.getId(), List.of())))
+                .toList();
+        return new CursorPage<>(items, orders.getNext());
+    }
+
+    // Same page boundaries as getAllOrders, from the orders table alone
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<EntityVersion> getOrderVersions(String cursor, int limit) {
+        int pageSize = CursorPage.normalizeLimit(limit);
+        List<EntityVersion> rows = orderRepository.findVersionPageAfter(CursorPage.decode(cursor), PageRequest.of(0, pageSize + 1));
+        return CursorPage.of(rows, pageSize, EntityVersion::getId);
+    }
+
+    // Rows arrive ordered by order id, so each order is complete once the next one starts and only one order
+    // is held at a time. The transaction keeps the database cursor open until the last row has been read.
+    @Override
+    @Transactional(readOnly = true)
+    public void exportOrders(Consumer<OrderResponse> consumer) {
+        try (Stream<OrderExportRow> rows = orderRepository.streamAllForExport()) {
+            Iterator<OrderExportRow> iterator = rows.iterator();
+            OrderExportRow current = null;
+            List<OrderItemResponse> items = new ArrayList<>();
+            while (iterator.hasNext()) {
+                OrderExportRow row = iterator.next();
+                if (current != null && !current.getOrderId().equals(row.getOrderId())) {
+                    consumer.accept(toOrderResponse(current, items));
+                    items = new ArrayList<>();
+                }
+                current = row;
+                if (row.getOrderItemId() != null) items.add(row.toOrderItemResponse());
+            }
+            if (current != null) consumer.accept(toOrderResponse(current, items));
+        }
+    }
+
+    private static OrderResponse toOrderResponse(OrderExportRow row, List<OrderItemResponse> items) {
+        return new OrderResponse(row.getOrderId(), row.getCustomerName(), row.getAddress(), items, row.getTotalPrice(), row.getVersion());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Order getOrderById(Long id) {
         return orderRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + id));
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Long getOrderVersion(Long id) {
+        return orderRepository.findVersionById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + id));
+    }
+
+    // Order writes and their sales rollup updates commit together
+    @Override
+    @Transactional
     public Order createOrder(OrderDto orderDto) {
         if (!isValid(orderDto)) throw new IllegalArgumentException("OrderDto is not valid");
-        if (orderRepository.existsByCustomerNameIgnoreCase(orderDto.getCustomerName())) {
-            throw new IllegalArgumentException("Order with the same customer name already exists.");
+        checkCustomerHasNoOrder(orderDto.getCustomerName());
+        Order order = new Order();
+        order.setCreatedAt(Instant.now());
+        SalesDelta salesDelta = new SalesDelta();
+        salesDelta.addOrder(order);
+        return processOrder(orderDto, order, salesDelta);
+    }
+
+    // The order and its items in one transaction instead of one request per item: the products are loaded with one
+    // query, every line is reserved with one statement, and the order is inserted with its items in a batch
+    @Override
+    @Transactional
+    public Order checkout(CheckoutDto checkoutDto) {
+        SalesDelta salesDelta = new SalesDelta();
+        Order order = placeOrder(checkoutDto, salesDelta);
+        salesStatsService.apply(salesDelta);
+        return order;
+    }
+
+    // A checkout without its sales rollup update, so callers placing several orders in one transaction apply their
+    // sales once. Must run in a transaction. Rejections are thrown before anything has been written.
+    Order placeOrder(CheckoutDto checkoutDto, SalesDelta salesDelta) {
+        if (!isValid(checkoutDto)) throw new IllegalArgumentException("CheckoutDto is not valid");
+        checkCustomerHasNoOrder(checkoutDto.getCustomerName());
+
+        Map<Long, Integer> quantities = quantitiesByProduct(checkoutDto);
+        Map<Long, Product> products = productRepository.findAllById(quantities.keySet()).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        for (Long productId : quantities.keySet()) {
+            if (!products.containsKey(productId)) throw new ResourceNotFoundException("Product not found with id: " + productId);
+        }
+
+        Set<Long> insufficient = inventoryService.reserveAll(quantities);
+        if (!insufficient.isEmpty()) {
+            throw new InsufficientStockException("Not enough units in stock for product: " + insufficient.stream()
+                    .sorted()
+                    .map(productId -> products.get(productId).getName())
+                    .collect(Collectors.joining(", ")));
         }
+        productCache.invalidateAll(quantities.keySet());
+        quantities.keySet().forEach(referencedProducts::add);
+
         Order order = new Order();
-        return processOrder(orderDto, order);
+        order.setCreatedAt(Instant.now());
+        order.setCustomerName(checkoutDto.getCustomerName());
+        order.setAddress(checkoutDto.getAddress());
+        salesDelta.addOrder(order);
+        BigDecimal totalPrice = BigDecimal.ZERO;
+        for (OrderItemDto item : checkoutDto.getItems()) {
+            Product product = products.get(item.getProductId());
+            OrderItem orderItem = new OrderItem();
+            orderItem.setProduct(product);
+            orderItem.setQuantity(item.getQuantity());
+            orderItem.setOrderItemPrice(product.getPrice().multiply(new BigDecimal(item.getQuantity())));
+            order.addOrderItem(orderItem);
+            salesDelta.addItem(orderItem);
+            totalPrice = totalPrice.add(orderItem.getOrderItemPrice());
+        }
+        order.setTotalPrice(totalPrice);
+
+        Order savedOrder = orderRepository.save(order);
+        customerNameFilter.add(savedOrder.getCustomerName());
+        return savedOrder;
+    }
+
+    // Lines for the same product are reserved together
+    private static Map<Long, Integer> quantitiesByProduct(CheckoutDto checkoutDto) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        checkoutDto.getItems().forEach(item -> quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum));
+        return quantities;
+    }
+
+    private void checkCustomerHasNoOrder(String customerName) {
+        if (customerNameFilter.mightContain(customerName) && orderRepository.existsByCustomerNameIgnoreCase(customerName)) {
+            throw new IllegalArgumentException("Order with the same customer name already exists.");
+        }
     }
 
     @Override
+    @Transactional
     public Order updateOrder(Long id, OrderDto orderDto) {
         if (!isValid(orderDto)) throw new IllegalArgumentException("OrderDto is not valid");
-        Order existingOrderWithSameCustomerName = orderRepository.findByCustomerNameIgnoreCase(orderDto.getCustomerName());
+        Order existingOrderWithSameCustomerName = customerNameFilter.mightContain(orderDto.getCustomerName())
+                ? orderRepository.findByCustomerNameIgnoreCase(orderDto.getCustomerName())
+                : null;
 
         if (existingOrderWithSameCustomerName != null && !existingOrderWithSameCustomerName.getId().equals(id)) {
             throw new DuplicateElementException("This customer already has an order in their name");
         }
         Order order = getOrderById(id);
-        return processOrder(orderDto, order);
+        return processOrder(orderDto, order, new SalesDelta());
     }
 
-    private Order processOrder(OrderDto orderDto, Order order) {
+    private Order processOrder(OrderDto orderDto, Order order, SalesDelta salesDelta) {
         order.setCustomerName(orderDto.getCustomerName());
         order.setAddress(orderDto.getAddress());
 
-        List<OrderItem> orderItems = orderItemRepository.findAllById(orderDto.getOrderItemIds());
+        List<OrderItem> orderItems = orderItemRepository.loadAllById(orderDto.getOrderItemIds());
         if (orderItems.size() != orderDto.getOrderItemIds().size()) {
             throw new ResourceNotFoundException("Some OrderItem IDs provided were not found");
         }
         orderItems.forEach(orderItem -> {
+            // Items already in an order, this one or another, stop counting there first
+            Order previousOrder = orderItem.getOrder();
+            if (previousOrder != null) salesDelta.removeItem(orderItem);
+            // The order an item leaves has changed too, though none of its columns has
+            if (previousOrder != null && !previousOrder.getId().equals(order.getId())) orderRepository.incrementVersion(previousOrder);
             orderItem.setOrder(order);
             order.addOrderItem(orderItem);
+            salesDelta.addItem(orderItem);
         });
 
         BigDecimal totalPrice = orderItems.stream()
                 .map(OrderItem::getOrderItemPrice)
                 .reduce(BigDecimal.ZERO, BigDecimal::add);
         order.setTotalPrice(totalPrice);
-        return orderRepository.save(order);
+        Order savedOrder = orderRepository.save(order);
+        salesStatsService.apply(salesDelta);
+        customerNameFilter.add(savedOrder.getCustomerName());
+        return savedOrder;
     }
 
     @Override
+    @Transactional
     public void deleteOrder(Long id) {
         Order order = getOrderById(id);
+        SalesDelta salesDelta = new SalesDelta();
+        salesDelta.removeOrder(order);
+        order.getOrderItems().forEach(salesDelta::removeItem);
         orderRepository.delete(order);
+        salesStatsService.apply(salesDelta);
     }
 
     boolean isValid(OrderDto orderDto) {
@@ -88,4 +267,15 @@ public class OrderServiceImpl implements OrderService {
         return !orderDto.getAddress().isBlank();
     }
 
+    boolean isValid(CheckoutDto checkoutDto) {
+        if (checkoutDto == null) return false;
+        if (checkoutDto.getItems() == null || checkoutDto.getItems().isEmpty()) return false;
+        for (OrderItemDto item : checkoutDto.getItems()) {
+            if (item == null || item.getProductId() == null) return false;
+            if (item.getQuantity() == null || item.getQuantity() <= 0) return false;
+        }
+        if (checkoutDto.getCustomerName() == null || checkoutDto.getCustomerName().isBlank()) return false;
+        return checkoutDto.getAddress() != null && !checkoutDto.getAddress().isBlank();
+    }
+
 }
@@ -0,0 +1,131 @@
+package com.teamviewer.challenge.ecommerce.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.teamviewer.challenge.ecommerce.cache.ProductCache;
+import com.teamviewer.challenge.ecommerce.cache.ProductNameFilter;
+import com.teamviewer.challenge.ecommerce.cache.ProductSearchIndex;
+import com.teamviewer.challenge.ecommerce.cache.SecondLevelCache;
+import com.teamviewer.challenge.ecommerce.dto.ProductDto;
+import com.teamviewer.challenge.ecommerce.model.BatchItemResult;
+import com.teamviewer.challenge.ecommerce.model.ProductImportResult;
+import com.teamviewer.challenge.ecommerce.repository.ProductImportRepository;
+import com.teamviewer.challenge.ecommerce.service.interfaces.ProductImportService;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+@Service
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private final ProductImportRepository productImportRepository;
+    private final ProductServiceImpl productServiceImpl;
+    private final ProductNameFilter productNameFilter;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductCache productCache;
+    private final SecondLevelCache secondLevelCache;
+    private final ObjectReader jsonReader;
+    private final ObjectReader csvReader;
+
+    public ProductImportServiceImpl(ProductImportRepository productImportRepository,
+                                    ProductServiceImpl productServiceImpl,
+                                    ProductNameFilter productNameFilter,
+                                    ProductSearchIndex productSearchIndex,
+                                    ProductCache productCache,
+                                    SecondLevelCache secondLevelCache,
+                                    ObjectMapper objectMapper) {
+        this.productImportRepository = productImportRepository;
+        this.productServiceImpl = productServiceImpl;
+        this.productNameFilter = productNameFilter;
+        this.productSearchIndex = productSearchIndex;
+        this.productCache = productCache;
+        this.secondLevelCache = secondLevelCache;
+        this.jsonReader = objectMapper.readerFor(ProductDto.class);
+        // The header row names the columns, in any order; columns ProductDto does not have are ignored
+        this.csvReader = CsvMapper.builder()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build()
+                .readerFor(ProductDto.class)
+                .with(CsvSchema.emptySchema().withHeader());
+    }
+
+    @Override
+    @Transactional
+    public ProductImportResult importCsv(InputStream input) throws IOException {
+        return importRows(csvReader.readValues(input));
+    }
+
+    // Accepts a top-level JSON array as well as one object per line
+    @Override
+    @Transactional
+    public ProductImportResult importJson(InputStream input) throws IOException {
+        return importRows(jsonReader.readValues(input));
+    }
+
+    // Rows are validated as they are parsed and valid ones go straight into the COPY, so only the rejections are
+    // held in memory. Duplicate names, within the input or against existing products, are found by the merge.
+    private ProductImportResult importRows(MappingIterator<ProductDto> rows) throws IOException {
+        List<BatchItemResult<Void>> rejected = new ArrayList<>();
+        int rowCount = 0;
+        try (ProductImportRepository.StagingWriter staging = productImportRepository.openStaging()) {
+            for (; hasNextRow(rows, rowCount); rowCount++) {
+                ProductDto productDto;
+                try {
+                    productDto = rows.nextValue();
+                } catch (JsonMappingException ex) {
+                    rejected.add(BatchItemResult.rejected(rowCount, HttpStatus.BAD_REQUEST, "Row could not be read: " + ex.getOriginalMessage()));
+                    continue;
+                } catch (JsonParseException ex) {
+                    throw malformedRow(rowCount, ex);
+                }
+                String rejectionReason = productServiceImpl.rejectionReason(productDto);
+                if (rejectionReason != null) {
+                    rejected.add(BatchItemResult.rejected(rowCount, HttpStatus.BAD_REQUEST, rejectionReason));
+                } else {
+                    staging.write(rowCount, productDto);
+                }
+            }
+        }
+
+        int imported = productImportRepository.merge();
+        productImportRepository.findRowsRepeatingAnEarlierName().forEach(index ->
+                rejected.add(BatchItemResult.rejected(index, HttpStatus.CONFLICT, "Product with the same name appears earlier in the import.")));
+        productImportRepository.findRowsWithExistingName().forEach(index ->
+                rejected.add(BatchItemResult.rejected(index, HttpStatus.CONFLICT, "Product with the same name already exists.")));
+        productImportRepository.forEachImportedProduct((id, name) -> {
+            productNameFilter.add(name);
+            productSearchIndex.add(id, name);
+        });
+        if (imported > 0) {
+            productCache.catalogChanged();
+            secondLevelCache.evictProductLookups();
+        }
+        rejected.sort(Comparator.comparingInt(BatchItemResult::getIndex));
+        return new ProductImportResult(rowCount, imported, rejected);
+    }
+
+    private static boolean hasNextRow(MappingIterator<ProductDto> rows, int rowIndex) throws IOException {
+        try {
+            return rows.hasNextValue();
+        } catch (JsonParseException ex) {
+            throw malformedRow(rowIndex, ex);
+        }
+    }
+
+    // Malformed syntax leaves no way to find where the next row starts, so it fails the whole import
+    private static IllegalArgumentException malformedRow(int rowIndex, JsonParseException ex) {
+        return new IllegalArgumentException("Row " + rowIndex + " is malformed: " + ex.getOriginalMessage(), ex);
+    }
+}
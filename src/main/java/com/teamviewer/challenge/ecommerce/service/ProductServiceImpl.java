@@ -1,66 +1,186 @@
 package com.teamviewer.challenge.ecommerce.service;
 
+import com.teamviewer.challenge.ecommerce.cache.ProductCache;
+import com.teamviewer.challenge.ecommerce.cache.ProductNameFilter;
+import com.teamviewer.challenge.ecommerce.cache.ProductSearchIndex;
+import com.teamviewer.challenge.ecommerce.cache.ReferencedProducts;
 import com.teamviewer.challenge.ecommerce.dto.ProductDto;
 import com.teamviewer.challenge.ecommerce.entity.Product;
 import com.teamviewer.challenge.ecommerce.exception.DuplicateElementException;
 import com.teamviewer.challenge.ecommerce.exception.ResourceNotFoundException;
+import com.teamviewer.challenge.ecommerce.model.BatchItemResult;
+import com.teamviewer.challenge.ecommerce.model.CursorPage;
+import com.teamviewer.challenge.ecommerce.model.ProductResponse;
 import com.teamviewer.challenge.ecommerce.repository.OrderItemRepository;
 import com.teamviewer.challenge.ecommerce.repository.ProductRepository;
+import com.teamviewer.challenge.ecommerce.repository.ProductSearchRepository;
+import com.teamviewer.challenge.ecommerce.service.interfaces.InventoryService;
 import com.teamviewer.challenge.ecommerce.service.interfaces.ProductService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ProductServiceImpl implements ProductService {
 
+    private static final int NAME_LOOKUP_CHUNK = 1000;
+
     private final OrderItemRepository orderItemRepository;
     private final ProductRepository productRepository;
+    private final InventoryService inventoryService;
+    private final ProductCache productCache;
+    private final ProductNameFilter productNameFilter;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductSearchRepository productSearchRepository;
+    private final ReferencedProducts referencedProducts;
+    private final Validator validator;
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<ProductResponse> getAllProducts(String cursor, int limit) {
+        int pageSize = CursorPage.normalizeLimit(limit);
+        List<ProductResponse> rows = productRepository.findPageAfter(CursorPage.decode(cursor), PageRequest.of(0, pageSize + 1));
+        return CursorPage.of(rows, pageSize, ProductResponse::getId);
+    }
 
+    // Answered from the in-memory index when it is built, otherwise by the trigram search in the database.
+    // The cursor is an offset into the ranking, so products written between two pages can shift it.
     @Override
-    public List<Product> getAllProducts() {
-        return productRepository.findAll();
+    @Transactional(readOnly = true)
+    public CursorPage<ProductResponse> searchProducts(String query, String cursor, int limit) {
+        List<String> tokens = ProductSearchIndex.tokenize(query);
+        if (tokens.isEmpty()) throw new IllegalArgumentException("Search query must contain a letter or digit");
+        if (tokens.size() > ProductSearchIndex.MAX_QUERY_TOKENS) {
+            throw new IllegalArgumentException("Search query cannot contain more than " + ProductSearchIndex.MAX_QUERY_TOKENS + " words");
+        }
+        int pageSize = CursorPage.normalizeLimit(limit);
+        long offset = CursorPage.decode(cursor);
+        List<ProductResponse> rows = productSearchIndex.search(tokens, offset, pageSize + 1)
+                .map(this::findResponsesInOrder)
+                .orElseGet(() -> productSearchRepository.search(tokens, offset, pageSize + 1));
+        return CursorPage.ofOffset(rows, pageSize, offset);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Product getProductById(Long id) {
         return productRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
     }
 
     @Override
+    public ProductResponse getProductResponseById(Long id) {
+        return productCache.get(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
+    }
+
+    @Override
+    @Transactional
     public Product createProduct(ProductDto productDto) {
         if (!isValid(productDto)) throw new IllegalArgumentException("ProductDto is not valid");
-        if (productRepository.existsByNameIgnoreCase(productDto.getName())) {
+        if (productNameFilter.mightContain(productDto.getName()) && productRepository.existsByNameIgnoreCase(productDto.getName())) {
             throw new DuplicateElementException("Product with the same name already exists.");
         }
 
-        Product product = new Product();
-        product.setName(productDto.getName());
-        product.setPrice(productDto.getPrice());
-        product.setUnitsInStock(productDto.getUnitsInStock());
-        return productRepository.save(product);
+        Product createdProduct = productRepository.save(toProduct(productDto));
+        productNameFilter.add(createdProduct.getName());
+        productSearchIndex.add(createdProduct.getId(), createdProduct.getName());
+        productCache.put(createdProduct);
+        return createdProduct;
     }
 
     @Override
+    @Transactional
+    public List<BatchItemResult<ProductResponse>> createProducts(List<ProductDto> productDtos) {
+        if (productDtos.size() > BatchItemResult.MAX_ROWS) {
+            throw new IllegalArgumentException("A batch cannot contain more than " + BatchItemResult.MAX_ROWS + " rows");
+        }
+
+        List<BatchItemResult<ProductResponse>> results = new ArrayList<>(Collections.nCopies(productDtos.size(), null));
+        Set<String> namesInBatch = new HashSet<>();
+        for (int i = 0; i < productDtos.size(); i++) {
+            String rejectionReason = rejectionReason(productDtos.get(i));
+            if (rejectionReason != null) {
+                results.set(i, BatchItemResult.rejected(i, HttpStatus.BAD_REQUEST, rejectionReason));
+            } else if (!namesInBatch.add(normalizedName(productDtos.get(i)))) {
+                results.set(i, BatchItemResult.rejected(i, HttpStatus.CONFLICT, "Product with the same name appears earlier in the batch."));
+            }
+        }
+
+        Set<String> existingNames = findExistingNames(namesInBatch);
+        List<Product> products = new ArrayList<>();
+        List<Integer> productIndexes = new ArrayList<>();
+        for (int i = 0; i < productDtos.size(); i++) {
+            if (results.get(i) != null) continue;
+            if (existingNames.contains(normalizedName(productDtos.get(i)))) {
+                results.set(i, BatchItemResult.rejected(i, HttpStatus.CONFLICT, "Product with the same name already exists."));
+            } else {
+                products.add(toProduct(productDtos.get(i)));
+                productIndexes.add(i);
+            }
+        }
+
+        List<Product> savedProducts = productRepository.saveAll(products);
+        savedProducts.forEach(product -> {
+            productNameFilter.add(product.getName());
+            productSearchIndex.add(product.getId(), product.getName());
+        });
+        productCache.catalogChanged();
+        for (int i = 0; i < savedProducts.size(); i++) {
+            int index = productIndexes.get(i);
+            results.set(index, BatchItemResult.created(index, ProductResponse.from(savedProducts.get(i))));
+        }
+        return results;
+    }
+
+    @Override
+    @Transactional
     public Product updateProduct(Long id, ProductDto productDto) {
         if (!isValid(productDto)) throw new IllegalArgumentException("ProductDto is not valid");
-        Product existingProductWithSameName = productRepository.findByNameIgnoreCase(productDto.getName());
+        Product existingProductWithSameName = productNameFilter.mightContain(productDto.getName())
+                ? productRepository.findByNameIgnoreCase(productDto.getName())
+                : null;
 
         if (existingProductWithSameName != null && !existingProductWithSameName.getId().equals(id)) {
             throw new DuplicateElementException("Product with the same name already exists.");
         }
-        if (!orderItemRepository.findByProductId(id).isEmpty()) {
+        if (isReferenced(id)) {
             throw new IllegalStateException("Cannot update/delete product because it is associated with an existing order.");
         }
 
         Product productToUpdate = getProductById(id);
+        String previousName = productToUpdate.getName();
+        int previousUnits = productToUpdate.getUnitsInStock();
         productToUpdate.setName(productDto.getName());
         productToUpdate.setPrice(productDto.getPrice());
         productToUpdate.setUnitsInStock(productDto.getUnitsInStock());
-        return productRepository.save(productToUpdate);
+        Product updatedProduct = productRepository.save(productToUpdate);
+        inventoryService.stockSet(id, previousUnits, updatedProduct.getUnitsInStock());
+        productNameFilter.add(updatedProduct.getName());
+        productSearchIndex.update(id, previousName, updatedProduct.getName());
+        productCache.put(updatedProduct);
+        return updatedProduct;
+    }
+
+    String rejectionReason(ProductDto productDto) {
+        if (productDto == null) return "Product cannot be null";
+        Set<ConstraintViolation<ProductDto>> violations = validator.validate(productDto);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(violation -> "Error: " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+        return isValid(productDto) ? null : "ProductDto is not valid";
     }
 
     boolean isValid(ProductDto productDto) {
@@ -71,11 +191,49 @@ public class ProductServiceImpl implements ProductService {
     }
 
     @Override
+    @Transactional
     public void deleteProduct(Long id) {
-        if (!orderItemRepository.findByProductId(id).isEmpty()) {
+        if (isReferenced(id)) {
             throw new IllegalStateException("Cannot update/delete product because it is associated with an existing order.");
         }
         Product product = getProductById(id);
         productRepository.delete(product);
+        inventoryService.evict(id);
+        productSearchIndex.remove(id, product.getName());
+        productCache.invalidate(id);
+    }
+
+    private boolean isReferenced(Long productId) {
+        return referencedProducts.mightBeReferenced(productId) && orderItemRepository.existsByProductId(productId);
+    }
+
+    // Products deleted since the index was read are left out
+    private List<ProductResponse> findResponsesInOrder(List<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        Map<Long, ProductResponse> responses = productRepository.findResponsesByIdIn(ids).stream()
+                .collect(Collectors.toMap(ProductResponse::getId, Function.identity()));
+        return ids.stream().map(responses::get).filter(Objects::nonNull).toList();
+    }
+
+    private Set<String> findExistingNames(Collection<String> normalizedNames) {
+        List<String> names = normalizedNames.stream().filter(productNameFilter::mightContain).toList();
+        Set<String> existingNames = new HashSet<>();
+        for (int from = 0; from < names.size(); from += NAME_LOOKUP_CHUNK) {
+            List<String> chunk = names.subList(from, Math.min(from + NAME_LOOKUP_CHUNK, names.size()));
+            existingNames.addAll(productRepository.findExistingLowerNames(chunk));
+        }
+        return existingNames;
+    }
+
+    private static String normalizedName(ProductDto productDto) {
+        return productDto.getName().toLowerCase(Locale.ROOT);
+    }
+
+    private static Product toProduct(ProductDto productDto) {
+        Product product = new Product();
+        product.setName(productDto.getName());
+        product.setPrice(productDto.getPrice());
+        product.setUnitsInStock(productDto.getUnitsInStock());
+        return product;
     }
 }
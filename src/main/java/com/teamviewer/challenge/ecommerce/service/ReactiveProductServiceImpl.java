@@ -0,0 +1,43 @@
+package com.teamviewer.challenge.ecommerce.service;
+
+import com.teamviewer.challenge.ecommerce.cache.ProductCache;
+import com.teamviewer.challenge.ecommerce.exception.ResourceNotFoundException;
+import com.teamviewer.challenge.ecommerce.model.CursorPage;
+import com.teamviewer.challenge.ecommerce.model.ProductResponse;
+import com.teamviewer.challenge.ecommerce.repository.ProductReactiveRepository;
+import com.teamviewer.challenge.ecommerce.service.interfaces.ReactiveProductService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+@RequiredArgsConstructor
+public class ReactiveProductServiceImpl implements ReactiveProductService {
+
+    private final ProductReactiveRepository productReactiveRepository;
+    private final ProductCache productCache;
+
+    @Override
+    public Mono<CursorPage<ProductResponse>> getAllProducts(String cursor, int limit) {
+        int pageSize = CursorPage.normalizeLimit(limit);
+        return Mono.fromSupplier(() -> CursorPage.decode(cursor))
+                .flatMapMany(afterId -> productReactiveRepository.findPageAfter(afterId, pageSize + 1))
+                .collectList()
+                .map(rows -> CursorPage.of(rows, pageSize, ProductResponse::getId));
+    }
+
+    // Served from the product cache when already loaded; misses read through R2DBC without filling the cache,
+    // so this path never blocks and never races the invalidations made by the JPA writes
+    @Override
+    public Mono<ProductResponse> getProductById(Long id) {
+        return Mono.justOrEmpty(productCache.getIfPresent(id))
+                .switchIfEmpty(Mono.defer(() -> productReactiveRepository.findById(id)))
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Product not found with id: " + id)));
+    }
+
+    @Override
+    public Flux<ProductResponse> streamAllProducts() {
+        return productReactiveRepository.streamAll();
+    }
+}
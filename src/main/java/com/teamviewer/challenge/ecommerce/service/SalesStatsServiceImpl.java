@@ -0,0 +1,90 @@
+package com.teamviewer.challenge.ecommerce.service;
+
+import com.teamviewer.challenge.ecommerce.exception.ResourceNotFoundException;
+import com.teamviewer.challenge.ecommerce.model.CursorPage;
+import com.teamviewer.challenge.ecommerce.model.DailySalesResponse;
+import com.teamviewer.challenge.ecommerce.model.ProductSalesResponse;
+import com.teamviewer.challenge.ecommerce.model.SalesDelta;
+import com.teamviewer.challenge.ecommerce.repository.DailySalesRepository;
+import com.teamviewer.challenge.ecommerce.repository.ProductRepository;
+import com.teamviewer.challenge.ecommerce.repository.ProductSalesRepository;
+import com.teamviewer.challenge.ecommerce.service.interfaces.SalesStatsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class SalesStatsServiceImpl implements SalesStatsService {
+
+    private final ProductSalesRepository productSalesRepository;
+    private final DailySalesRepository dailySalesRepository;
+    private final ProductRepository productRepository;
+
+    // Joins the order write's transaction, so the rollups never disagree with the orders
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void apply(SalesDelta delta) {
+        delta.productTotals().forEach((productId, totals) -> {
+            if (totals.isZero()) return;
+            productSalesRepository.insertIfMissing(productId);
+            productSalesRepository.add(productId, totals.getUnits(), totals.getRevenue());
+        });
+        delta.dayTotals().forEach((day, totals) -> {
+            if (totals.isZero()) return;
+            dailySalesRepository.insertIfMissing(day);
+            dailySalesRepository.add(day, totals.getOrders(), totals.getUnits(), totals.getRevenue());
+        });
+    }
+
+    @Override
+    public ProductSalesResponse getProductSales(Long productId) {
+        return productSalesRepository.findById(productId)
+                .map(ProductSalesResponse::from)
+                .orElseGet(() -> {
+                    if (!productRepository.existsById(productId)) {
+                        throw new ResourceNotFoundException("Product not found with id: " + productId);
+                    }
+                    return new ProductSalesResponse(productId, 0L, BigDecimal.ZERO);
+                });
+    }
+
+    @Override
+    public List<ProductSalesResponse> getTopProducts(String sortBy, int limit) {
+        String property = switch (sortBy) {
+            case "revenue" -> "revenue";
+            case "units" -> "unitsSold";
+            default -> throw new IllegalArgumentException("Unknown sort: " + sortBy);
+        };
+        Sort sort = Sort.by(Sort.Direction.DESC, property, "productId");
+        return productSalesRepository.findAllBy(PageRequest.of(0, CursorPage.normalizeLimit(limit), sort)).stream()
+                .map(ProductSalesResponse::from)
+                .toList();
+    }
+
+    @Override
+    public List<DailySalesResponse> getDailySales(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) throw new IllegalArgumentException("from must not be after to");
+        return dailySalesRepository.findByDayBetweenOrderByDayAsc(from, to).stream()
+                .map(DailySalesResponse::from)
+                .toList();
+    }
+
+    // Recomputes both rollups from orders and order items, for backfilling existing data or repairing drift
+    @Override
+    @Transactional
+    public void rebuild() {
+        productSalesRepository.lockForRebuild();
+        productSalesRepository.deleteAllRows();
+        productSalesRepository.insertFromOrderItems();
+        dailySalesRepository.deleteAllRows();
+        dailySalesRepository.insertFromOrders();
+    }
+}
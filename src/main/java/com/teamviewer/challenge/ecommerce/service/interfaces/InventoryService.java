@@ -0,0 +1,20 @@
+package com.teamviewer.challenge.ecommerce.service.interfaces;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+public interface InventoryService {
+    boolean reserve(Long productId, int quantity);
+    // All quantities or none. Runs in the caller's transaction and is undone if it rolls back.
+    // Returns the products without enough stock, empty when everything was reserved.
+    Set<Long> reserveAll(Map<Long, Integer> quantities);
+    // Takes the locks reserveAll would take, ahead of several reserveAll calls in one transaction
+    void lockAll(Collection<Long> productIds);
+    void release(Long productId, int quantity);
+    // The units in stock were set to an absolute value, replacing previousUnits. Takes effect when the caller's
+    // transaction commits, like the write itself, and must be called before it flushes the product row.
+    void stockSet(Long productId, int previousUnits, int unitsInStock);
+    // The product was deleted; takes effect when the caller's transaction commits
+    void evict(Long productId);
+}
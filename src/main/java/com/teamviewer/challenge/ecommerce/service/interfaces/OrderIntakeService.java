@@ -0,0 +1,9 @@
+package com.teamviewer.challenge.ecommerce.service.interfaces;
+
+import com.teamviewer.challenge.ecommerce.dto.CheckoutDto;
+import com.teamviewer.challenge.ecommerce.model.OrderIntakeStatus;
+
+public interface OrderIntakeService {
+    OrderIntakeStatus submit(CheckoutDto checkoutDto);
+    OrderIntakeStatus getStatus(String trackingId);
+}
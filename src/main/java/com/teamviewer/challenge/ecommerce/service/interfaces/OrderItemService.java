@@ -2,13 +2,17 @@ package com.teamviewer.challenge.ecommerce.service.interfaces;
 
 import com.teamviewer.challenge.ecommerce.dto.OrderItemDto;
 import com.teamviewer.challenge.ecommerce.entity.OrderItem;
+import com.teamviewer.challenge.ecommerce.model.BatchItemResult;
+import com.teamviewer.challenge.ecommerce.model.CursorPage;
+import com.teamviewer.challenge.ecommerce.model.OrderItemResponse;
 
 import java.util.List;
 
 public interface OrderItemService {
-    List<OrderItem> getAllOrderItems();
+    CursorPage<OrderItemResponse> getAllOrderItems(String cursor, int limit);
     OrderItem getOrderItemById(Long id);
     OrderItem createOrderItem(OrderItemDto orderItemDto);
+    List<BatchItemResult<OrderItemResponse>> createOrderItems(List<OrderItemDto> orderItemDtos);
     OrderItem updateOrderItem(Long id, OrderItemDto orderItemDto);
     void deleteOrderItem(Long id);
 }
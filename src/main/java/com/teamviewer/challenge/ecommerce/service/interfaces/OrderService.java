@@ -1,14 +1,22 @@
 package com.teamviewer.challenge.ecommerce.service.interfaces;
 
+import com.teamviewer.challenge.ecommerce.dto.CheckoutDto;
 import com.teamviewer.challenge.ecommerce.dto.OrderDto;
 import com.teamviewer.challenge.ecommerce.entity.Order;
+import com.teamviewer.challenge.ecommerce.model.CursorPage;
+import com.teamviewer.challenge.ecommerce.model.EntityVersion;
+import com.teamviewer.challenge.ecommerce.model.OrderResponse;
 
-import java.util.List;
+import java.util.function.Consumer;
 
 public interface OrderService {
-    List<Order> getAllOrders();
+    CursorPage<OrderResponse> getAllOrders(String cursor, int limit);
+    CursorPage<EntityVersion> getOrderVersions(String cursor, int limit);
+    void exportOrders(Consumer<OrderResponse> consumer);
     Order getOrderById(Long id);
+    Long getOrderVersion(Long id);
     Order createOrder(OrderDto order);
+    Order checkout(CheckoutDto checkoutDto);
     Order updateOrder(Long id, OrderDto orderDto);
     void deleteOrder(Long id);
 }
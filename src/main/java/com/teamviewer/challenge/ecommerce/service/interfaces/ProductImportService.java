@@ -0,0 +1,11 @@
+package com.teamviewer.challenge.ecommerce.service.interfaces;
+
+import com.teamviewer.challenge.ecommerce.model.ProductImportResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface ProductImportService {
+    ProductImportResult importCsv(InputStream input) throws IOException;
+    ProductImportResult importJson(InputStream input) throws IOException;
+}
@@ -2,13 +2,19 @@ package com.teamviewer.challenge.ecommerce.service.interfaces;
 
 import com.teamviewer.challenge.ecommerce.dto.ProductDto;
 import com.teamviewer.challenge.ecommerce.entity.Product;
+import com.teamviewer.challenge.ecommerce.model.BatchItemResult;
+import com.teamviewer.challenge.ecommerce.model.CursorPage;
+import com.teamviewer.challenge.ecommerce.model.ProductResponse;
 
 import java.util.List;
 
 public interface ProductService {
-    List<Product> getAllProducts();
+    CursorPage<ProductResponse> getAllProducts(String cursor, int limit);
+    CursorPage<ProductResponse> searchProducts(String query, String cursor, int limit);
     Product getProductById(Long id);
+    ProductResponse getProductResponseById(Long id);
     Product createProduct(ProductDto productDto);
+    List<BatchItemResult<ProductResponse>> createProducts(List<ProductDto> productDtos);
     Product updateProduct(Long id, ProductDto productDto);
     void deleteProduct(Long id);
 }
@@ -0,0 +1,12 @@
+package com.teamviewer.challenge.ecommerce.service.interfaces;
+
+import com.teamviewer.challenge.ecommerce.model.CursorPage;
+import com.teamviewer.challenge.ecommerce.model.ProductResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveProductService {
+    Mono<CursorPage<ProductResponse>> getAllProducts(String cursor, int limit);
+    Mono<ProductResponse> getProductById(Long id);
+    Flux<ProductResponse> streamAllProducts();
+}
@@ -0,0 +1,16 @@
+package com.teamviewer.challenge.ecommerce.service.interfaces;
+
+import com.teamviewer.challenge.ecommerce.model.DailySalesResponse;
+import com.teamviewer.challenge.ecommerce.model.ProductSalesResponse;
+import com.teamviewer.challenge.ecommerce.model.SalesDelta;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface SalesStatsService {
+    void apply(SalesDelta delta);
+    ProductSalesResponse getProductSales(Long productId);
+    List<ProductSalesResponse> getTopProducts(String sortBy, int limit);
+    List<DailySalesResponse> getDailySales(LocalDate from, LocalDate to);
+    void rebuild();
+}
@@ -0,0 +1,34 @@
+-- The schema as ddl-auto: update left it before the migrations, so the names are the ones Hibernate generated.
+-- Databases created that way are baselined at this version and start from V2.
+CREATE TABLE products
+(
+    id             bigserial      NOT NULL,
+    name           varchar(255)   NOT NULL,
+    price          numeric(10, 2) NOT NULL,
+    units_in_stock integer        NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE orders
+(
+    id            bigserial       NOT NULL,
+    address       varchar(255)    NOT NULL,
+    customer_name varchar(255)    NOT NULL,
+    total_price   numeric(300, 2) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE order_items
+(
+    id               bigserial      NOT NULL,
+    order_item_price numeric(20, 2) NOT NULL,
+    quantity         integer        NOT NULL,
+    order_id         bigint,
+    product_id       bigint,
+    PRIMARY KEY (id)
+);
+
+ALTER TABLE order_items
+    ADD CONSTRAINT fkbioxgbv59vetrxe0ejfubep1w FOREIGN KEY (order_id) REFERENCES orders;
+ALTER TABLE order_items
+    ADD CONSTRAINT fkocimc7dtr037rh4ls4l95nlfi FOREIGN KEY (product_id) REFERENCES products;
@@ -0,0 +1,81 @@
+-- Everything the entities gained on top of the baseline schema, applied to a baselined database as much as to an
+-- empty one.
+
+-- Ids come from pooled sequences instead of identity columns, so inserts can be batched. Each sequence starts past the
+-- largest id in use: Hibernate hands out the 50 ids up to every value it draws, so the next draw has to reach beyond it.
+CREATE SEQUENCE products_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE orders_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE order_items_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('products_seq', max(id)) FROM products HAVING max(id) IS NOT NULL;
+SELECT setval('orders_seq', max(id)) FROM orders HAVING max(id) IS NOT NULL;
+SELECT setval('order_items_seq', max(id)) FROM order_items HAVING max(id) IS NOT NULL;
+
+ALTER TABLE products ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE orders ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE order_items ALTER COLUMN id DROP DEFAULT;
+DROP SEQUENCE products_id_seq;
+DROP SEQUENCE orders_id_seq;
+DROP SEQUENCE order_items_id_seq;
+
+-- Existing rows start at version 0, and existing orders count towards the day they were migrated on
+ALTER TABLE products ADD COLUMN version bigint NOT NULL DEFAULT 0;
+ALTER TABLE orders ADD COLUMN created_at timestamp(6) WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP;
+ALTER TABLE orders ADD COLUMN version bigint NOT NULL DEFAULT 0;
+
+-- Case-insensitive uniqueness, also used by every lower(name) and lower(customer_name) lookup
+CREATE UNIQUE INDEX ux_products_lower_name ON products (lower(name));
+CREATE UNIQUE INDEX ux_orders_lower_customer_name ON orders (lower(customer_name));
+
+CREATE TABLE product_sales
+(
+    product_id bigint          NOT NULL,
+    units_sold bigint          NOT NULL,
+    revenue    numeric(300, 2) NOT NULL,
+    PRIMARY KEY (product_id)
+);
+
+CREATE INDEX ix_product_sales_revenue ON product_sales (revenue, product_id);
+CREATE INDEX ix_product_sales_units_sold ON product_sales (units_sold, product_id);
+
+CREATE TABLE daily_sales
+(
+    sales_day  date            NOT NULL,
+    orders     bigint          NOT NULL,
+    units_sold bigint          NOT NULL,
+    revenue    numeric(300, 2) NOT NULL,
+    PRIMARY KEY (sales_day)
+);
+
+-- The rollups of the orders already placed; from here on every order write keeps them current
+INSERT INTO product_sales (product_id, units_sold, revenue)
+SELECT oi.product_id, sum(oi.quantity), sum(oi.order_item_price)
+FROM order_items oi
+WHERE oi.order_id IS NOT NULL
+  AND oi.product_id IS NOT NULL
+GROUP BY oi.product_id;
+
+INSERT INTO daily_sales (sales_day, orders, units_sold, revenue)
+SELECT (o.created_at AT TIME ZONE 'UTC')::date,
+       count(DISTINCT o.id),
+       coalesce(sum(oi.quantity), 0),
+       coalesce(sum(oi.order_item_price), 0)
+FROM orders o
+         LEFT JOIN order_items oi ON oi.order_id = o.id
+GROUP BY (o.created_at AT TIME ZONE 'UTC')::date;
+
+CREATE TABLE idempotency_keys
+(
+    idempotency_key varchar(512)                NOT NULL,
+    created_at      timestamp(6) WITH TIME ZONE NOT NULL,
+    response_status integer,
+    content_type    varchar(255),
+    body            bytea,
+    PRIMARY KEY (idempotency_key)
+);
+
+CREATE TABLE inventory_checkpoint
+(
+    id            integer NOT NULL,
+    last_sequence bigint  NOT NULL,
+    PRIMARY KEY (id)
+);
@@ -0,0 +1,9 @@
+-- Foreign keys are not indexed by PostgreSQL. Without these, the product-in-use probe, the items of an order and the
+-- items of an orders page all scan order_items, and so does every product delete checking the foreign key.
+-- Built concurrently, so an existing database keeps taking writes meanwhile; Flyway runs this file outside a
+-- transaction.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_order_items_product_id ON order_items (product_id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_order_items_order_id ON order_items (order_id);
+
+-- The periodic purge of expired idempotency keys
+CREATE INDEX CONCURRENTLY IF NOT EXISTS ix_idempotency_keys_created_at ON idempotency_keys (created_at);
@@ -0,0 +1,3 @@
+-- Trigram operator classes for the product name search fallback. Trusted since PostgreSQL 13, so the database owner
+-- can create it.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
@@ -0,0 +1,5 @@
+-- The token of the request that owns a claim, so only it can complete or release the key, and the hash of the
+-- request body a retry must match to be answered with the stored response. Existing rows keep nulls: their hash is
+-- not checked and their claims expire as before.
+ALTER TABLE idempotency_keys ADD COLUMN token varchar(36);
+ALTER TABLE idempotency_keys ADD COLUMN request_hash varchar(64);
@@ -0,0 +1,28 @@
+package com.teamviewer.challenge.ecommerce.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomFilterTest {
+
+    @Test
+    void testMightContain_NoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) filter.put("product-" + i);
+
+        for (int i = 0; i < 10_000; i++) assertTrue(filter.mightContain("product-" + i));
+    }
+
+    @Test
+    void testMightContain_FalsePositiveRateNearConfigured() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) filter.put("product-" + i);
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("missing-" + i)) falsePositives++;
+        }
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+}
@@ -0,0 +1,103 @@
+package com.teamviewer.challenge.ecommerce.cache;
+
+import com.teamviewer.challenge.ecommerce.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class NameFilterTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductNameFilter productNameFilter;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        productNameFilter = new ProductNameFilter(productRepository, transactionTemplate, Runnable::run, 1000, 0.01);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void testMightContain_TrueUntilBuilt() {
+        assertTrue(productNameFilter.mightContain("Apple"));
+    }
+
+    @Test
+    void testRebuild_LoadsNamesCaseInsensitively() {
+        when(productRepository.count()).thenReturn(1L);
+        when(productRepository.streamAllNames()).thenReturn(Stream.of("Apple"));
+
+        productNameFilter.rebuild();
+
+        assertTrue(productNameFilter.mightContain("APPLE"));
+        assertFalse(productNameFilter.mightContain("Pear"));
+    }
+
+    @Test
+    void testAdd_VisibleAfterRebuild() {
+        when(productRepository.streamAllNames()).thenReturn(Stream.empty());
+        productNameFilter.rebuild();
+
+        productNameFilter.add("Pear");
+
+        assertTrue(productNameFilter.mightContain("pear"));
+    }
+
+    @Test
+    void testAdd_InsideATransactionWaitsForTheCommit() {
+        when(productRepository.streamAllNames()).thenReturn(Stream.empty());
+        productNameFilter.rebuild();
+        TransactionSynchronizationManager.initSynchronization();
+
+        productNameFilter.add("Pear");
+        assertFalse(productNameFilter.mightContain("pear"));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertTrue(productNameFilter.mightContain("pear"));
+    }
+
+    @Test
+    void testAdd_OverCapacityRebuildsOnExecutor() {
+        List<Runnable> tasks = new ArrayList<>();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        productNameFilter = new ProductNameFilter(productRepository, transactionTemplate, tasks::add, 2, 0.01);
+        when(productRepository.streamAllNames()).thenReturn(Stream.empty());
+        productNameFilter.rebuild();
+
+        productNameFilter.add("Apple");
+        productNameFilter.add("Pear");
+        productNameFilter.add("Plum");
+        productNameFilter.add("Kiwi");
+
+        assertEquals(1, tasks.size());
+    }
+
+    @Test
+    void testRebuild_FailureKeepsFallingBackToDatabase() {
+        when(productRepository.streamAllNames()).thenThrow(new IllegalStateException("database down"));
+
+        productNameFilter.onApplicationReady();
+
+        assertTrue(productNameFilter.mightContain("Anything"));
+    }
+}
@@ -0,0 +1,157 @@
+package com.teamviewer.challenge.ecommerce.cache;
+
+import com.teamviewer.challenge.ecommerce.entity.Product;
+import com.teamviewer.challenge.ecommerce.model.ProductResponse;
+import com.teamviewer.challenge.ecommerce.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProductCacheTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ProductCache productCache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        productCache = new ProductCache(productRepository, meterRegistry, 100, Duration.ofMinutes(10));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void testGet_LoadsOnceAndRecordsHits() {
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product(1L, 10)));
+
+        assertEquals(10, productCache.get(1L).orElseThrow().getUnitsInStock());
+        assertEquals(10, productCache.get(1L).orElseThrow().getUnitsInStock());
+
+        verify(productRepository, times(1)).findById(1L);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", ProductCache.NAME).tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", ProductCache.NAME).tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    void testGet_MissingProductIsNotCached() {
+        when(productRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertTrue(productCache.get(1L).isEmpty());
+        assertTrue(productCache.get(1L).isEmpty());
+
+        verify(productRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void testGet_LoadFailureIsRethrownAndNotCached() {
+        when(productRepository.findById(1L))
+                .thenThrow(new DataAccessResourceFailureException("database down"))
+                .thenReturn(Optional.of(product(1L, 10)));
+
+        assertThrows(DataAccessResourceFailureException.class, () -> productCache.get(1L));
+        assertEquals(0.0, meterRegistry.get("cache.size").tag("cache", ProductCache.NAME).gauge().value());
+        assertEquals(10, productCache.get(1L).map(ProductResponse::getUnitsInStock).orElseThrow());
+        verify(productRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void testGet_LoadsOnTheCallingThread() {
+        Thread caller = Thread.currentThread();
+        when(productRepository.findById(1L)).thenAnswer(invocation -> {
+            assertSame(caller, Thread.currentThread());
+            return Optional.of(product(1L, 10));
+        });
+
+        assertEquals(10, productCache.get(1L).map(ProductResponse::getUnitsInStock).orElseThrow());
+    }
+
+    @Test
+    void testInvalidate_ReloadsFreshStock() {
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product(1L, 10))).thenReturn(Optional.of(product(1L, 7)));
+        productCache.get(1L);
+
+        productCache.invalidate(1L);
+
+        assertEquals(7, productCache.get(1L).map(ProductResponse::getUnitsInStock).orElseThrow());
+    }
+
+    @Test
+    void testPut_ReplacesCachedView() {
+        when(productRepository.findById(1L)).thenReturn(Optional.of(product(1L, 10)));
+        productCache.get(1L);
+
+        productCache.put(product(1L, 3));
+
+        assertEquals(3, productCache.get(1L).map(ProductResponse::getUnitsInStock).orElseThrow());
+        verify(productRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void testGetIfPresent_NeverLoads() {
+        assertTrue(productCache.getIfPresent(1L).isEmpty());
+        verify(productRepository, never()).findById(any());
+
+        productCache.put(product(1L, 3));
+
+        assertEquals(3, productCache.getIfPresent(1L).orElseThrow().getUnitsInStock());
+    }
+
+    @Test
+    void testGeneration_ChangesOnEveryWrite() {
+        long generation = productCache.generation();
+
+        productCache.put(product(1L, 3));
+        assertTrue(productCache.generation() > generation);
+        generation = productCache.generation();
+
+        productCache.invalidate(1L);
+        assertTrue(productCache.generation() > generation);
+        generation = productCache.generation();
+
+        productCache.catalogChanged();
+        assertTrue(productCache.generation() > generation);
+    }
+
+    @Test
+    void testPut_InsideATransactionWaitsForTheCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        long generation = productCache.generation();
+
+        productCache.put(product(1L, 3));
+        assertTrue(productCache.getIfPresent(1L).isEmpty());
+        assertEquals(generation, productCache.generation());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(3, productCache.getIfPresent(1L).orElseThrow().getUnitsInStock());
+        assertTrue(productCache.generation() > generation);
+    }
+
+    private static Product product(Long id, int unitsInStock) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName("Apple");
+        product.setPrice(new BigDecimal("1.50"));
+        product.setUnitsInStock(unitsInStock);
+        return product;
+    }
+}
@@ -0,0 +1,118 @@
+package com.teamviewer.challenge.ecommerce.cache;
+
+import com.teamviewer.challenge.ecommerce.model.ProductName;
+import com.teamviewer.challenge.ecommerce.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProductSearchIndexTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        index = new ProductSearchIndex(productRepository, new TransactionTemplate(mock(PlatformTransactionManager.class)), "memory");
+        when(productRepository.streamAllIdsAndNames()).thenReturn(Stream.of(
+                new ProductName(4L, "Red Coffee Mug"),
+                new ProductName(2L, "Blue mug"),
+                new ProductName(9L, "Mugwort tea, red label"),
+                new ProductName(5L, "Redwood Mugs")));
+    }
+
+    @Test
+    void testTokenize_SplitsOnAnythingButLettersAndDigits() {
+        assertEquals(List.of("café", "au", "lait", "250ml"), ProductSearchIndex.tokenize("Café-au lait  (250ml) café"));
+        assertEquals(List.of(), ProductSearchIndex.tokenize(" - "));
+    }
+
+    @Test
+    void testSearch_EmptyUntilBuilt() {
+        assertEquals(Optional.empty(), index.search(List.of("mug"), 0, 10));
+    }
+
+    @Test
+    void testSearch_EmptyWhileInTrigramMode() {
+        ProductSearchIndex trigramIndex = new ProductSearchIndex(productRepository, new TransactionTemplate(mock(PlatformTransactionManager.class)), "trigram");
+
+        trigramIndex.onApplicationReady();
+
+        assertEquals(Optional.empty(), trigramIndex.search(List.of("mug"), 0, 10));
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void testSearch_MatchesPrefixesOfEveryTokenAndRanksWholeTokensFirst() {
+        index.build();
+
+        // 4 holds both words whole, 9 only red and 5 neither
+        assertEquals(List.of(4L, 9L, 5L), search("red mug"));
+        assertEquals(List.of(2L, 4L, 5L, 9L), search("MUG"));
+        assertEquals(List.of(4L), search("coffee mug"));
+        assertEquals(List.of(), search("green mug"));
+    }
+
+    @Test
+    void testSearch_PagesByOffset() {
+        index.build();
+
+        assertEquals(List.of(4L, 5L), index.search(List.of("mug"), 1, 2).orElseThrow());
+        assertEquals(List.of(), index.search(List.of("mug"), 4, 2).orElseThrow());
+    }
+
+    @Test
+    void testWrites_UpdateTheBuiltIndex() {
+        index.build();
+
+        index.add(12L, "Green Mug");
+        index.update(4L, "Red Coffee Mug", "Red Tea Mug");
+        index.remove(2L, "Blue mug");
+
+        assertEquals(List.of(4L, 12L, 5L, 9L), search("mug"));
+        assertEquals(List.of(4L, 9L), search("tea"));
+        assertEquals(List.of(), search("coffee"));
+        assertEquals(List.of(), search("blue"));
+    }
+
+    @Test
+    void testBuild_ReplaysWritesMadeDuringTheScan() {
+        when(productRepository.streamAllIdsAndNames()).thenAnswer(invocation -> {
+            index.add(20L, "Teapot");
+            index.remove(2L, "Blue mug");
+            return Stream.of(new ProductName(2L, "Blue mug"));
+        });
+
+        index.build();
+
+        assertEquals(List.of(20L), search("tea"));
+        assertEquals(List.of(), search("blue"));
+    }
+
+    @Test
+    void testOnApplicationReady_FailureKeepsFallingBackToDatabase() {
+        when(productRepository.streamAllIdsAndNames()).thenThrow(new IllegalStateException("database down"));
+
+        index.onApplicationReady();
+        index.add(1L, "Red Mug");
+
+        assertEquals(Optional.empty(), index.search(List.of("mug"), 0, 10));
+    }
+
+    private List<Long> search(String query) {
+        return index.search(ProductSearchIndex.tokenize(query), 0, 10).orElseThrow();
+    }
+}
@@ -0,0 +1,74 @@
+package com.teamviewer.challenge.ecommerce.cache;
+
+import com.teamviewer.challenge.ecommerce.repository.OrderItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReferencedProductsTest {
+
+    @Mock
+    private OrderItemRepository orderItemRepository;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void testMightBeReferenced_AlwaysWhileDisabled() {
+        ReferencedProducts referencedProducts = new ReferencedProducts(orderItemRepository, transactionTemplate, false);
+
+        referencedProducts.start();
+
+        assertTrue(referencedProducts.mightBeReferenced(1L));
+        verifyNoInteractions(orderItemRepository);
+    }
+
+    @Test
+    void testStart_LoadsTheReferencedIds() {
+        when(orderItemRepository.streamReferencedProductIds()).thenReturn(Stream.of(1L, 3L, Long.MAX_VALUE));
+        ReferencedProducts referencedProducts = new ReferencedProducts(orderItemRepository, transactionTemplate, true);
+
+        referencedProducts.start();
+
+        assertTrue(referencedProducts.mightBeReferenced(1L));
+        assertFalse(referencedProducts.mightBeReferenced(2L));
+        assertTrue(referencedProducts.mightBeReferenced(3L));
+        // Past the bitmap, so left to the database
+        assertTrue(referencedProducts.mightBeReferenced(Long.MAX_VALUE));
+    }
+
+    @Test
+    void testAdd_SetsTheBit() {
+        when(orderItemRepository.streamReferencedProductIds()).thenReturn(Stream.empty());
+        ReferencedProducts referencedProducts = new ReferencedProducts(orderItemRepository, transactionTemplate, true);
+        referencedProducts.start();
+
+        referencedProducts.add(2L);
+
+        assertTrue(referencedProducts.mightBeReferenced(2L));
+        assertFalse(referencedProducts.mightBeReferenced(4L));
+    }
+
+    @Test
+    void testStart_FailureKeepsFallingBackToDatabase() {
+        when(orderItemRepository.streamReferencedProductIds()).thenThrow(new IllegalStateException("database down"));
+        ReferencedProducts referencedProducts = new ReferencedProducts(orderItemRepository, transactionTemplate, true);
+
+        referencedProducts.start();
+
+        assertTrue(referencedProducts.mightBeReferenced(2L));
+    }
+}
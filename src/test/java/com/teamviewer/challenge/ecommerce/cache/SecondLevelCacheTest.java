@@ -0,0 +1,69 @@
+package com.teamviewer.challenge.ecommerce.cache;
+
+import com.teamviewer.challenge.ecommerce.entity.Product;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+class SecondLevelCacheTest {
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+    @Mock
+    private jakarta.persistence.Cache jpaCache;
+    @Mock
+    private Cache cache;
+
+    private SecondLevelCache secondLevelCache;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(entityManagerFactory.getCache()).thenReturn(jpaCache);
+        when(jpaCache.unwrap(Cache.class)).thenReturn(cache);
+        secondLevelCache = new SecondLevelCache(entityManagerFactory);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void testEvictProduct_OutsideATransactionEvictsOnce() {
+        secondLevelCache.evictProduct(1L);
+
+        verify(cache, times(1)).evictEntityData(Product.class, 1L);
+    }
+
+    @Test
+    void testEvictProducts_InsideATransactionEvictsAgainAfterCompletion() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        secondLevelCache.evictProducts(List.of(1L, 2L));
+
+        verify(cache, times(1)).evictEntityData(Product.class, 1L);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        verify(cache, times(2)).evictEntityData(Product.class, 1L);
+        verify(cache, times(2)).evictEntityData(Product.class, 2L);
+    }
+
+    @Test
+    void testEvictProductLookups_DropsOnlyTheProductLookupRegion() {
+        secondLevelCache.evictProductLookups();
+
+        verify(cache).evictQueryRegion(SecondLevelCache.PRODUCT_LOOKUPS_REGION);
+        verifyNoMoreInteractions(cache);
+    }
+}
@@ -0,0 +1,32 @@
+package com.teamviewer.challenge.ecommerce.controller;
+
+import com.teamviewer.challenge.ecommerce.model.CursorPage;
+import com.teamviewer.challenge.ecommerce.model.EntityVersion;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ETagsTest {
+
+    @Test
+    void testOf_Version() {
+        assertEquals("\"7\"", ETags.of(7L));
+    }
+
+    @Test
+    void testOf_PageChangesWithAnyItemVersionOrTheNextCursor() {
+        String eTag = eTag(List.of(new EntityVersion(1L, 0L), new EntityVersion(2L, 3L)), null);
+
+        assertEquals(eTag, eTag(List.of(new EntityVersion(1L, 0L), new EntityVersion(2L, 3L)), null));
+        assertTrue(eTag.startsWith("\"") && eTag.endsWith("\""));
+        assertNotEquals(eTag, eTag(List.of(new EntityVersion(1L, 0L), new EntityVersion(2L, 4L)), null));
+        assertNotEquals(eTag, eTag(List.of(new EntityVersion(1L, 0L), new EntityVersion(3L, 3L)), null));
+        assertNotEquals(eTag, eTag(List.of(new EntityVersion(1L, 0L), new EntityVersion(2L, 3L)), CursorPage.encode(2L)));
+    }
+
+    private static String eTag(List<EntityVersion> versions, String next) {
+        return ETags.of(new CursorPage<>(versions, next), EntityVersion::getId, EntityVersion::getVersion);
+    }
+}
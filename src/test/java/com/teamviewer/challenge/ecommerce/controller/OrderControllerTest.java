@@ -1,19 +1,39 @@
 package com.teamviewer.challenge.ecommerce.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teamviewer.challenge.ecommerce.dto.CheckoutDto;
 import com.teamviewer.challenge.ecommerce.dto.OrderDto;
+import com.teamviewer.challenge.ecommerce.dto.OrderItemDto;
 import com.teamviewer.challenge.ecommerce.entity.Order;
 import com.teamviewer.challenge.ecommerce.exception.ResourceNotFoundException;
+import com.teamviewer.challenge.ecommerce.model.CursorPage;
+import com.teamviewer.challenge.ecommerce.model.EntityVersion;
+import com.teamviewer.challenge.ecommerce.model.OrderIntakeStatus;
+import com.teamviewer.challenge.ecommerce.model.OrderResponse;
+import com.teamviewer.challenge.ecommerce.service.OrderIntakeServiceImpl;
 import com.teamviewer.challenge.ecommerce.service.OrderServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Collections;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.function.Consumer;
+
+import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -22,6 +42,10 @@ class OrderControllerTest {
 
     @Mock
     private OrderServiceImpl orderService;
+    @Mock
+    private OrderIntakeServiceImpl orderIntakeService;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
 
     @InjectMocks
     private OrderController orderController;
@@ -33,24 +57,86 @@ class OrderControllerTest {
 
     @Test
     void getAllOrders_ReturnsOk() {
-        when(orderService.getAllOrders()).thenReturn(Collections.singletonList(new Order()));
+        when(orderService.getAllOrders(any(), anyInt())).thenReturn(new CursorPage<>(Collections.singletonList(OrderResponse.from(new Order())), null));
 
-        ResponseEntity<List<Order>> response = orderController.getAllOrders();
+        ResponseEntity<CursorPage<OrderResponse>> response = orderController.getAllOrders(null, 50, webRequest(null));
 
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void exportOrders_WritesOneLinePerOrder() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<OrderResponse> consumer = invocation.getArgument(0);
+            consumer.accept(new OrderResponse(1L, "Bob", "x", List.of(), new BigDecimal("8.50"), 0L));
+            consumer.accept(new OrderResponse(2L, "Ann", "y", List.of(), BigDecimal.ZERO, 0L));
+            return null;
+        }).when(orderService).exportOrders(any(Consumer.class));
+
+        ResponseEntity<StreamingResponseBody> response = orderController.exportOrders();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        response.getBody().writeTo(outputStream);
+
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(1L, objectMapper.readTree(lines[0]).get("id").asLong());
+        assertEquals("Ann", objectMapper.readTree(lines[1]).get("customerName").asText());
+    }
+
     @Test
     void getOrderById_ReturnsOk() {
         when(orderService.getOrderById(anyLong())).thenReturn(new Order());
 
-        ResponseEntity<Order> response = orderController.getOrderById(1L);
+        ResponseEntity<OrderResponse> response = orderController.getOrderById(1L, webRequest(null));
 
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
+    @Test
+    void getOrderById_ReturnsVersionAsETag() {
+        Order order = new Order();
+        order.setVersion(3L);
+        when(orderService.getOrderById(1L)).thenReturn(order);
+
+        ResponseEntity<OrderResponse> response = orderController.getOrderById(1L, webRequest(null));
+
+        assertEquals("\"3\"", response.getHeaders().getETag());
+        verify(orderService, never()).getOrderVersion(any());
+    }
+
+    @Test
+    void getOrderById_MatchingETag_ReturnsNotModifiedWithoutLoadingTheOrder() {
+        when(orderService.getOrderVersion(1L)).thenReturn(3L);
+        ServletWebRequest webRequest = webRequest("\"3\"");
+
+        ResponseEntity<OrderResponse> response = orderController.getOrderById(1L, webRequest);
+
+        assertNull(response);
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), webRequest.getResponse().getStatus());
+        verify(orderService, never()).getOrderById(any());
+    }
+
+    @Test
+    void getAllOrders_MatchingETag_ReturnsNotModifiedWithoutLoadingTheOrders() {
+        Order order = new Order();
+        order.setId(7L);
+        order.setVersion(2L);
+        when(orderService.getAllOrders(null, 50)).thenReturn(new CursorPage<>(List.of(OrderResponse.from(order)), null));
+        when(orderService.getOrderVersions(null, 50)).thenReturn(new CursorPage<>(List.of(new EntityVersion(7L, 2L)), null));
+        String eTag = orderController.getAllOrders(null, 50, webRequest(null)).getHeaders().getETag();
+        ServletWebRequest webRequest = webRequest(eTag);
+
+        ResponseEntity<CursorPage<OrderResponse>> response = orderController.getAllOrders(null, 50, webRequest);
+
+        assertNull(response);
+        assertEquals(HttpStatus.NOT_MODIFIED.value(), webRequest.getResponse().getStatus());
+        verify(orderService, times(1)).getAllOrders(null, 50);
+    }
+
     @Test
     void createOrder_ReturnsCreated() {
         OrderDto orderDto = new OrderDto();
@@ -60,12 +146,53 @@ class OrderControllerTest {
 
         when(orderService.createOrder(any())).thenReturn(new Order());
 
-        ResponseEntity<Order> response = orderController.createOrder(orderDto);
+        ResponseEntity<OrderResponse> response = orderController.createOrder(orderDto);
 
         assertNotNull(response);
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
     }
 
+    @Test
+    void checkout_ReturnsCreated() {
+        OrderItemDto item = new OrderItemDto();
+        item.setProductId(1L);
+        item.setQuantity(2);
+        CheckoutDto checkoutDto = new CheckoutDto();
+        checkoutDto.setCustomerName("John Doe");
+        checkoutDto.setAddress("123 Street");
+        checkoutDto.setItems(Collections.singletonList(item));
+
+        when(orderService.checkout(checkoutDto)).thenReturn(new Order());
+
+        ResponseEntity<OrderResponse> response = orderController.checkout(checkoutDto);
+
+        assertNotNull(response);
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        verify(orderService).checkout(checkoutDto);
+    }
+
+    @Test
+    void submitCheckout_ReturnsAcceptedWithStatusLocation() {
+        CheckoutDto checkoutDto = new CheckoutDto();
+        when(orderIntakeService.submit(checkoutDto)).thenReturn(OrderIntakeStatus.queued("abc"));
+
+        ResponseEntity<OrderIntakeStatus> response = orderController.submitCheckout(checkoutDto);
+
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals("/api/orders/intake/abc", response.getHeaders().getLocation().toString());
+        assertEquals(OrderIntakeStatus.State.QUEUED, response.getBody().getState());
+    }
+
+    @Test
+    void getCheckoutStatus_ReturnsOk() {
+        when(orderIntakeService.getStatus("abc")).thenReturn(OrderIntakeStatus.completed("abc", 7L));
+
+        ResponseEntity<OrderIntakeStatus> response = orderController.getCheckoutStatus("abc");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(7L, response.getBody().getOrderId());
+    }
+
     @Test
     void updateOrder_ReturnsOk() {
         OrderDto orderDto = new OrderDto();
@@ -75,7 +202,7 @@ class OrderControllerTest {
 
         when(orderService.updateOrder(anyLong(), any())).thenReturn(new Order());
 
-        ResponseEntity<Order> response = orderController.updateOrder(1L, orderDto);
+        ResponseEntity<OrderResponse> response = orderController.updateOrder(1L, orderDto);
 
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -96,7 +223,7 @@ class OrderControllerTest {
         when(orderService.getOrderById(anyLong())).thenThrow(ResourceNotFoundException.class);
 
         assertThrows(ResourceNotFoundException.class, () -> {
-            orderController.getOrderById(1L);
+            orderController.getOrderById(1L, webRequest(null));
         });
     }
 
@@ -122,4 +249,10 @@ class OrderControllerTest {
             orderController.deleteOrder(1L);
         });
     }
+
+    private static ServletWebRequest webRequest(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders");
+        if (ifNoneMatch != null) request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
 }
@@ -3,6 +3,9 @@ package com.teamviewer.challenge.ecommerce.controller;
 import com.teamviewer.challenge.ecommerce.dto.OrderItemDto;
 import com.teamviewer.challenge.ecommerce.entity.OrderItem;
 import com.teamviewer.challenge.ecommerce.exception.ResourceNotFoundException;
+import com.teamviewer.challenge.ecommerce.model.BatchItemResult;
+import com.teamviewer.challenge.ecommerce.model.CursorPage;
+import com.teamviewer.challenge.ecommerce.model.OrderItemResponse;
 import com.teamviewer.challenge.ecommerce.service.OrderItemServiceImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -33,9 +36,9 @@ class OrderItemControllerTest {
 
     @Test
     void getAllOrderItems_ReturnsOk() {
-        when(orderItemService.getAllOrderItems()).thenReturn(Collections.singletonList(new OrderItem()));
+        when(orderItemService.getAllOrderItems(any(), anyInt())).thenReturn(new CursorPage<>(Collections.singletonList(OrderItemResponse.from(new OrderItem())), null));
 
-        ResponseEntity<List<OrderItem>> response = orderItemController.getAllOrderItems();
+        ResponseEntity<CursorPage<OrderItemResponse>> response = orderItemController.getAllOrderItems(null, 50);
 
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -45,7 +48,7 @@ class OrderItemControllerTest {
     void getOrderItemById_ReturnsOk() {
         when(orderItemService.getOrderItemById(anyLong())).thenReturn(new OrderItem());
 
-        ResponseEntity<OrderItem> response = orderItemController.getOrderItemById(1L);
+        ResponseEntity<OrderItemResponse> response = orderItemController.getOrderItemById(1L);
 
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -59,7 +62,7 @@ class OrderItemControllerTest {
 
         when(orderItemService.createOrderItem(any())).thenReturn(new OrderItem());
 
-        ResponseEntity<OrderItem> response = orderItemController.createOrderItem(orderItemDto);
+        ResponseEntity<OrderItemResponse> response = orderItemController.createOrderItem(orderItemDto);
 
         assertNotNull(response);
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
@@ -73,7 +76,7 @@ class OrderItemControllerTest {
 
         when(orderItemService.updateOrderItem(anyLong(), any())).thenReturn(new OrderItem());
 
-        ResponseEntity<OrderItem> response = orderItemController.updateOrderItem(1L, orderItemDto);
+        ResponseEntity<OrderItemResponse> response = orderItemController.updateOrderItem(1L, orderItemDto);
 
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -119,4 +122,17 @@ class OrderItemControllerTest {
             orderItemController.deleteOrderItem(1L);
         });
     }
+
+    @Test
+    void createOrderItems_SomeRejected_ReturnsMultiStatus() {
+        OrderItemDto orderItemDto = new OrderItemDto();
+        orderItemDto.setProductId(3L);
+        orderItemDto.setQuantity(4);
+        when(orderItemService.createOrderItems(anyList()))
+                .thenReturn(List.of(BatchItemResult.rejected(0, HttpStatus.NOT_FOUND, "Product not found with id: 3")));
+
+        ResponseEntity<List<BatchItemResult<OrderItemResponse>>> response = orderItemController.createOrderItems(List.of(orderItemDto));
+
+        assertEquals(HttpStatus.MULTI_STATUS, response.getStatusCode());
+    }
 }
@@ -1,23 +1,37 @@
 package com.teamviewer.challenge.ecommerce.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teamviewer.challenge.ecommerce.cache.ProductCache;
 import com.teamviewer.challenge.ecommerce.dto.ProductDto;
 import com.teamviewer.challenge.ecommerce.entity.Product;
 import com.teamviewer.challenge.ecommerce.exception.ResourceNotFoundException;
+import com.teamviewer.challenge.ecommerce.model.BatchItemResult;
+import com.teamviewer.challenge.ecommerce.model.CursorPage;
+import com.teamviewer.challenge.ecommerce.model.ProductImportResult;
+import com.teamviewer.challenge.ecommerce.model.ProductResponse;
+import com.teamviewer.challenge.ecommerce.service.ProductImportServiceImpl;
 import com.teamviewer.challenge.ecommerce.service.ProductServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -26,30 +40,114 @@ class ProductControllerTest {
 
     @Mock
     private ProductServiceImpl productService;
+    @Mock
+    private ProductImportServiceImpl productImportService;
+
+    @Mock
+    private ProductCache productCache;
 
-    @InjectMocks
+    private final ObjectMapper objectMapper = new ObjectMapper();
     private ProductController productController;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        ProductBodyCache productBodyCache = new ProductBodyCache(objectMapper, productCache, new SimpleMeterRegistry(),
+                100, 100, Duration.ofMinutes(10), 2048);
+        productController = new ProductController(productService, productImportService, productBodyCache);
     }
 
     @Test
     void getAllProducts_ReturnsOk() {
-        when(productService.getAllProducts()).thenReturn(Collections.singletonList(new Product()));
+        when(productService.getAllProducts(any(), anyInt())).thenReturn(new CursorPage<>(Collections.singletonList(ProductResponse.from(new Product())), null));
 
-        ResponseEntity<List<Product>> response = productController.getAllProducts();
+        ResponseEntity<byte[]> response = productController.getAllProducts(null, 50, null);
 
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+    }
+
+    @Test
+    void getAllProducts_ReusesTheSerializedPageUntilAProductIsWritten() throws Exception {
+        CursorPage<ProductResponse> page = new CursorPage<>(List.of(new ProductResponse(1L, "Test Product", 5, BigDecimal.TEN, 0L)), null);
+        when(productService.getAllProducts(any(), anyInt())).thenReturn(page);
+
+        byte[] first = productController.getAllProducts(null, 50, null).getBody();
+        byte[] second = productController.getAllProducts(null, 50, null).getBody();
+        when(productCache.generation()).thenReturn(1L);
+        productController.getAllProducts(null, 50, null);
+
+        assertSame(first, second);
+        assertEquals("Test Product", objectMapper.readTree(first).get("items").get(0).get("name").asText());
+        verify(productService, times(2)).getAllProducts(null, 50);
+    }
+
+    @Test
+    void getAllProducts_LargePageIsSentGzippedWhenAccepted() throws Exception {
+        List<ProductResponse> products = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) products.add(new ProductResponse(id, "Product " + id, 5, BigDecimal.TEN, 0L));
+        when(productService.getAllProducts(any(), anyInt())).thenReturn(new CursorPage<>(products, null));
+
+        ResponseEntity<byte[]> plain = productController.getAllProducts(null, 100, null);
+        ResponseEntity<byte[]> gzipped = productController.getAllProducts(null, 100, "deflate, gzip");
+
+        assertNull(plain.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals("gzip", gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, gzipped.getHeaders().getFirst(HttpHeaders.VARY));
+        assertNotEquals(plain.getHeaders().getETag(), gzipped.getHeaders().getETag());
+        try (InputStream body = new GZIPInputStream(new ByteArrayInputStream(gzipped.getBody()))) {
+            assertArrayEquals(plain.getBody(), body.readAllBytes());
+        }
+    }
+
+    @Test
+    void searchProducts_ReturnsOk() {
+        CursorPage<ProductResponse> page = new CursorPage<>(List.of(new ProductResponse(1L, "Red Mug", 5, BigDecimal.TEN, 0L)), null);
+        when(productService.searchProducts("mug", null, 50)).thenReturn(page);
+
+        ResponseEntity<CursorPage<ProductResponse>> response = productController.searchProducts("mug", null, 50);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(page, response.getBody());
+    }
+
+    @Test
+    void importProducts_Csv_ReturnsCreated() throws Exception {
+        InputStream body = new ByteArrayInputStream(new byte[0]);
+        when(productImportService.importCsv(body)).thenReturn(new ProductImportResult(1, 1, List.of()));
+
+        ResponseEntity<ProductImportResult> response = productController.importProducts(MediaType.parseMediaType("text/csv;charset=UTF-8"), body);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+        verify(productImportService, never()).importJson(any());
+    }
+
+    @Test
+    void importProducts_JsonWithRejections_ReturnsMultiStatus() throws Exception {
+        InputStream body = new ByteArrayInputStream(new byte[0]);
+        when(productImportService.importJson(body)).thenReturn(new ProductImportResult(2, 1,
+                List.of(BatchItemResult.rejected(1, HttpStatus.CONFLICT, "Product with the same name already exists."))));
+
+        ResponseEntity<ProductImportResult> response = productController.importProducts(MediaType.APPLICATION_NDJSON, body);
+
+        assertEquals(HttpStatus.MULTI_STATUS, response.getStatusCode());
+    }
+
+    @Test
+    void getProductById_ReturnsVersionAsETag() {
+        when(productService.getProductResponseById(1L)).thenReturn(new ProductResponse(1L, "Test Product", 5, BigDecimal.TEN, 4L));
+
+        ResponseEntity<byte[]> response = productController.getProductById(1L, null);
+
+        assertEquals("\"4\"", response.getHeaders().getETag());
     }
 
     @Test
     void getProductById_ReturnsOk() {
-        when(productService.getProductById(anyLong())).thenReturn(new Product());
+        when(productService.getProductResponseById(anyLong())).thenReturn(ProductResponse.from(new Product()));
 
-        ResponseEntity<Product> response = productController.getProductById(1L);
+        ResponseEntity<byte[]> response = productController.getProductById(1L, null);
 
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -65,7 +163,7 @@ class ProductControllerTest {
         productDto.setPrice(new BigDecimal(10));
         when(productService.createProduct(any())).thenReturn(new Product());
 
-        ResponseEntity<Product> response = productController.createProduct(productDto);
+        ResponseEntity<ProductResponse> response = productController.createProduct(productDto);
 
         assertNotNull(response);
         assertEquals(HttpStatus.CREATED, response.getStatusCode());
@@ -77,7 +175,7 @@ class ProductControllerTest {
 
         when(productService.updateProduct(anyLong(), any())).thenReturn(new Product());
 
-        ResponseEntity<Product> response = productController.updateProduct(1L, productDto);
+        ResponseEntity<ProductResponse> response = productController.updateProduct(1L, productDto);
 
         assertNotNull(response);
         assertEquals(HttpStatus.OK, response.getStatusCode());
@@ -95,10 +193,10 @@ class ProductControllerTest {
 
     @Test
     void getProductById_ProductNotFound_ReturnsNotFound() {
-        when(productService.getProductById(anyLong())).thenThrow(ResourceNotFoundException.class);
+        when(productService.getProductResponseById(anyLong())).thenThrow(ResourceNotFoundException.class);
 
         assertThrows(ResourceNotFoundException.class, () -> {
-            productController.getProductById(1L);
+            productController.getProductById(1L, null);
         });
     }
 
@@ -122,4 +220,29 @@ class ProductControllerTest {
             productController.deleteProduct(1L);
         });
     }
+
+    @Test
+    void createProducts_AllCreated_ReturnsCreated() {
+        List<ProductDto> productDtos = List.of(new ProductDto("TestItem", new BigDecimal("10.00"), 10));
+        when(productService.createProducts(productDtos))
+                .thenReturn(List.of(BatchItemResult.created(0, ProductResponse.from(new Product()))));
+
+        ResponseEntity<List<BatchItemResult<ProductResponse>>> response = productController.createProducts(productDtos);
+
+        assertEquals(HttpStatus.CREATED, response.getStatusCode());
+    }
+
+    @Test
+    void createProducts_SomeRejected_ReturnsMultiStatus() {
+        List<ProductDto> productDtos = List.of(new ProductDto("TestItem", new BigDecimal("10.00"), 10),
+                new ProductDto("TestItem", new BigDecimal("10.00"), 10));
+        when(productService.createProducts(productDtos)).thenReturn(List.of(
+                BatchItemResult.created(0, ProductResponse.from(new Product())),
+                BatchItemResult.rejected(1, HttpStatus.CONFLICT, "Product with the same name appears earlier in the batch.")));
+
+        ResponseEntity<List<BatchItemResult<ProductResponse>>> response = productController.createProducts(productDtos);
+
+        assertEquals(HttpStatus.MULTI_STATUS, response.getStatusCode());
+        assertEquals(2, response.getBody().size());
+    }
 }
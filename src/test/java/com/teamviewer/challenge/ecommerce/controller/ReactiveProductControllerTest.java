@@ -0,0 +1,71 @@
+package com.teamviewer.challenge.ecommerce.controller;
+
+import com.teamviewer.challenge.ecommerce.exception.ResourceNotFoundException;
+import com.teamviewer.challenge.ecommerce.model.CursorPage;
+import com.teamviewer.challenge.ecommerce.model.ProductResponse;
+import com.teamviewer.challenge.ecommerce.service.ReactiveProductServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+class ReactiveProductControllerTest {
+
+    @Mock
+    private ReactiveProductServiceImpl reactiveProductService;
+
+    @InjectMocks
+    private ReactiveProductController reactiveProductController;
+
+    private final ProductResponse product = new ProductResponse(1L, "Test Product", 5, BigDecimal.TEN, 0L);
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void getAllProducts_ReturnsPage() {
+        CursorPage<ProductResponse> page = new CursorPage<>(List.of(product), null);
+        when(reactiveProductService.getAllProducts(any(), anyInt())).thenReturn(Mono.just(page));
+
+        StepVerifier.create(reactiveProductController.getAllProducts(null, 50))
+                .expectNext(page)
+                .verifyComplete();
+    }
+
+    @Test
+    void getProductById_ReturnsProduct() {
+        when(reactiveProductService.getProductById(1L)).thenReturn(Mono.just(product));
+
+        StepVerifier.create(reactiveProductController.getProductById(1L))
+                .expectNext(product)
+                .verifyComplete();
+    }
+
+    @Test
+    void getProductById_NotFound() {
+        when(reactiveProductService.getProductById(1L)).thenReturn(Mono.error(new ResourceNotFoundException("Product not found with id: 1")));
+
+        StepVerifier.create(reactiveProductController.getProductById(1L))
+                .verifyError(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void streamAllProducts_ReturnsEveryProduct() {
+        when(reactiveProductService.streamAllProducts()).thenReturn(Flux.just(product));
+
+        StepVerifier.create(reactiveProductController.streamAllProducts())
+                .expectNext(product)
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,49 @@
+package com.teamviewer.challenge.ecommerce.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SerializedBodyTest {
+
+    private static final byte[] JSON = "{}".getBytes();
+    private static final byte[] GZIP = {31, -117};
+
+    @Test
+    void testAcceptsGzip() {
+        assertTrue(SerializedBody.acceptsGzip("gzip"));
+        assertTrue(SerializedBody.acceptsGzip("deflate, GZIP;q=0.5, br"));
+        assertFalse(SerializedBody.acceptsGzip(null));
+        assertFalse(SerializedBody.acceptsGzip("br, deflate"));
+        assertFalse(SerializedBody.acceptsGzip("gzip;q=0"));
+        assertFalse(SerializedBody.acceptsGzip("gzip;q=0.000"));
+        assertFalse(SerializedBody.acceptsGzip("gzip;q=abc"));
+    }
+
+    @Test
+    void testToResponse_GzipCopyIsSentOnlyWhenAccepted() {
+        SerializedBody body = new SerializedBody("\"5\"", 5L, JSON, GZIP);
+
+        ResponseEntity<byte[]> plain = body.toResponse(null);
+        ResponseEntity<byte[]> gzip = body.toResponse("gzip, deflate");
+
+        assertArrayEquals(JSON, plain.getBody());
+        assertEquals("\"5\"", plain.getHeaders().getETag());
+        assertNull(plain.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING, plain.getHeaders().getFirst(HttpHeaders.VARY));
+        assertArrayEquals(GZIP, gzip.getBody());
+        assertEquals("\"5-gzip\"", gzip.getHeaders().getETag());
+        assertEquals("gzip", gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    @Test
+    void testToResponse_SmallBodyIsAlwaysPlain() {
+        ResponseEntity<byte[]> response = new SerializedBody("\"5\"", 5L, JSON, null).toResponse("gzip");
+
+        assertArrayEquals(JSON, response.getBody());
+        assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertNull(response.getHeaders().getFirst(HttpHeaders.VARY));
+    }
+}
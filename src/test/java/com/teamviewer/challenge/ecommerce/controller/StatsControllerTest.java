@@ -0,0 +1,73 @@
+package com.teamviewer.challenge.ecommerce.controller;
+
+import com.teamviewer.challenge.ecommerce.model.DailySalesResponse;
+import com.teamviewer.challenge.ecommerce.model.ProductSalesResponse;
+import com.teamviewer.challenge.ecommerce.service.SalesStatsServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class StatsControllerTest {
+
+    @Mock
+    private SalesStatsServiceImpl salesStatsService;
+
+    @InjectMocks
+    private StatsController statsController;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void getProductSales_ReturnsOk() {
+        ProductSalesResponse productSales = new ProductSalesResponse(1L, 4L, new BigDecimal("40.00"));
+        when(salesStatsService.getProductSales(1L)).thenReturn(productSales);
+
+        ResponseEntity<ProductSalesResponse> response = statsController.getProductSales(1L);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(productSales, response.getBody());
+    }
+
+    @Test
+    void getTopProducts_ReturnsOk() {
+        when(salesStatsService.getTopProducts("revenue", 10)).thenReturn(List.of(new ProductSalesResponse(1L, 4L, new BigDecimal("40.00"))));
+
+        ResponseEntity<List<ProductSalesResponse>> response = statsController.getTopProducts("revenue", 10);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().size());
+    }
+
+    @Test
+    void getDailySales_ReturnsOk() {
+        LocalDate day = LocalDate.parse("2026-03-01");
+        when(salesStatsService.getDailySales(day, day)).thenReturn(List.of(new DailySalesResponse(day, 1L, 4L, new BigDecimal("40.00"))));
+
+        ResponseEntity<List<DailySalesResponse>> response = statsController.getDailySales(day, day);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().size());
+    }
+
+    @Test
+    void rebuild_ReturnsNoContent() {
+        ResponseEntity<Void> response = statsController.rebuild();
+
+        assertEquals(HttpStatus.NO_CONTENT, response.getStatusCode());
+        verify(salesStatsService, times(1)).rebuild();
+    }
+}
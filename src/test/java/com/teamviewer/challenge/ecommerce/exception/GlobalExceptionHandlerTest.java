@@ -0,0 +1,58 @@
+package com.teamviewer.challenge.ecommerce.exception;
+
+import com.teamviewer.challenge.ecommerce.model.ErrorResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GlobalExceptionHandlerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private GlobalExceptionHandler globalExceptionHandler;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        globalExceptionHandler = new GlobalExceptionHandler(meterRegistry);
+    }
+
+    @Test
+    void testHandlers_CountExceptionsByType() {
+        globalExceptionHandler.handleInsufficientStockException(new InsufficientStockException("Not enough units"));
+        globalExceptionHandler.handleInsufficientStockException(new InsufficientStockException("Not enough units"));
+        globalExceptionHandler.handleDuplicateElementException(new DuplicateElementException("Duplicate"));
+        ResponseEntity<ErrorResponse> response =
+                globalExceptionHandler.handleResourceNotFoundException(new ResourceNotFoundException("Not found"));
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        assertEquals(2, count("InsufficientStockException"));
+        assertEquals(1, count("DuplicateElementException"));
+        assertEquals(1, count("ResourceNotFoundException"));
+    }
+
+    @Test
+    void testHandlers_OtherExceptionsAreNotCounted() {
+        globalExceptionHandler.handleIllegalStateException(new IllegalStateException("Invalid state"));
+
+        assertNull(meterRegistry.find(GlobalExceptionHandler.EXCEPTIONS_METER).counter());
+    }
+
+    @Test
+    void testHandleOptimisticLockingFailure_ReturnsConflict() {
+        ResponseEntity<ErrorResponse> response = globalExceptionHandler.handleOptimisticLockingFailureException(
+                new OptimisticLockingFailureException("Row was updated or deleted by another transaction"));
+
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    }
+
+    private double count(String exception) {
+        Counter counter = meterRegistry.get(GlobalExceptionHandler.EXCEPTIONS_METER).tag("exception", exception).counter();
+        return counter.count();
+    }
+}
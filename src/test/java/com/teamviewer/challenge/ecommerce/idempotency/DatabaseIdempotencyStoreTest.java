@@ -0,0 +1,94 @@
+package com.teamviewer.challenge.ecommerce.idempotency;
+
+import com.teamviewer.challenge.ecommerce.entity.IdempotencyRecord;
+import com.teamviewer.challenge.ecommerce.exception.IdempotencyKeyInUseException;
+import com.teamviewer.challenge.ecommerce.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class DatabaseIdempotencyStoreTest {
+
+    @Mock
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    private DatabaseIdempotencyStore store;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        store = new DatabaseIdempotencyStore(idempotencyRecordRepository, 100, Duration.ofHours(1),
+                Duration.ofMillis(100), Duration.ofMillis(10), Duration.ofMinutes(5));
+    }
+
+    @Test
+    void testClaimOrAwait_ClaimsAnUnknownKey() {
+        when(idempotencyRecordRepository.insertIfAbsent(eq("key"), eq("token"), any())).thenReturn(1);
+
+        assertTrue(store.claimOrAwait("key", "token").isEmpty());
+        verify(idempotencyRecordRepository, never()).findById(any());
+    }
+
+    @Test
+    void testClaimOrAwait_ReplaysACompletedKeyAndCachesIt() {
+        byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+        when(idempotencyRecordRepository.findById("key"))
+                .thenReturn(Optional.of(new IdempotencyRecord("key", Instant.now(), "first", 201, "application/json", body, "hash")));
+
+        IdempotentResponse response = store.claimOrAwait("key", "token").orElseThrow();
+        assertEquals(201, response.getStatus());
+        assertArrayEquals(body, response.getBody());
+        assertEquals("hash", response.getRequestHash());
+
+        assertSame(response, store.claimOrAwait("key", "token").orElseThrow());
+        verify(idempotencyRecordRepository, times(1)).findById("key");
+    }
+
+    @Test
+    void testClaimOrAwait_PollsAnInFlightKeyUntilTheWaitTimeout() {
+        when(idempotencyRecordRepository.findById("key"))
+                .thenReturn(Optional.of(new IdempotencyRecord("key", Instant.now(), "first", null, null, null, null)));
+
+        assertThrows(IdempotencyKeyInUseException.class, () -> store.claimOrAwait("key", "token"));
+        verify(idempotencyRecordRepository, atLeast(2)).findById("key");
+    }
+
+    @Test
+    void testComplete_WritesTheRowAndAnswersLaterRetriesLocally() {
+        IdempotentResponse response = new IdempotentResponse(201, "application/json", new byte[0], "hash");
+        when(idempotencyRecordRepository.complete("key", "token", 201, "application/json", response.getBody(), "hash"))
+                .thenReturn(1);
+
+        store.complete("key", "token", response);
+
+        assertSame(response, store.claimOrAwait("key", "other").orElseThrow());
+        verify(idempotencyRecordRepository, never()).insertIfAbsent(any(), any(), any());
+    }
+
+    @Test
+    void testComplete_DropsTheResponseOfAReclaimedKey() {
+        when(idempotencyRecordRepository.insertIfAbsent(eq("key"), eq("retry"), any())).thenReturn(1);
+
+        store.complete("key", "stale", new IdempotentResponse(201, "application/json", new byte[0], "hash"));
+
+        assertTrue(store.claimOrAwait("key", "retry").isEmpty());
+    }
+
+    @Test
+    void testRelease_OnlyDeletesTheCallersClaim() {
+        store.release("key", "token");
+
+        verify(idempotencyRecordRepository).release("key", "token");
+    }
+}
@@ -0,0 +1,129 @@
+package com.teamviewer.challenge.ecommerce.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyFilterTest {
+
+    private final IdempotencyFilter filter = new IdempotencyFilter(
+            new InMemoryIdempotencyStore(100, Duration.ofHours(1), Duration.ofSeconds(5)), new ObjectMapper());
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @Test
+    void testRetryIsAnsweredFromTheStore() throws Exception {
+        FilterChain chain = created();
+
+        MockHttpServletResponse first = post("/api/orders", "key-1", chain);
+        MockHttpServletResponse retry = post("/api/orders", "key-1", chain);
+
+        assertEquals(1, executions.get());
+        assertEquals(HttpStatus.CREATED.value(), retry.getStatus());
+        assertEquals(first.getContentAsString(), retry.getContentAsString());
+        assertEquals("application/json", retry.getContentType());
+        assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void testRetryWithADifferentBodyIsRejected() throws Exception {
+        FilterChain chain = created();
+
+        post("/api/orders", "key-1", "{\"quantity\":1}", chain);
+        MockHttpServletResponse retry = post("/api/orders", "key-1", "{\"quantity\":2}", chain);
+
+        assertEquals(1, executions.get());
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY.value(), retry.getStatus());
+        assertNull(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    }
+
+    @Test
+    void testBodyLeftUnreadIsStillHashed() throws Exception {
+        FilterChain chain = (request, response) -> {
+            executions.incrementAndGet();
+            ((HttpServletResponse) response).setStatus(HttpStatus.BAD_REQUEST.value());
+        };
+
+        post("/api/orders", "key-1", "{\"quantity\":1}", chain);
+        MockHttpServletResponse sameBody = post("/api/orders", "key-1", "{\"quantity\":1}", chain);
+        MockHttpServletResponse otherBody = post("/api/orders", "key-1", "{\"quantity\":2}", chain);
+
+        assertEquals(1, executions.get());
+        assertEquals("true", sameBody.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY.value(), otherBody.getStatus());
+    }
+
+    @Test
+    void testKeysAreScopedToThePath() throws Exception {
+        FilterChain chain = created();
+
+        post("/api/orders", "key-1", chain);
+        post("/api/order-items", "key-1", chain);
+
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void testServerErrorsAreNotStored() throws Exception {
+        FilterChain chain = (request, response) -> {
+            executions.incrementAndGet();
+            ((HttpServletResponse) response).setStatus(HttpStatus.INTERNAL_SERVER_ERROR.value());
+        };
+
+        post("/api/orders", "key-1", chain);
+        post("/api/orders", "key-1", chain);
+
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void testRequestsWithoutAKeyAlwaysRun() throws Exception {
+        FilterChain chain = created();
+
+        post("/api/orders", null, chain);
+        post("/api/orders", null, chain);
+
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void testOverlongKeyIsRejected() throws Exception {
+        MockHttpServletResponse response = post("/api/orders", "k".repeat(IdempotencyFilter.MAX_KEY_LENGTH + 1), created());
+
+        assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+        assertEquals(0, executions.get());
+    }
+
+    private FilterChain created() {
+        return (request, response) -> {
+            request.getInputStream().readAllBytes();
+            int execution = executions.incrementAndGet();
+            ((HttpServletResponse) response).setStatus(HttpStatus.CREATED.value());
+            response.setContentType("application/json");
+            response.getWriter().write("{\"id\":" + execution + "}");
+        };
+    }
+
+    private MockHttpServletResponse post(String uri, String idempotencyKey, FilterChain chain) throws Exception {
+        return post(uri, idempotencyKey, "{}", chain);
+    }
+
+    private MockHttpServletResponse post(String uri, String idempotencyKey, String body, FilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        if (idempotencyKey != null) request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+}
@@ -0,0 +1,74 @@
+package com.teamviewer.challenge.ecommerce.idempotency;
+
+import com.teamviewer.challenge.ecommerce.exception.IdempotencyKeyInUseException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryIdempotencyStoreTest {
+
+    private static final IdempotentResponse CREATED = new IdempotentResponse(201, "application/json", "{}".getBytes(StandardCharsets.UTF_8), "hash");
+
+    private final InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(100, Duration.ofHours(1), Duration.ofSeconds(5));
+
+    @Test
+    void testClaimOrAwait_FirstCallerClaimsAndRetriesGetTheStoredResponse() {
+        assertTrue(store.claimOrAwait("key", "first").isEmpty());
+        store.complete("key", "first", CREATED);
+
+        assertSame(CREATED, store.claimOrAwait("key", "second").orElseThrow());
+        assertTrue(store.claimOrAwait("other", "second").isEmpty());
+    }
+
+    @Test
+    void testClaimOrAwait_DuplicateWaitsForTheInFlightRequest() throws Exception {
+        assertTrue(store.claimOrAwait("key", "first").isEmpty());
+        CompletableFuture<Optional<IdempotentResponse>> duplicate = CompletableFuture.supplyAsync(() -> store.claimOrAwait("key", "second"));
+        Thread.sleep(100);
+        assertFalse(duplicate.isDone());
+
+        store.complete("key", "first", CREATED);
+
+        assertSame(CREATED, duplicate.get(5, TimeUnit.SECONDS).orElseThrow());
+    }
+
+    @Test
+    void testClaimOrAwait_DuplicateTakesOverAReleasedKey() throws Exception {
+        assertTrue(store.claimOrAwait("key", "first").isEmpty());
+        CompletableFuture<Optional<IdempotentResponse>> duplicate = CompletableFuture.supplyAsync(() -> store.claimOrAwait("key", "second"));
+        Thread.sleep(100);
+
+        store.release("key", "first");
+
+        assertTrue(duplicate.get(5, TimeUnit.SECONDS).isEmpty());
+    }
+
+    @Test
+    void testCompleteAndRelease_IgnoreAnotherTokensClaim() {
+        InMemoryIdempotencyStore impatientStore = new InMemoryIdempotencyStore(100, Duration.ofHours(1), Duration.ofMillis(50));
+        assertTrue(impatientStore.claimOrAwait("key", "first").isEmpty());
+        impatientStore.release("key", "first");
+        assertTrue(impatientStore.claimOrAwait("key", "second").isEmpty());
+
+        impatientStore.release("key", "first");
+        impatientStore.complete("key", "first", CREATED);
+
+        assertThrows(IdempotencyKeyInUseException.class, () -> impatientStore.claimOrAwait("key", "third"));
+        impatientStore.complete("key", "second", CREATED);
+        assertSame(CREATED, impatientStore.claimOrAwait("key", "third").orElseThrow());
+    }
+
+    @Test
+    void testClaimOrAwait_GivesUpAfterTheWaitTimeout() {
+        InMemoryIdempotencyStore impatientStore = new InMemoryIdempotencyStore(100, Duration.ofHours(1), Duration.ofMillis(50));
+        assertTrue(impatientStore.claimOrAwait("key", "first").isEmpty());
+
+        assertThrows(IdempotencyKeyInUseException.class, () -> impatientStore.claimOrAwait("key", "second"));
+    }
+}
@@ -0,0 +1,63 @@
+package com.teamviewer.challenge.ecommerce.replica;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadYourWritesFilterTest {
+
+    private final ReadYourWritesFilter filter = new ReadYourWritesFilter(Duration.ofSeconds(5));
+    private final AtomicBoolean replicaAllowed = new AtomicBoolean();
+    private final FilterChain chain = (request, response) -> replicaAllowed.set(ReplicaRouting.isReplicaAllowed());
+
+    @Test
+    void testReadMayUseTheReplicaForTheRequestOnly() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/products"), new MockHttpServletResponse(), chain);
+
+        assertTrue(replicaAllowed.get());
+        assertFalse(ReplicaRouting.isReplicaAllowed());
+    }
+
+    @Test
+    void testWritePinsTheClientToThePrimary() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/orders"), response, chain);
+
+        assertFalse(replicaAllowed.get());
+        Cookie cookie = response.getCookie(ReadYourWritesFilter.PRIMARY_UNTIL_COOKIE);
+        assertNotNull(cookie);
+        assertEquals(5, cookie.getMaxAge());
+        assertTrue(Long.parseLong(cookie.getValue()) > System.currentTimeMillis());
+    }
+
+    @Test
+    void testReadRightAfterAWriteUsesThePrimary() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders/1");
+        request.setCookies(new Cookie(ReadYourWritesFilter.PRIMARY_UNTIL_COOKIE, Long.toString(System.currentTimeMillis() + 5000)));
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertFalse(replicaAllowed.get());
+    }
+
+    @Test
+    void testExpiredOrMalformedPinIsIgnored() throws Exception {
+        MockHttpServletRequest expired = new MockHttpServletRequest("GET", "/api/orders/1");
+        expired.setCookies(new Cookie(ReadYourWritesFilter.PRIMARY_UNTIL_COOKIE, Long.toString(System.currentTimeMillis() - 1)));
+        filter.doFilter(expired, new MockHttpServletResponse(), chain);
+        assertTrue(replicaAllowed.get());
+
+        MockHttpServletRequest malformed = new MockHttpServletRequest("HEAD", "/api/orders/1");
+        malformed.setCookies(new Cookie(ReadYourWritesFilter.PRIMARY_UNTIL_COOKIE, "soon"));
+        filter.doFilter(malformed, new MockHttpServletResponse(), chain);
+        assertTrue(replicaAllowed.get());
+    }
+}
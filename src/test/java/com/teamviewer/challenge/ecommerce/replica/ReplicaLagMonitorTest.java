@@ -0,0 +1,63 @@
+package com.teamviewer.challenge.ecommerce.replica;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReplicaLagMonitorTest {
+
+    private static final String LAG_QUERY = "SELECT 0";
+
+    @Mock
+    private JdbcTemplate replica;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReplicaLagMonitor lagMonitor;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        lagMonitor = new ReplicaLagMonitor(replica, LAG_QUERY, Duration.ofSeconds(1), Duration.ofSeconds(1), meterRegistry);
+    }
+
+    @Test
+    void testReplicaIsNotUsedBeforeTheFirstCheck() {
+        assertFalse(lagMonitor.isReplicaUsable());
+    }
+
+    @Test
+    void testReplicaIsUsedOnlyWithinTheMaximumLag() {
+        when(replica.queryForObject(LAG_QUERY, Double.class)).thenReturn(0.2, 3.5, 0.0);
+
+        lagMonitor.check();
+        assertTrue(lagMonitor.isReplicaUsable());
+        lagMonitor.check();
+        assertFalse(lagMonitor.isReplicaUsable());
+        assertEquals(3.5, meterRegistry.get(ReplicaLagMonitor.LAG_METER).gauge().value());
+        lagMonitor.check();
+        assertTrue(lagMonitor.isReplicaUsable());
+    }
+
+    @Test
+    void testUnreachableReplicaIsNotUsed() {
+        when(replica.queryForObject(LAG_QUERY, Double.class))
+                .thenReturn(0.0)
+                .thenThrow(new DataAccessResourceFailureException("connection refused"));
+
+        lagMonitor.check();
+        lagMonitor.check();
+
+        assertFalse(lagMonitor.isReplicaUsable());
+        assertTrue(Double.isNaN(meterRegistry.get(ReplicaLagMonitor.LAG_METER).gauge().value()));
+    }
+}
@@ -0,0 +1,90 @@
+package com.teamviewer.challenge.ecommerce.replica;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+    @Mock
+    private DataSource replica;
+    @Mock
+    private ReplicaLagMonitor lagMonitor;
+
+    private ReplicaRoutingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(lagMonitor.isReplicaUsable()).thenReturn(true);
+        dataSource = new ReplicaRoutingDataSource(primary, replica, lagMonitor);
+        dataSource.afterPropertiesSet();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        ReplicaRouting.clear();
+    }
+
+    @Test
+    void testReadOnlyTransactionOfAnAllowedRequestUsesTheReplica() throws Exception {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        ReplicaRouting.allowReplica();
+
+        dataSource.getConnection();
+
+        verify(replica).getConnection();
+        verifyNoInteractions(primary);
+    }
+
+    @Test
+    void testWritingTransactionUsesThePrimary() throws Exception {
+        ReplicaRouting.allowReplica();
+
+        dataSource.getConnection();
+
+        verify(primary).getConnection();
+        verifyNoInteractions(replica);
+    }
+
+    @Test
+    void testLaggingReplicaIsSkipped() throws Exception {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        ReplicaRouting.allowReplica();
+        when(lagMonitor.isReplicaUsable()).thenReturn(false);
+
+        dataSource.getConnection();
+
+        verify(primary).getConnection();
+        verifyNoInteractions(replica);
+    }
+
+    @Test
+    void testOnPrimaryOverridesTheRequestUntilItReturns() throws Exception {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        ReplicaRouting.allowReplica();
+
+        ReplicaRouting.onPrimary(() -> {
+            try {
+                return dataSource.getConnection();
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+
+        verify(primary).getConnection();
+        verifyNoInteractions(replica);
+        assertTrue(ReplicaRouting.isReplicaAllowed());
+    }
+}
@@ -0,0 +1,309 @@
+package com.teamviewer.challenge.ecommerce.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Every repository query that looks up a few rows is explained, with its real parameters, against the migrated schema
+// filled to production-like sizes, and must not scan any of the large tables sequentially. Left out on purpose, since
+// they read whole tables: the name and referenced product streams that build the in-memory filters, the export stream,
+// the sales rebuild statements and the product import.
+// Runs on PostgreSQL in Docker and is skipped where Docker is not available.
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+class QueryPlanTest {
+
+    private static final Set<String> LARGE_TABLES = Set.of("products", "orders", "order_items", "product_sales", "idempotency_keys");
+    private static final Pattern SEQ_SCAN = Pattern.compile("Seq Scan on (\\w+)");
+    private static final int PRODUCTS = 100_000;
+    private static final int ORDERS = 100_000;
+    private static final int ORDER_ITEMS = 300_000;
+    private static final int IDEMPOTENCY_KEYS = 100_000;
+
+    @Container
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    private static boolean seeded;
+
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private ProductSearchRepository productSearchRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+    @Autowired
+    private ProductSalesRepository productSalesRepository;
+    @Autowired
+    private DailySalesRepository dailySalesRepository;
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.r2dbc.url", () -> "r2dbc:postgresql://" + postgres.getHost() + ":"
+                + postgres.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT) + "/" + postgres.getDatabaseName());
+        registry.add("spring.r2dbc.username", postgres::getUsername);
+        registry.add("spring.r2dbc.password", postgres::getPassword);
+    }
+
+    // Two to three items for each order, a sixth of the items in no order yet, and sales for every product
+    @BeforeEach
+    void seed() {
+        if (seeded) return;
+        jdbcTemplate.update("INSERT INTO products (id, name, price, units_in_stock, version) " +
+                "SELECT i, 'Product ' || i, 9.99, 1000, 0 FROM generate_series(1, ?) i", PRODUCTS);
+        jdbcTemplate.update("INSERT INTO orders (id, customer_name, address, total_price, created_at, version) " +
+                "SELECT i, 'Customer ' || i, i || ' Main Street', 29.97, now() - (i % 365) * interval '1 day', 0 " +
+                "FROM generate_series(1, ?) i", ORDERS);
+        jdbcTemplate.update("INSERT INTO order_items (id, order_id, product_id, quantity, order_item_price) " +
+                "SELECT i, CASE WHEN i <= ? THEN (i - 1) % ? + 1 END, (i::bigint * 7919) % ? + 1, 3, 29.97 " +
+                "FROM generate_series(1, ?) i", ORDER_ITEMS * 5 / 6, ORDERS, PRODUCTS, ORDER_ITEMS);
+        jdbcTemplate.update("INSERT INTO product_sales (product_id, units_sold, revenue) " +
+                "SELECT i, i % 500, (i % 500) * 9.99 FROM generate_series(1, ?) i", PRODUCTS);
+        jdbcTemplate.update("INSERT INTO daily_sales (sales_day, orders, units_sold, revenue) " +
+                "SELECT current_date - i, 300, 900, 8991 FROM generate_series(0, 364) i");
+        // Purged every few minutes, so only a few keys are past the 24h expiry at any time
+        jdbcTemplate.update("INSERT INTO idempotency_keys (idempotency_key, created_at, response_status, content_type, body) " +
+                "SELECT 'key-' || i, now() - (i % 1500) * interval '1 minute', 201, 'application/json', '\\x7b7d' " +
+                "FROM generate_series(1, ?) i", IDEMPOTENCY_KEYS);
+        for (String sequence : List.of("products_seq", "orders_seq", "order_items_seq")) {
+            jdbcTemplate.execute("SELECT setval('" + sequence + "', " + ORDER_ITEMS + ")");
+        }
+        jdbcTemplate.execute("ANALYZE");
+        seeded = true;
+    }
+
+    @Test
+    void testProductQueries() {
+        assertNoSequentialScan("findById", () -> productRepository.findById(11L));
+        assertNoSequentialScan("existsByNameIgnoreCase", () -> productRepository.existsByNameIgnoreCase("PRODUCT 12"));
+        assertNoSequentialScan("findByNameIgnoreCase", () -> productRepository.findByNameIgnoreCase("product 13"));
+        assertNoSequentialScan("findPageAfter", () -> productRepository.findPageAfter(50_000L, PageRequest.of(0, 51)));
+        assertNoSequentialScan("findExistingLowerNames",
+                () -> productRepository.findExistingLowerNames(List.of("product 14", "product 15")));
+        assertNoSequentialScan("findResponsesByIdIn", () -> productRepository.findResponsesByIdIn(List.of(14L, 15L)));
+        assertNoSequentialScan("search", () -> productSearchRepository.search(List.of("product", "4321"), 0, 51));
+        assertNoSequentialScan("findUnitsInStockById", () -> productRepository.findUnitsInStockById(16L));
+        assertNoSequentialScan("lockStockByIdIn", () -> inRolledBackTransaction(() -> productRepository.lockStockByIdIn(List.of(17L, 18L))));
+        assertNoSequentialScan("reserveStock", () -> inRolledBackTransaction(() -> productRepository.reserveStock(19L, 1)));
+        assertNoSequentialScan("releaseStock", () -> inRolledBackTransaction(() -> productRepository.releaseStock(20L, 1)));
+        assertNoSequentialScan("reserveStockAll",
+                () -> inRolledBackTransaction(() -> productRepository.reserveStockAll(new Long[]{21L, 22L}, new Integer[]{1, 1})));
+    }
+
+    @Test
+    void testOrderQueries() {
+        assertNoSequentialScan("findById", () -> orderRepository.findById(31L));
+        assertNoSequentialScan("existsByCustomerNameIgnoreCase", () -> orderRepository.existsByCustomerNameIgnoreCase("CUSTOMER 32"));
+        assertNoSequentialScan("findByCustomerNameIgnoreCase", () -> orderRepository.findByCustomerNameIgnoreCase("customer 33"));
+        assertNoSequentialScan("findByIdGreaterThanOrderByIdAsc",
+                () -> orderRepository.findByIdGreaterThanOrderByIdAsc(50_000L, PageRequest.of(0, 51)));
+        assertNoSequentialScan("findVersionById", () -> orderRepository.findVersionById(34L));
+        assertNoSequentialScan("findVersionPageAfter", () -> orderRepository.findVersionPageAfter(50_000L, PageRequest.of(0, 51)));
+    }
+
+    @Test
+    void testOrderItemQueries() {
+        assertNoSequentialScan("existsByProductId", () -> orderItemRepository.existsByProductId(41L));
+        assertNoSequentialScan("findPageAfter", () -> orderItemRepository.findPageAfter(150_000L, PageRequest.of(0, 51)));
+        assertNoSequentialScan("findResponsesByOrderIdIn", () -> orderItemRepository.findResponsesByOrderIdIn(List.of(42L, 43L, 44L)));
+        assertNoSequentialScan("loadAllById", () -> inRolledBackTransaction(() -> orderItemRepository.loadAllById(List.of(45L, 46L))));
+    }
+
+    @Test
+    void testSalesQueries() {
+        assertNoSequentialScan("findAllBy", () -> productSalesRepository.findAllBy(
+                PageRequest.of(0, 50, Sort.by(Sort.Direction.DESC, "revenue", "productId"))));
+        assertNoSequentialScan("add",
+                () -> inRolledBackTransaction(() -> productSalesRepository.add(51L, 3, new BigDecimal("29.97"))));
+        assertNoSequentialScan("findByDayBetweenOrderByDayAsc",
+                () -> dailySalesRepository.findByDayBetweenOrderByDayAsc(LocalDate.now().minusDays(30), LocalDate.now()));
+    }
+
+    @Test
+    void testIdempotencyQueries() {
+        Instant now = Instant.now();
+        assertNoSequentialScan("findById", () -> idempotencyRecordRepository.findById("key-61"));
+        assertNoSequentialScan("reclaim", () -> inRolledBackTransaction(() -> idempotencyRecordRepository.reclaim("key-62", "token", now,
+                now.minus(5, ChronoUnit.MINUTES), now.minus(24, ChronoUnit.HOURS))));
+        assertNoSequentialScan("complete", () -> inRolledBackTransaction(
+                () -> idempotencyRecordRepository.complete("key-63", "token", 201, "application/json", new byte[0], "hash")));
+        assertNoSequentialScan("release", () -> inRolledBackTransaction(() -> idempotencyRecordRepository.release("key-64", "token")));
+        assertNoSequentialScan("deleteExpired",
+                () -> inRolledBackTransaction(() -> idempotencyRecordRepository.deleteExpired(now.minus(24, ChronoUnit.HOURS))));
+    }
+
+    private void assertNoSequentialScan(String query, Runnable call) {
+        ExplainingDataSource.start();
+        try {
+            call.run();
+        } finally {
+            ExplainingDataSource.stop();
+        }
+        assertFalse(ExplainingDataSource.plans.isEmpty(), query + " ran no statement");
+        for (String plan : ExplainingDataSource.plans) {
+            Matcher seqScan = SEQ_SCAN.matcher(plan);
+            while (seqScan.find()) {
+                assertFalse(LARGE_TABLES.contains(seqScan.group(1)), query + " scans " + seqScan.group(1) + ":\n" + plan);
+            }
+        }
+    }
+
+    private void inRolledBackTransaction(Runnable call) {
+        transactionTemplate.executeWithoutResult(status -> {
+            call.run();
+            status.setRollbackOnly();
+        });
+    }
+
+    @TestConfiguration
+    static class ExplainingConfig {
+
+        @Bean
+        static BeanPostProcessor explainingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return "dataSource".equals(beanName) ? new ExplainingDataSource((DataSource) bean) : bean;
+                }
+            };
+        }
+    }
+
+    // Explains every query and update the calling thread runs, on the same connection and with the same parameters,
+    // right before running it
+    static class ExplainingDataSource extends DelegatingDataSource {
+
+        static final List<String> plans = new ArrayList<>();
+        private static volatile Thread explained;
+
+        ExplainingDataSource(DataSource target) {
+            super(target);
+        }
+
+        static void start() {
+            plans.clear();
+            explained = Thread.currentThread();
+        }
+
+        static void stop() {
+            explained = null;
+        }
+
+        private static boolean isExplained() {
+            return explained == Thread.currentThread();
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return explaining(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return explaining(super.getConnection(username, password));
+        }
+
+        private static Connection explaining(Connection connection) {
+            return proxy(Connection.class, connection, (method, args, result) ->
+                    method.getName().equals("prepareStatement") && isExplainable((String) args[0])
+                            ? explaining(connection, (String) args[0], (PreparedStatement) result)
+                            : result);
+        }
+
+        private static PreparedStatement explaining(Connection connection, String sql, PreparedStatement statement) {
+            List<Object[]> parameters = new ArrayList<>();
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                    (proxy, method, args) -> {
+                        String name = method.getName();
+                        if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                            parameters.add(new Object[]{method, args});
+                        } else if (name.equals("clearParameters")) {
+                            parameters.clear();
+                        } else if (name.startsWith("execute") && args == null && isExplained()) {
+                            plans.add(explain(connection, sql, parameters));
+                        }
+                        return invoke(method, statement, args);
+                    });
+        }
+
+        private static String explain(Connection connection, String sql, List<Object[]> parameters) throws Exception {
+            try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+                for (Object[] parameter : parameters) invoke((Method) parameter[0], explain, (Object[]) parameter[1]);
+                StringBuilder plan = new StringBuilder(sql).append('\n');
+                try (ResultSet rows = explain.executeQuery()) {
+                    while (rows.next()) plan.append(rows.getString(1)).append('\n');
+                }
+                return plan.toString();
+            }
+        }
+
+        private static boolean isExplainable(String sql) {
+            String statement = sql.stripLeading().toLowerCase(Locale.ROOT);
+            return statement.startsWith("select") || statement.startsWith("update") || statement.startsWith("delete")
+                    || statement.startsWith("with");
+        }
+
+        private interface ResultMapper {
+            Object map(Method method, Object[] args, Object result) throws Exception;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static <T> T proxy(Class<T> type, T target, ResultMapper mapper) {
+            return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                    (proxy, method, args) -> mapper.map(method, args, invoke(method, target, args)));
+        }
+
+        private static Object invoke(Method method, Object target, Object[] args) throws Exception {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause() instanceof Exception cause ? cause : ex;
+            }
+        }
+    }
+}
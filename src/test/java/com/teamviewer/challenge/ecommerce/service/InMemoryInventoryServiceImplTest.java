@@ -0,0 +1,305 @@
+package com.teamviewer.challenge.ecommerce.service;
+
+import com.teamviewer.challenge.ecommerce.cache.ProductCache;
+import com.teamviewer.challenge.ecommerce.cache.SecondLevelCache;
+import com.teamviewer.challenge.ecommerce.entity.InventoryCheckpoint;
+import com.teamviewer.challenge.ecommerce.repository.InventoryCheckpointRepository;
+import com.teamviewer.challenge.ecommerce.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class InMemoryInventoryServiceImplTest {
+
+    @TempDir
+    Path journalDir;
+
+    @Mock
+    private ProductRepository productRepository;
+    @Mock
+    private InventoryCheckpointRepository checkpointRepository;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private SecondLevelCache secondLevelCache;
+    @Mock
+    private ProductCache productCache;
+
+    private InMemoryInventoryServiceImpl inventoryService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        MockitoAnnotations.openMocks(this);
+        inventoryService = newInventoryService();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) TransactionSynchronizationManager.clearSynchronization();
+        inventoryService.stop();
+    }
+
+    @Test
+    void testReserve_DecidesInMemory() {
+        when(productRepository.findUnitsInStockById(1L)).thenReturn(Optional.of(10));
+
+        assertTrue(inventoryService.reserve(1L, 6));
+        assertFalse(inventoryService.reserve(1L, 5));
+        assertTrue(inventoryService.reserve(1L, 4));
+
+        verify(productRepository, times(1)).findUnitsInStockById(1L);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testReserveAll_ReservesNothingWhenAProductIsShort() {
+        when(productRepository.findUnitsInStockById(1L)).thenReturn(Optional.of(10));
+        when(productRepository.findUnitsInStockById(2L)).thenReturn(Optional.of(1));
+        when(productRepository.findUnitsInStockById(3L)).thenReturn(Optional.of(5));
+
+        assertEquals(Set.of(2L), inventoryService.reserveAll(Map.of(1L, 4, 2L, 2, 3L, 5)));
+
+        assertTrue(inventoryService.reserve(1L, 10));
+        assertTrue(inventoryService.reserve(3L, 5));
+    }
+
+    @Test
+    void testReserveAll_ReleasesAfterRollback() {
+        when(productRepository.findUnitsInStockById(1L)).thenReturn(Optional.of(10));
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertEquals(Set.of(), inventoryService.reserveAll(Map.of(1L, 6)));
+        assertFalse(inventoryService.reserve(1L, 5));
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        assertTrue(inventoryService.reserve(1L, 10));
+    }
+
+    @Test
+    void testReserveAndRelease_UndoneAfterRollback() {
+        when(productRepository.findUnitsInStockById(1L)).thenReturn(Optional.of(10));
+        when(productRepository.findUnitsInStockById(2L)).thenReturn(Optional.of(0));
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertTrue(inventoryService.reserve(1L, 6));
+        inventoryService.release(2L, 3);
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clearSynchronization();
+        assertTrue(inventoryService.reserve(1L, 10));
+        assertFalse(inventoryService.reserve(2L, 1));
+    }
+
+    @Test
+    void testReserve_JournaledOnlyOnceCommitted() throws Exception {
+        when(productRepository.findUnitsInStockById(1L)).thenReturn(Optional.of(10));
+        TransactionSynchronizationManager.initSynchronization();
+        assertTrue(inventoryService.reserve(1L, 6));
+
+        newInventoryService().stop();
+        verifyNoInteractions(jdbcTemplate);
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        newInventoryService().stop();
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void testReserve_RolledBackNeverJournaled() throws Exception {
+        when(productRepository.findUnitsInStockById(1L)).thenReturn(Optional.of(10));
+        TransactionSynchronizationManager.initSynchronization();
+        assertTrue(inventoryService.reserve(1L, 6));
+
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        newInventoryService().stop();
+        inventoryService.flush();
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testReserve_ReloadedCounterCountsUncommittedReservations() {
+        when(productRepository.findUnitsInStockById(1L)).thenReturn(Optional.of(10));
+        TransactionSynchronizationManager.initSynchronization();
+        assertTrue(inventoryService.reserve(1L, 6));
+
+        inventoryService.evict(1L);
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertFalse(inventoryService.reserve(1L, 5));
+        assertTrue(inventoryService.reserve(1L, 4));
+    }
+
+    @Test
+    void testEvict_WaitsForTheCommit() {
+        when(productRepository.findUnitsInStockById(1L)).thenReturn(Optional.of(10), Optional.empty());
+        assertTrue(inventoryService.reserve(1L, 1));
+        TransactionSynchronizationManager.initSynchronization();
+
+        inventoryService.evict(1L);
+        assertTrue(inventoryService.reserve(1L, 1));
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertFalse(inventoryService.reserve(1L, 1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStockSet_ReplacesCommittedReservationsAndKeepsConcurrentOnes() throws Exception {
+        when(productRepository.findUnitsInStockById(1L)).thenReturn(Optional.of(10));
+        assertTrue(inventoryService.reserve(1L, 3));
+
+        // The update sets 10 units to 20 while another transaction reserves 4
+        TransactionSynchronizationManager.initSynchronization();
+        inventoryService.stockSet(1L, 10, 20);
+        List<TransactionSynchronization> update = TransactionSynchronizationManager.getSynchronizations();
+        List<TransactionSynchronization> reservation = inOtherThread(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                assertTrue(inventoryService.reserve(1L, 4));
+                return TransactionSynchronizationManager.getSynchronizations();
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        });
+        assertFalse(inventoryService.reserve(1L, 4));
+
+        update.forEach(synchronization -> synchronization.beforeCommit(false));
+        update.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        reservation.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        TransactionSynchronizationManager.clearSynchronization();
+
+        // Only the reservation committed after the update is left to write, also when the journal is replayed
+        newInventoryService().stop();
+        ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), updates.capture());
+        assertArrayEquals(new Object[]{-4, 1L}, updates.getValue().get(0));
+
+        assertFalse(inventoryService.reserve(1L, 17));
+        assertTrue(inventoryService.reserve(1L, 16));
+        reset(jdbcTemplate);
+        inventoryService.flush();
+        verify(jdbcTemplate).batchUpdate(anyString(), updates.capture());
+        assertArrayEquals(new Object[]{-20, 1L}, updates.getValue().get(0));
+    }
+
+    @Test
+    void testStockSet_RollbackKeepsTheCounter() {
+        when(productRepository.findUnitsInStockById(1L)).thenReturn(Optional.of(10));
+        assertTrue(inventoryService.reserve(1L, 3));
+        TransactionSynchronizationManager.initSynchronization();
+
+        inventoryService.stockSet(1L, 10, 20);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertFalse(inventoryService.reserve(1L, 8));
+        assertTrue(inventoryService.reserve(1L, 7));
+    }
+
+    @Test
+    void testReserve_UnknownProduct() {
+        when(productRepository.findUnitsInStockById(1L)).thenReturn(Optional.empty());
+
+        assertFalse(inventoryService.reserve(1L, 1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlush_WritesNetDeltaAndCheckpoint() {
+        when(productRepository.findUnitsInStockById(1L)).thenReturn(Optional.of(10));
+
+        inventoryService.reserve(1L, 6);
+        inventoryService.release(1L, 2);
+        inventoryService.flush();
+
+        ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), updates.capture());
+        assertEquals(1, updates.getValue().size());
+        assertArrayEquals(new Object[]{-4, 1L}, updates.getValue().get(0));
+        ArgumentCaptor<InventoryCheckpoint> checkpoint = ArgumentCaptor.forClass(InventoryCheckpoint.class);
+        verify(checkpointRepository).save(checkpoint.capture());
+        assertEquals(2L, checkpoint.getValue().getLastSequence());
+        verify(secondLevelCache).evictProducts(Set.of(1L));
+        verify(productCache).invalidateAll(Set.of(1L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlush_FailureKeepsDeltasPending() {
+        when(productRepository.findUnitsInStockById(1L)).thenReturn(Optional.of(10));
+        inventoryService.reserve(1L, 3);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new IllegalStateException("database down"));
+
+        assertThrows(IllegalStateException.class, () -> inventoryService.flush());
+
+        reset(jdbcTemplate);
+        inventoryService.flush();
+        ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), updates.capture());
+        assertArrayEquals(new Object[]{-3, 1L}, updates.getValue().get(0));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStart_ReplaysJournalAfterCheckpoint() throws Exception {
+        when(productRepository.findUnitsInStockById(1L)).thenReturn(Optional.of(10));
+        when(productRepository.findUnitsInStockById(2L)).thenReturn(Optional.of(10));
+        inventoryService.reserve(1L, 1);
+        inventoryService.reserve(2L, 2);
+        inventoryService.reserve(1L, 3);
+        when(checkpointRepository.findById(InventoryCheckpoint.SINGLETON_ID))
+                .thenReturn(Optional.of(new InventoryCheckpoint(InventoryCheckpoint.SINGLETON_ID, 1L)));
+
+        InMemoryInventoryServiceImpl restarted = newInventoryService();
+
+        ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), updates.capture());
+        assertEquals(2, updates.getValue().size());
+        assertArrayEquals(new Object[]{-3, 1L}, updates.getValue().get(0));
+        assertArrayEquals(new Object[]{-2, 2L}, updates.getValue().get(1));
+        restarted.stop();
+    }
+
+    private static <T> T inOtherThread(Callable<T> task) throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            return executor.submit(task).get();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private InMemoryInventoryServiceImpl newInventoryService() throws Exception {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        InMemoryInventoryServiceImpl service = new InMemoryInventoryServiceImpl(productRepository, checkpointRepository,
+                jdbcTemplate, transactionTemplate, secondLevelCache, productCache, journalDir.toString(), 60_000, 1000);
+        service.start();
+        return service;
+    }
+}
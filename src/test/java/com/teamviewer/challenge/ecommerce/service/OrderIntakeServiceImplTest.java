@@ -0,0 +1,143 @@
+package com.teamviewer.challenge.ecommerce.service;
+
+import com.teamviewer.challenge.ecommerce.dto.CheckoutDto;
+import com.teamviewer.challenge.ecommerce.dto.OrderItemDto;
+import com.teamviewer.challenge.ecommerce.entity.Order;
+import com.teamviewer.challenge.ecommerce.exception.InsufficientStockException;
+import com.teamviewer.challenge.ecommerce.exception.IntakeQueueFullException;
+import com.teamviewer.challenge.ecommerce.exception.ResourceNotFoundException;
+import com.teamviewer.challenge.ecommerce.model.OrderIntakeStatus;
+import com.teamviewer.challenge.ecommerce.model.SalesDelta;
+import com.teamviewer.challenge.ecommerce.service.interfaces.InventoryService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OrderIntakeServiceImplTest {
+
+    @Mock
+    private OrderServiceImpl orderService;
+    @Mock
+    private SalesStatsServiceImpl salesStatsService;
+    @Mock
+    private InventoryService inventoryService;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OrderIntakeServiceImpl intakeService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(orderService.isValid(any(CheckoutDto.class))).thenReturn(true);
+        meterRegistry = new SimpleMeterRegistry();
+        intakeService = new OrderIntakeServiceImpl(orderService, salesStatsService, inventoryService,
+                new TransactionTemplate(transactionManager), meterRegistry, 1, 1, 100, Duration.ofHours(1));
+    }
+
+    @Test
+    void testSubmit_QueuesUntilTheQueueIsFull() {
+        OrderIntakeStatus queued = intakeService.submit(checkout("Ann", 1L));
+
+        assertEquals(OrderIntakeStatus.State.QUEUED, queued.getState());
+        assertSame(queued, intakeService.getStatus(queued.getTrackingId()));
+        assertEquals(1.0, meterRegistry.get(OrderIntakeServiceImpl.QUEUE_DEPTH_METER).gauge().value());
+        assertThrows(IntakeQueueFullException.class, () -> intakeService.submit(checkout("Bob", 1L)));
+    }
+
+    @Test
+    void testSubmit_InvalidCheckout() {
+        when(orderService.isValid(any(CheckoutDto.class))).thenReturn(false);
+
+        assertThrows(IllegalArgumentException.class, () -> intakeService.submit(checkout("Ann", 1L)));
+    }
+
+    @Test
+    void testGetStatus_UnknownTrackingId() {
+        assertThrows(ResourceNotFoundException.class, () -> intakeService.getStatus("unknown"));
+    }
+
+    @Test
+    void testPlace_CommitsTheGroupTogether() {
+        when(orderService.placeOrder(any(), any())).thenReturn(order(10L), order(11L));
+
+        intakeService.place(List.of(request("a", checkout("Ann", 3L, 1L)), request("b", checkout("Bob", 2L))));
+
+        verify(inventoryService).lockAll(Set.of(1L, 2L, 3L));
+        verify(orderService, times(2)).placeOrder(any(), any(SalesDelta.class));
+        verify(salesStatsService, times(1)).apply(any());
+        verify(transactionManager, times(1)).commit(any());
+        verify(orderService, never()).checkout(any());
+        assertEquals(OrderIntakeStatus.completed("a", 10L), intakeService.getStatus("a"));
+        assertEquals(OrderIntakeStatus.completed("b", 11L), intakeService.getStatus("b"));
+        assertEquals(2.0, meterRegistry.get(OrderIntakeServiceImpl.BATCH_SIZE_METER).summary().totalAmount());
+    }
+
+    @Test
+    void testPlace_RejectedOrderDoesNotFailTheGroup() {
+        when(orderService.placeOrder(any(), any()))
+                .thenReturn(order(10L))
+                .thenThrow(new InsufficientStockException("Not enough units in stock for product: A"));
+
+        intakeService.place(List.of(request("a", checkout("Ann", 1L)), request("b", checkout("Bob", 1L))));
+
+        verify(transactionManager, times(1)).commit(any());
+        assertEquals(OrderIntakeStatus.completed("a", 10L), intakeService.getStatus("a"));
+        assertEquals(OrderIntakeStatus.failed("b", HttpStatus.BAD_REQUEST, "Not enough units in stock for product: A"),
+                intakeService.getStatus("b"));
+    }
+
+    @Test
+    void testPlace_FailedCommitPlacesEachOrderAlone() {
+        when(orderService.placeOrder(any(), any())).thenReturn(order(10L), order(11L));
+        doThrow(new TransactionSystemException("commit failed")).when(transactionManager).commit(any());
+        CheckoutDto ann = checkout("Ann", 1L);
+        CheckoutDto bob = checkout("Bob", 1L);
+        when(orderService.checkout(ann)).thenReturn(order(20L));
+        when(orderService.checkout(bob)).thenThrow(new IllegalArgumentException("Order with the same customer name already exists."));
+
+        intakeService.place(List.of(request("a", ann), request("b", bob)));
+
+        assertEquals(OrderIntakeStatus.completed("a", 20L), intakeService.getStatus("a"));
+        assertEquals(OrderIntakeStatus.failed("b", HttpStatus.BAD_REQUEST, "Order with the same customer name already exists."),
+                intakeService.getStatus("b"));
+    }
+
+    private static OrderIntakeServiceImpl.IntakeRequest request(String trackingId, CheckoutDto checkoutDto) {
+        return new OrderIntakeServiceImpl.IntakeRequest(trackingId, checkoutDto);
+    }
+
+    private static CheckoutDto checkout(String customerName, Long... productIds) {
+        CheckoutDto checkoutDto = new CheckoutDto();
+        checkoutDto.setCustomerName(customerName);
+        checkoutDto.setAddress("123 Street");
+        checkoutDto.setItems(Arrays.stream(productIds).map(productId -> {
+            OrderItemDto item = new OrderItemDto();
+            item.setProductId(productId);
+            item.setQuantity(1);
+            return item;
+        }).toList());
+        return checkoutDto;
+    }
+
+    private static Order order(Long id) {
+        Order order = new Order();
+        order.setId(id);
+        return order;
+    }
+}
@@ -1,18 +1,27 @@
 package com.teamviewer.challenge.ecommerce.service;
 
+import com.teamviewer.challenge.ecommerce.cache.ProductCache;
+import com.teamviewer.challenge.ecommerce.cache.ReferencedProducts;
 import com.teamviewer.challenge.ecommerce.dto.OrderItemDto;
+import com.teamviewer.challenge.ecommerce.entity.Order;
 import com.teamviewer.challenge.ecommerce.entity.OrderItem;
 import com.teamviewer.challenge.ecommerce.entity.Product;
 import com.teamviewer.challenge.ecommerce.exception.InsufficientStockException;
 import com.teamviewer.challenge.ecommerce.exception.ResourceNotFoundException;
+import com.teamviewer.challenge.ecommerce.model.BatchItemResult;
+import com.teamviewer.challenge.ecommerce.model.OrderItemResponse;
+import com.teamviewer.challenge.ecommerce.model.ProductResponse;
 import com.teamviewer.challenge.ecommerce.repository.OrderItemRepository;
-import com.teamviewer.challenge.ecommerce.repository.OrderRepository;
 import com.teamviewer.challenge.ecommerce.repository.ProductRepository;
+import com.teamviewer.challenge.ecommerce.service.interfaces.InventoryService;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
@@ -20,8 +29,7 @@ import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.Mockito.any;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 public class OrderItemServiceImplTest {
 
@@ -31,9 +39,15 @@ public class OrderItemServiceImplTest {
     @Mock
     private OrderItemRepository orderItemRepository;
     @Mock
-    private OrderRepository orderRepository;
-    @Mock
     private ProductRepository productRepository;
+    @Mock
+    private InventoryService inventoryService;
+    @Mock
+    private ProductCache productCache;
+    @Mock
+    private ReferencedProducts referencedProducts;
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
 
     @BeforeEach
     public void setup() {
@@ -56,10 +70,12 @@ public class OrderItemServiceImplTest {
     @Test
     public void testCreateOrderItem_Success() {
         Product product = new Product();
+        product.setId(1L);
         product.setUnitsInStock(10);
         product.setPrice(new BigDecimal("10.00"));
 
-        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(inventoryService.reserve(1L, 5)).thenReturn(true);
+        when(productCache.get(1L)).thenReturn(Optional.of(ProductResponse.from(product)));
         when(orderItemRepository.save(any(OrderItem.class))).thenAnswer(invocation -> invocation.getArgument(0));
         OrderItemDto dto = new OrderItemDto();
         dto.setProductId(1L);
@@ -67,6 +83,20 @@ public class OrderItemServiceImplTest {
 
         OrderItem response = orderItemService.createOrderItem(dto);
         assertEquals(new BigDecimal("50.00"), response.getOrderItemPrice());
+        verify(productRepository, never()).save(any(Product.class));
+        verify(productRepository, never()).findById(any());
+        verify(productCache).invalidate(1L);
+        verify(referencedProducts).add(1L);
+    }
+
+    @Test
+    public void testCreateOrderItem_ProductNotFound() {
+        when(productCache.get(1L)).thenReturn(Optional.empty());
+        OrderItemDto dto = new OrderItemDto();
+        dto.setProductId(1L);
+        dto.setQuantity(5);
+
+        assertThrows(ResourceNotFoundException.class, () -> orderItemService.createOrderItem(dto));
     }
 
     @Test
@@ -75,7 +105,7 @@ public class OrderItemServiceImplTest {
         product.setUnitsInStock(3);
         product.setPrice(new BigDecimal("10.00"));
 
-        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(productCache.get(1L)).thenReturn(Optional.of(ProductResponse.from(product)));
         OrderItemDto dto = new OrderItemDto();
         dto.setProductId(1L);
         dto.setQuantity(5);
@@ -93,8 +123,9 @@ public class OrderItemServiceImplTest {
         OrderItem existingOrderItem = new OrderItem();
         existingOrderItem.setQuantity(4);
         existingOrderItem.setProduct(product);
+        when(inventoryService.reserve(1L, 2)).thenReturn(true);
         when(orderItemRepository.save(any(OrderItem.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(productCache.get(1L)).thenReturn(Optional.of(ProductResponse.from(product)));
         when(orderItemRepository.findById(1L)).thenReturn(Optional.of(existingOrderItem));
 
         OrderItemDto dto = new OrderItemDto();
@@ -117,7 +148,7 @@ public class OrderItemServiceImplTest {
         existingOrderItem.setProduct(product);
         existingOrderItem.setQuantity(6);
         when(orderItemRepository.save(any(OrderItem.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(productCache.get(1L)).thenReturn(Optional.of(ProductResponse.from(product)));
         when(orderItemRepository.findById(1L)).thenReturn(Optional.of(existingOrderItem));
 
         OrderItemDto dto = new OrderItemDto();
@@ -127,6 +158,7 @@ public class OrderItemServiceImplTest {
         OrderItem updatedOrderItem = orderItemService.updateOrderItem(1L, dto);
         assertEquals(4, updatedOrderItem.getQuantity().intValue());
         assertEquals(new BigDecimal("40.00"), updatedOrderItem.getOrderItemPrice());
+        verify(inventoryService).release(1L, 2);
     }
 
     @Test
@@ -141,9 +173,27 @@ public class OrderItemServiceImplTest {
         orderItem.setQuantity(5);
 
         when(orderItemRepository.findById(1L)).thenReturn(Optional.of(orderItem));
-        when(productRepository.findById(1L)).thenReturn(Optional.empty());
+        when(productCache.get(1L)).thenReturn(Optional.empty());
 
         orderItemService.deleteOrderItem(1L);
+        verify(inventoryService).release(1L, 5);
+        verify(orderItemRepository).deleteById(1L);
+    }
+
+    @Test
+    public void testUpdateAndDeleteOrderItem_InOrder() {
+        OrderItem orderItem = new OrderItem();
+        orderItem.setOrder(new Order());
+        orderItem.setQuantity(5);
+        when(orderItemRepository.findById(1L)).thenReturn(Optional.of(orderItem));
+        OrderItemDto dto = new OrderItemDto();
+        dto.setProductId(1L);
+        dto.setQuantity(2);
+
+        assertThrows(IllegalStateException.class, () -> orderItemService.updateOrderItem(1L, dto));
+        assertThrows(IllegalStateException.class, () -> orderItemService.deleteOrderItem(1L));
+        verify(inventoryService, never()).release(anyLong(), anyInt());
+        verify(orderItemRepository, never()).deleteById(any());
     }
 
     @Test
@@ -157,7 +207,7 @@ public class OrderItemServiceImplTest {
         existingOrderItem.setProduct(product);
         existingOrderItem.setQuantity(2);
 
-        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(productCache.get(1L)).thenReturn(Optional.of(ProductResponse.from(product)));
         when(orderItemRepository.findById(1L)).thenReturn(Optional.of(existingOrderItem));
 
         OrderItemDto dto = new OrderItemDto();
@@ -169,26 +219,15 @@ public class OrderItemServiceImplTest {
 
     @Test
     public void testGetAllOrderItems() {
-        Product product = new Product();
-        product.setId(1L);
-        product.setUnitsInStock(3);
-        product.setPrice(new BigDecimal("10.00"));
-        product.setName("Test");
+        OrderItemResponse item1 = new OrderItemResponse(1L, null, 1L, 3, new BigDecimal("30.00"));
+        OrderItemResponse item2 = new OrderItemResponse(2L, null, 1L, 2, new BigDecimal("20.00"));
 
-        OrderItem item1 = new OrderItem();
-        item1.setProduct(product);
-        item1.setQuantity(3);
+        List<OrderItemResponse> orderItems = Arrays.asList(item1, item2);
+        when(orderItemRepository.findPageAfter(eq(0L), any())).thenReturn(orderItems);
 
-        OrderItem item2 = new OrderItem();
-        item2.setProduct(product);
-        item2.setQuantity(2);
-
-        List<OrderItem> orderItems = Arrays.asList(item1, item2);
-        when(orderItemRepository.findAll()).thenReturn(orderItems);
-
-        List<OrderItem> result = orderItemService.getAllOrderItems();
+        List<OrderItemResponse> result = orderItemService.getAllOrderItems(null, 50).getItems();
         assertEquals(2, result.size());
-        assertEquals("Test", result.get(0).getProduct().getName());
+        assertEquals(1L, result.get(0).getProductId());
     }
 
     @Test
@@ -214,11 +253,40 @@ public class OrderItemServiceImplTest {
 
         when(orderItemRepository.save(any(OrderItem.class))).thenAnswer(invocation -> invocation.getArgument(0));
         when(orderItemRepository.findById(1L)).thenReturn(Optional.of(existingOrderItem));
-        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(productCache.get(1L)).thenReturn(Optional.of(ProductResponse.from(product)));
+        when(inventoryService.reserve(1L, 2)).thenReturn(true);
 
         OrderItem updatedOrderItem = orderItemService.updateOrderItem(1L, dto);
         assertEquals(5, updatedOrderItem.getQuantity().intValue());
-        assertEquals(6, product.getUnitsInStock().intValue());
+        verify(inventoryService).reserve(1L, 2);
+        verify(inventoryService, never()).release(anyLong(), anyInt());
+    }
+
+    @Test
+    public void testUpdateOrderItem_WithDifferentProduct() {
+        Product previousProduct = new Product();
+        previousProduct.setId(1L);
+
+        OrderItem existingOrderItem = new OrderItem();
+        existingOrderItem.setQuantity(3);
+        existingOrderItem.setProduct(previousProduct);
+
+        Product product = new Product();
+        product.setId(2L);
+        product.setPrice(new BigDecimal("5.00"));
+
+        when(orderItemRepository.save(any(OrderItem.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(orderItemRepository.findById(1L)).thenReturn(Optional.of(existingOrderItem));
+        when(productCache.get(2L)).thenReturn(Optional.of(ProductResponse.from(product)));
+        when(inventoryService.reserve(2L, 4)).thenReturn(true);
+
+        OrderItemDto dto = new OrderItemDto();
+        dto.setProductId(2L);
+        dto.setQuantity(4);
+
+        OrderItem updatedOrderItem = orderItemService.updateOrderItem(1L, dto);
+        assertEquals(new BigDecimal("20.00"), updatedOrderItem.getOrderItemPrice());
+        verify(inventoryService).release(1L, 3);
     }
 
 
@@ -251,9 +319,50 @@ public class OrderItemServiceImplTest {
         product.setUnitsInStock(10);
         product.setPrice(new BigDecimal("10.00"));
 
-        when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+        when(productCache.get(1L)).thenReturn(Optional.of(ProductResponse.from(product)));
 
         assertThrows(IllegalArgumentException.class, () -> orderItemService.createOrderItem(dto));
     }
-}
 
+    @Test
+    public void testCreateOrderItems_ReturnsResultPerRow() {
+        Product product = new Product();
+        product.setId(1L);
+        product.setName("Apple");
+        product.setPrice(new BigDecimal("2.00"));
+        when(productRepository.findAllById(any())).thenReturn(List.of(product));
+        when(inventoryService.reserve(1L, 2)).thenReturn(true);
+        when(inventoryService.reserve(1L, 50)).thenReturn(false);
+        when(orderItemRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<BatchItemResult<OrderItemResponse>> results = orderItemService.createOrderItems(List.of(
+                orderItemDto(1L, 2), orderItemDto(1L, 0), orderItemDto(9L, 1), orderItemDto(1L, 50)));
+
+        assertEquals(List.of(201, 400, 404, 400), results.stream().map(BatchItemResult::getStatusCode).toList());
+        assertEquals(new BigDecimal("4.00"), results.get(0).getItem().getOrderItemPrice());
+        assertEquals("Product not found with id: 9", results.get(2).getMessage());
+        assertEquals("Not enough units in stock for product: Apple", results.get(3).getMessage());
+        verify(productRepository, times(1)).findAllById(any());
+    }
+
+    @Test
+    public void testCreateOrderItems_FailedInsertLeavesTheStockToTheRollback() {
+        Product product = new Product();
+        product.setId(1L);
+        product.setPrice(BigDecimal.ONE);
+        when(productRepository.findAllById(any())).thenReturn(List.of(product));
+        when(inventoryService.reserve(1L, 3)).thenReturn(true);
+        when(orderItemRepository.saveAll(anyList())).thenThrow(new IllegalStateException("insert failed"));
+
+        assertThrows(IllegalStateException.class, () -> orderItemService.createOrderItems(List.of(orderItemDto(1L, 3))));
+        verify(inventoryService, never()).release(anyLong(), anyInt());
+        verify(productCache, never()).invalidateAll(any());
+    }
+
+    private static OrderItemDto orderItemDto(Long productId, Integer quantity) {
+        OrderItemDto dto = new OrderItemDto();
+        dto.setProductId(productId);
+        dto.setQuantity(quantity);
+        return dto;
+    }
+}
@@ -1,23 +1,45 @@
 package com.teamviewer.challenge.ecommerce.service;
 
+import com.teamviewer.challenge.ecommerce.cache.CustomerNameFilter;
+import com.teamviewer.challenge.ecommerce.cache.ProductCache;
+import com.teamviewer.challenge.ecommerce.cache.ReferencedProducts;
+import com.teamviewer.challenge.ecommerce.dto.CheckoutDto;
 import com.teamviewer.challenge.ecommerce.dto.OrderDto;
+import com.teamviewer.challenge.ecommerce.dto.OrderItemDto;
 import com.teamviewer.challenge.ecommerce.entity.Order;
 import com.teamviewer.challenge.ecommerce.entity.OrderItem;
+import com.teamviewer.challenge.ecommerce.entity.Product;
 import com.teamviewer.challenge.ecommerce.exception.DuplicateElementException;
+import com.teamviewer.challenge.ecommerce.exception.InsufficientStockException;
 import com.teamviewer.challenge.ecommerce.exception.ResourceNotFoundException;
+import com.teamviewer.challenge.ecommerce.model.CursorPage;
+import com.teamviewer.challenge.ecommerce.model.OrderExportRow;
+import com.teamviewer.challenge.ecommerce.model.OrderItemResponse;
+import com.teamviewer.challenge.ecommerce.model.OrderResponse;
+import com.teamviewer.challenge.ecommerce.model.SalesDelta;
 import com.teamviewer.challenge.ecommerce.repository.OrderItemRepository;
 import com.teamviewer.challenge.ecommerce.repository.OrderRepository;
+import com.teamviewer.challenge.ecommerce.repository.ProductRepository;
+import com.teamviewer.challenge.ecommerce.service.interfaces.InventoryService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -33,17 +55,71 @@ public class OrderServiceImplTest {
     @Mock
     private OrderItemRepository orderItemRepository;
 
+    @Mock
+    private CustomerNameFilter customerNameFilter;
+
+    @Mock
+    private SalesStatsServiceImpl salesStatsService;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private InventoryService inventoryService;
+
+    @Mock
+    private ProductCache productCache;
+
+    @Mock
+    private ReferencedProducts referencedProducts;
+
     @BeforeEach
     public void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(customerNameFilter.mightContain(any())).thenReturn(true);
     }
 
     @Test
     public void testGetAllOrders() {
-        when(orderRepository.findAll()).thenReturn(Collections.singletonList(new Order()));
-        List<Order> orders = orderService.getAllOrders();
-        assertFalse(orders.isEmpty());
-        verify(orderRepository, times(1)).findAll();
+        Order order = new Order();
+        order.setId(7L);
+        when(orderRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any())).thenReturn(Collections.singletonList(order));
+        when(orderItemRepository.findResponsesByOrderIdIn(List.of(7L)))
+                .thenReturn(List.of(new OrderItemResponse(1L, 7L, 3L, 2, new BigDecimal("20.00"))));
+
+        CursorPage<OrderResponse> orders = orderService.getAllOrders(null, 50);
+        assertFalse(orders.getItems().isEmpty());
+        assertEquals(1, orders.getItems().get(0).getOrderItems().size());
+        assertNull(orders.getNext());
+        verify(orderRepository, times(1)).findByIdGreaterThanOrderByIdAsc(eq(0L), any());
+        verify(orderItemRepository, times(1)).findResponsesByOrderIdIn(List.of(7L));
+    }
+
+    @Test
+    public void testExportOrders_GroupsItemsByOrder() {
+        when(orderRepository.streamAllForExport()).thenReturn(Stream.of(
+                new OrderExportRow(1L, "Bob", "x", new BigDecimal("8.50"), 3L, 10L, 3L, 1, new BigDecimal("4.50")),
+                new OrderExportRow(1L, "Bob", "x", new BigDecimal("8.50"), 3L, 11L, 4L, 2, new BigDecimal("4.00")),
+                new OrderExportRow(2L, "Ann", "y", BigDecimal.ZERO, 0L, null, null, null, null)));
+        List<OrderResponse> exported = new ArrayList<>();
+
+        orderService.exportOrders(exported::add);
+
+        assertEquals(2, exported.size());
+        assertEquals(List.of(10L, 11L), exported.get(0).getOrderItems().stream().map(OrderItemResponse::getId).toList());
+        assertEquals(1L, exported.get(0).getOrderItems().get(1).getOrderId());
+        assertEquals("Ann", exported.get(1).getCustomerName());
+        assertTrue(exported.get(1).getOrderItems().isEmpty());
+    }
+
+    @Test
+    public void testExportOrders_NoOrders() {
+        when(orderRepository.streamAllForExport()).thenReturn(Stream.empty());
+        List<OrderResponse> exported = new ArrayList<>();
+
+        orderService.exportOrders(exported::add);
+
+        assertTrue(exported.isEmpty());
     }
 
     @Test
@@ -57,6 +133,18 @@ public class OrderServiceImplTest {
         assertEquals(1L, order.getId());
     }
 
+    @Test
+    public void testGetOrderVersion() {
+        when(orderRepository.findVersionById(1L)).thenReturn(Optional.of(4L));
+        assertEquals(4L, orderService.getOrderVersion(1L));
+    }
+
+    @Test
+    public void testGetOrderVersion_NotFound() {
+        when(orderRepository.findVersionById(1L)).thenReturn(Optional.empty());
+        assertThrows(ResourceNotFoundException.class, () -> orderService.getOrderVersion(1L));
+    }
+
     @Test
     public void testCreateOrder() {
         OrderDto orderDto = new OrderDto();
@@ -70,7 +158,7 @@ public class OrderServiceImplTest {
         OrderItem item2 = new OrderItem();
         item2.setOrderItemPrice(new BigDecimal("150.00"));
 
-        when(orderItemRepository.findAllById(orderDto.getOrderItemIds())).thenReturn(Arrays.asList(item1, item2));
+        when(orderItemRepository.loadAllById(orderDto.getOrderItemIds())).thenReturn(Arrays.asList(item1, item2));
         when(orderRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         Order savedOrder = orderService.createOrder(orderDto);
@@ -81,6 +169,82 @@ public class OrderServiceImplTest {
     }
 
 
+    @Test
+    public void testCreateOrder_MovesItemSalesToTheNewOrder() {
+        Order previousOrder = new Order();
+        previousOrder.setId(2L);
+        previousOrder.setCreatedAt(Instant.now().minus(2, ChronoUnit.DAYS));
+        OrderItem newItem = orderItem(1L, 3L, 2, "20.00", null);
+        OrderItem movedItem = orderItem(2L, 4L, 5, "50.00", previousOrder);
+        OrderDto orderDto = new OrderDto();
+        orderDto.setCustomerName("John Doe");
+        orderDto.setAddress("123 Street");
+        orderDto.setOrderItemIds(Arrays.asList(1L, 2L));
+        when(orderItemRepository.loadAllById(orderDto.getOrderItemIds())).thenReturn(Arrays.asList(newItem, movedItem));
+        when(orderRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Order savedOrder = orderService.createOrder(orderDto);
+
+        ArgumentCaptor<SalesDelta> salesDelta = ArgumentCaptor.forClass(SalesDelta.class);
+        verify(salesStatsService).apply(salesDelta.capture());
+        Map<Long, SalesDelta.Totals> products = salesDelta.getValue().productTotals();
+        assertEquals(2, products.get(3L).getUnits());
+        assertTrue(products.get(4L).isZero());
+        Map<LocalDate, SalesDelta.Totals> days = salesDelta.getValue().dayTotals();
+        SalesDelta.Totals today = days.get(SalesDelta.dayOf(savedOrder.getCreatedAt()));
+        assertEquals(1, today.getOrders());
+        assertEquals(7, today.getUnits());
+        assertEquals(new BigDecimal("70.00"), today.getRevenue());
+        SalesDelta.Totals previousDay = days.get(SalesDelta.dayOf(previousOrder.getCreatedAt()));
+        assertEquals(0, previousDay.getOrders());
+        assertEquals(-5, previousDay.getUnits());
+        assertEquals(new BigDecimal("-50.00"), previousDay.getRevenue());
+        verify(orderRepository).incrementVersion(previousOrder);
+    }
+
+    @Test
+    public void testUpdateOrder_MovingAnItemIncrementsTheVersionOfTheOrderItLeaves() {
+        Order order = new Order();
+        order.setId(1L);
+        order.setCreatedAt(Instant.now());
+        Order previousOrder = new Order();
+        previousOrder.setId(2L);
+        previousOrder.setCreatedAt(Instant.now());
+        OrderItem keptItem = orderItem(1L, 3L, 2, "20.00", order);
+        OrderItem movedItem = orderItem(2L, 4L, 5, "50.00", previousOrder);
+        OrderDto orderDto = new OrderDto();
+        orderDto.setCustomerName("John Doe");
+        orderDto.setAddress("123 Street");
+        orderDto.setOrderItemIds(Arrays.asList(1L, 2L));
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+        when(orderItemRepository.loadAllById(orderDto.getOrderItemIds())).thenReturn(Arrays.asList(keptItem, movedItem));
+        when(orderRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        orderService.updateOrder(1L, orderDto);
+
+        verify(orderRepository).incrementVersion(previousOrder);
+        verify(orderRepository, never()).incrementVersion(order);
+    }
+
+    @Test
+    public void testDeleteOrder_RemovesItsSales() {
+        Order order = new Order();
+        order.setId(1L);
+        order.setCreatedAt(Instant.now());
+        order.addOrderItem(orderItem(1L, 3L, 2, "20.00", order));
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+
+        orderService.deleteOrder(1L);
+
+        ArgumentCaptor<SalesDelta> salesDelta = ArgumentCaptor.forClass(SalesDelta.class);
+        verify(salesStatsService).apply(salesDelta.capture());
+        assertEquals(-2, salesDelta.getValue().productTotals().get(3L).getUnits());
+        SalesDelta.Totals day = salesDelta.getValue().dayTotals().get(SalesDelta.dayOf(order.getCreatedAt()));
+        assertEquals(-1, day.getOrders());
+        assertEquals(new BigDecimal("-20.00"), day.getRevenue());
+        verify(orderRepository).delete(order);
+    }
+
     @Test
     public void testCreateOrder_WithDuplicateCustomerName() {
         OrderDto orderDto = new OrderDto();
@@ -115,7 +279,7 @@ public class OrderServiceImplTest {
         existingOrder.setAddress("456 Avenue");
 
         when(orderRepository.findById(1L)).thenReturn(Optional.of(existingOrder));
-        when(orderItemRepository.findAllById(orderDto.getOrderItemIds())).thenReturn(Arrays.asList(item3, item4));
+        when(orderItemRepository.loadAllById(orderDto.getOrderItemIds())).thenReturn(Arrays.asList(item3, item4));
         when(orderRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         Order updatedOrder = orderService.updateOrder(1L, orderDto);
@@ -125,6 +289,28 @@ public class OrderServiceImplTest {
         assertEquals(2, updatedOrder.getOrderItems().size());
     }
 
+    @Test
+    public void testUpdateOrder_NameFilterSkipsLookup() {
+        OrderDto orderDto = new OrderDto();
+        orderDto.setCustomerName("Jane Smith");
+        orderDto.setAddress("789 Boulevard");
+        orderDto.setOrderItemIds(List.of(3L));
+        OrderItem item = new OrderItem();
+        item.setOrderItemPrice(new BigDecimal("200.00"));
+        Order existingOrder = new Order();
+        existingOrder.setId(1L);
+
+        when(customerNameFilter.mightContain("Jane Smith")).thenReturn(false);
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(existingOrder));
+        when(orderItemRepository.loadAllById(orderDto.getOrderItemIds())).thenReturn(List.of(item));
+        when(orderRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        orderService.updateOrder(1L, orderDto);
+
+        verify(orderRepository, never()).findByCustomerNameIgnoreCase(any());
+        verify(customerNameFilter).add("Jane Smith");
+    }
+
     @Test
     public void testUpdate_NonExistentOrder() {
         OrderDto orderDto = new OrderDto();
@@ -162,7 +348,7 @@ public class OrderServiceImplTest {
         OrderItem item1 = new OrderItem();
         item1.setOrderItemPrice(new BigDecimal("100.00"));
 
-        when(orderItemRepository.findAllById(orderDto.getOrderItemIds())).thenReturn(List.of(item1));
+        when(orderItemRepository.loadAllById(orderDto.getOrderItemIds())).thenReturn(List.of(item1));
 
         assertThrows(ResourceNotFoundException.class, () -> orderService.createOrder(orderDto));
     }
@@ -209,9 +395,9 @@ public class OrderServiceImplTest {
         OrderItem item2 = new OrderItem();
         item2.setOrderItemPrice(new BigDecimal("150.00"));
 
-        when(orderItemRepository.findAllById(orderDto.getOrderItemIds())).thenReturn(Arrays.asList(item1, item2));
+        when(orderItemRepository.loadAllById(orderDto.getOrderItemIds())).thenReturn(Arrays.asList(item1, item2));
         when(orderRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
-        when(orderItemRepository.findAllById(orderDto.getOrderItemIds())).thenReturn(Arrays.asList(item1, item2));
+        when(orderItemRepository.loadAllById(orderDto.getOrderItemIds())).thenReturn(Arrays.asList(item1, item2));
 
         Order order = orderService.createOrder(orderDto);
 
@@ -242,7 +428,7 @@ public class OrderServiceImplTest {
 
         when(orderRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
         when(orderRepository.findById(1L)).thenReturn(Optional.of(existingOrder));
-        when(orderItemRepository.findAllById(orderDto.getOrderItemIds())).thenReturn(List.of(item1));
+        when(orderItemRepository.loadAllById(orderDto.getOrderItemIds())).thenReturn(List.of(item1));
 
         Order updatedOrder = orderService.updateOrder(1L, orderDto);
 
@@ -275,7 +461,7 @@ public class OrderServiceImplTest {
 
         when(orderRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
         when(orderRepository.findById(1L)).thenReturn(Optional.of(existingOrder));
-        when(orderItemRepository.findAllById(orderDto.getOrderItemIds())).thenReturn(Arrays.asList(item1, item2, item3));
+        when(orderItemRepository.loadAllById(orderDto.getOrderItemIds())).thenReturn(Arrays.asList(item1, item2, item3));
 
         Order updatedOrder = orderService.updateOrder(1L, orderDto);
 
@@ -290,4 +476,101 @@ public class OrderServiceImplTest {
 
         assertThrows(IllegalArgumentException.class, () -> orderService.updateOrder(1L, orderDto));
     }
+
+    @Test
+    public void testCheckout_ReservesAllLinesAndSavesTheOrderWithItsItems() {
+        when(productRepository.findAllById(Set.of(3L, 4L))).thenReturn(List.of(product(3L, "A", "2.50"), product(4L, "B", "1.00")));
+        when(inventoryService.reserveAll(Map.of(3L, 5, 4L, 1))).thenReturn(Set.of());
+        when(orderRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Order order = orderService.checkout(checkout(line(3L, 2), line(4L, 1), line(3L, 3)));
+
+        assertEquals("John Doe", order.getCustomerName());
+        assertEquals(3, order.getOrderItems().size());
+        assertSame(order, order.getOrderItems().get(0).getOrder());
+        assertEquals(new BigDecimal("5.00"), order.getOrderItems().get(0).getOrderItemPrice());
+        assertEquals(new BigDecimal("13.50"), order.getTotalPrice());
+        assertNotNull(order.getCreatedAt());
+        verify(productCache).invalidateAll(Set.of(3L, 4L));
+        verify(referencedProducts).add(3L);
+        verify(referencedProducts).add(4L);
+        verify(orderItemRepository, never()).loadAllById(any());
+        ArgumentCaptor<SalesDelta> salesDelta = ArgumentCaptor.forClass(SalesDelta.class);
+        verify(salesStatsService).apply(salesDelta.capture());
+        assertEquals(5, salesDelta.getValue().productTotals().get(3L).getUnits());
+        assertEquals(1, salesDelta.getValue().dayTotals().get(SalesDelta.dayOf(order.getCreatedAt())).getOrders());
+        verify(customerNameFilter).add("John Doe");
+    }
+
+    @Test
+    public void testCheckout_InsufficientStockNamesTheProducts() {
+        when(productRepository.findAllById(Set.of(3L, 4L))).thenReturn(List.of(product(3L, "A", "2.50"), product(4L, "B", "1.00")));
+        when(inventoryService.reserveAll(any())).thenReturn(Set.of(4L, 3L));
+
+        InsufficientStockException exception = assertThrows(InsufficientStockException.class,
+                () -> orderService.checkout(checkout(line(3L, 2), line(4L, 1))));
+
+        assertEquals("Not enough units in stock for product: A, B", exception.getMessage());
+        verify(orderRepository, never()).save(any());
+        verifyNoInteractions(productCache, salesStatsService, referencedProducts);
+    }
+
+    @Test
+    public void testCheckout_ProductNotFound() {
+        when(productRepository.findAllById(Set.of(3L, 4L))).thenReturn(List.of(product(3L, "A", "2.50")));
+
+        assertThrows(ResourceNotFoundException.class, () -> orderService.checkout(checkout(line(3L, 2), line(4L, 1))));
+        verifyNoInteractions(inventoryService);
+    }
+
+    @Test
+    public void testCheckout_WithDuplicateCustomerName() {
+        when(orderRepository.existsByCustomerNameIgnoreCase("John Doe")).thenReturn(true);
+
+        assertThrows(IllegalArgumentException.class, () -> orderService.checkout(checkout(line(3L, 2))));
+        verifyNoInteractions(productRepository, inventoryService);
+    }
+
+    @Test
+    public void testCheckout_WithInvalidDto() {
+        assertThrows(IllegalArgumentException.class, () -> orderService.checkout(checkout()));
+        assertThrows(IllegalArgumentException.class, () -> orderService.checkout(checkout(line(3L, 0))));
+        assertThrows(IllegalArgumentException.class, () -> orderService.checkout(checkout(line(null, 1))));
+        verifyNoInteractions(productRepository, inventoryService);
+    }
+
+    private static CheckoutDto checkout(OrderItemDto... items) {
+        CheckoutDto checkoutDto = new CheckoutDto();
+        checkoutDto.setCustomerName("John Doe");
+        checkoutDto.setAddress("123 Street");
+        checkoutDto.setItems(Arrays.asList(items));
+        return checkoutDto;
+    }
+
+    private static OrderItemDto line(Long productId, int quantity) {
+        OrderItemDto orderItemDto = new OrderItemDto();
+        orderItemDto.setProductId(productId);
+        orderItemDto.setQuantity(quantity);
+        return orderItemDto;
+    }
+
+    private static Product product(Long id, String name, String price) {
+        Product product = new Product();
+        product.setId(id);
+        product.setName(name);
+        product.setPrice(new BigDecimal(price));
+        return product;
+    }
+
+    private static OrderItem orderItem(Long id, Long productId, int quantity, String price, Order order) {
+        Product product = new Product();
+        product.setId(productId);
+        OrderItem orderItem = new OrderItem();
+        orderItem.setId(id);
+        orderItem.setProduct(product);
+        orderItem.setQuantity(quantity);
+        orderItem.setOrderItemPrice(new BigDecimal(price));
+        orderItem.setOrder(order);
+        return orderItem;
+    }
 }
@@ -0,0 +1,129 @@
+package com.teamviewer.challenge.ecommerce.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.teamviewer.challenge.ecommerce.cache.ProductCache;
+import com.teamviewer.challenge.ecommerce.cache.ProductNameFilter;
+import com.teamviewer.challenge.ecommerce.cache.ProductSearchIndex;
+import com.teamviewer.challenge.ecommerce.cache.SecondLevelCache;
+import com.teamviewer.challenge.ecommerce.dto.ProductDto;
+import com.teamviewer.challenge.ecommerce.model.BatchItemResult;
+import com.teamviewer.challenge.ecommerce.model.ProductImportResult;
+import com.teamviewer.challenge.ecommerce.repository.ProductImportRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProductImportServiceImplTest {
+
+    @Mock
+    private ProductImportRepository productImportRepository;
+    @Mock
+    private ProductImportRepository.StagingWriter stagingWriter;
+    @Mock
+    private ProductServiceImpl productServiceImpl;
+    @Mock
+    private ProductNameFilter productNameFilter;
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+    @Mock
+    private ProductCache productCache;
+    @Mock
+    private SecondLevelCache secondLevelCache;
+
+    private ProductImportServiceImpl productImportServiceImpl;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        productImportServiceImpl = new ProductImportServiceImpl(productImportRepository, productServiceImpl, productNameFilter,
+                productSearchIndex, productCache, secondLevelCache, new ObjectMapper());
+        when(productImportRepository.openStaging()).thenReturn(stagingWriter);
+        when(productImportRepository.findRowsRepeatingAnEarlierName()).thenReturn(List.of());
+        when(productImportRepository.findRowsWithExistingName()).thenReturn(List.of());
+        when(productServiceImpl.rejectionReason(argThat(productDto -> productDto.getPrice().signum() < 0)))
+                .thenReturn("Error: Price cannot be negative or zero");
+    }
+
+    @Test
+    void testImportCsv_StagesValidRowsAndRejectsInvalidOnes() throws Exception {
+        when(productImportRepository.merge()).thenReturn(2);
+
+        ProductImportResult result = productImportServiceImpl.importCsv(input(
+                "unitsInStock,name,price\n5,Pear,2.00\n3,Plum,-1\n7,\"Kiwi, gold\",3.10\n"));
+
+        assertEquals(3, result.getRows());
+        assertEquals(2, result.getImported());
+        assertEquals(List.of(1), result.getRejected().stream().map(BatchItemResult::getIndex).toList());
+        assertEquals(400, result.getRejected().get(0).getStatusCode());
+        verify(stagingWriter).write(0, new ProductDto("Pear", new BigDecimal("2.00"), 5));
+        verify(stagingWriter).write(2, new ProductDto("Kiwi, gold", new BigDecimal("3.10"), 7));
+        verify(stagingWriter).close();
+        verify(productCache).catalogChanged();
+        verify(secondLevelCache).evictProductLookups();
+    }
+
+    @Test
+    void testImportCsv_UnreadableValueRejectsOnlyItsRow() throws Exception {
+        ProductImportResult result = productImportServiceImpl.importCsv(input("name,price,unitsInStock\nFig,abc,3\nLime,0.50,9\n"));
+
+        assertEquals(2, result.getRows());
+        assertTrue(result.getRejected().get(0).getMessage().startsWith("Row could not be read"));
+        verify(stagingWriter).write(1, new ProductDto("Lime", new BigDecimal("0.50"), 9));
+        verify(productCache, never()).catalogChanged();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testImportJson_ReportsDuplicatesFoundByTheMerge() throws Exception {
+        when(productImportRepository.merge()).thenReturn(1);
+        when(productImportRepository.findRowsRepeatingAnEarlierName()).thenReturn(List.of(2));
+        when(productImportRepository.findRowsWithExistingName()).thenReturn(List.of(1));
+        doAnswer(invocation -> {
+            invocation.<BiConsumer<Long, String>>getArgument(0).accept(7L, "Melon");
+            return null;
+        }).when(productImportRepository).forEachImportedProduct(any(BiConsumer.class));
+
+        ProductImportResult result = productImportServiceImpl.importJson(input(
+                "{\"name\":\"Melon\",\"price\":4,\"unitsInStock\":2}\n" +
+                "{\"name\":\"Apple\",\"price\":1,\"unitsInStock\":2}\n" +
+                "{\"name\":\"melon\",\"price\":4,\"unitsInStock\":2}\n"));
+
+        assertEquals(3, result.getRows());
+        assertEquals(List.of(1, 2), result.getRejected().stream().map(BatchItemResult::getIndex).toList());
+        assertEquals("Product with the same name already exists.", result.getRejected().get(0).getMessage());
+        assertEquals("Product with the same name appears earlier in the import.", result.getRejected().get(1).getMessage());
+        assertTrue(result.getRejected().stream().allMatch(rejected -> rejected.getStatusCode() == 409));
+        verify(productNameFilter).add("Melon");
+        verify(productSearchIndex).add(7L, "Melon");
+    }
+
+    @Test
+    void testImportJson_AcceptsAnArray() throws Exception {
+        ProductImportResult result = productImportServiceImpl.importJson(input("[{\"name\":\"Grape\",\"price\":4,\"unitsInStock\":2}]"));
+
+        assertEquals(1, result.getRows());
+        verify(stagingWriter).write(0, new ProductDto("Grape", new BigDecimal("4"), 2));
+    }
+
+    @Test
+    void testImportJson_MalformedInputFailsTheImport() {
+        assertThrows(IllegalArgumentException.class, () -> productImportServiceImpl.importJson(input("{\"name\":\"Broken\",\"price\":4,")));
+        verify(productImportRepository, never()).merge();
+    }
+
+    private static InputStream input(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
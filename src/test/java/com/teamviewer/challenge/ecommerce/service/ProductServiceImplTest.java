@@ -1,15 +1,29 @@
 package com.teamviewer.challenge.ecommerce.service;
 
+import com.teamviewer.challenge.ecommerce.cache.ProductCache;
+import com.teamviewer.challenge.ecommerce.cache.ProductNameFilter;
+import com.teamviewer.challenge.ecommerce.cache.ProductSearchIndex;
+import com.teamviewer.challenge.ecommerce.cache.ReferencedProducts;
 import com.teamviewer.challenge.ecommerce.dto.ProductDto;
 import com.teamviewer.challenge.ecommerce.entity.Product;
+import com.teamviewer.challenge.ecommerce.exception.DuplicateElementException;
 import com.teamviewer.challenge.ecommerce.exception.ResourceNotFoundException;
+import com.teamviewer.challenge.ecommerce.model.BatchItemResult;
+import com.teamviewer.challenge.ecommerce.model.CursorPage;
+import com.teamviewer.challenge.ecommerce.model.ProductResponse;
 import com.teamviewer.challenge.ecommerce.repository.OrderItemRepository;
 import com.teamviewer.challenge.ecommerce.repository.ProductRepository;
+import com.teamviewer.challenge.ecommerce.repository.ProductSearchRepository;
+import com.teamviewer.challenge.ecommerce.service.interfaces.InventoryService;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.PageRequest;
 
 import java.math.BigDecimal;
 import java.util.Collections;
@@ -25,6 +39,20 @@ class ProductServiceImplTest {
     private ProductRepository productRepository;
     @Mock
     private OrderItemRepository orderItemRepository;
+    @Mock
+    private InventoryService inventoryService;
+    @Mock
+    private ProductCache productCache;
+    @Mock
+    private ProductNameFilter productNameFilter;
+    @Mock
+    private ProductSearchIndex productSearchIndex;
+    @Mock
+    private ProductSearchRepository productSearchRepository;
+    @Mock
+    private ReferencedProducts referencedProducts;
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
 
     @InjectMocks
     private ProductServiceImpl productServiceImpl;
@@ -32,21 +60,71 @@ class ProductServiceImplTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(productNameFilter.mightContain(any())).thenReturn(true);
+        when(referencedProducts.mightBeReferenced(any())).thenReturn(true);
     }
 
     @Test
     void testGetAllProducts() {
-        Product mockProduct = new Product();
-        mockProduct.setName("Test Product");
-        mockProduct.setPrice(new BigDecimal(10));
-        when(productRepository.findAll()).thenReturn(Collections.singletonList(mockProduct));
+        ProductResponse mockProduct = new ProductResponse(1L, "Test Product", 5, new BigDecimal(10), 0L);
+        when(productRepository.findPageAfter(eq(0L), any())).thenReturn(Collections.singletonList(mockProduct));
 
-        List<Product> result = productServiceImpl.getAllProducts();
+        CursorPage<ProductResponse> result = productServiceImpl.getAllProducts(null, 50);
 
         assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals("Test Product", result.get(0).getName());
-        assertEquals(new BigDecimal(10), result.get(0).getPrice());
+        assertEquals(1, result.getItems().size());
+        assertEquals("Test Product", result.getItems().get(0).getName());
+        assertEquals(new BigDecimal(10), result.getItems().get(0).getPrice());
+        assertNull(result.getNext());
+    }
+
+    @Test
+    void testGetAllProducts_ReturnsCursorForNextPage() {
+        ProductResponse first = new ProductResponse(5L, "First", 1, BigDecimal.ONE, 0L);
+        ProductResponse second = new ProductResponse(9L, "Second", 1, BigDecimal.ONE, 0L);
+        when(productRepository.findPageAfter(eq(3L), eq(PageRequest.of(0, 2)))).thenReturn(List.of(first, second));
+
+        CursorPage<ProductResponse> result = productServiceImpl.getAllProducts(CursorPage.encode(3L), 1);
+
+        assertEquals(1, result.getItems().size());
+        assertEquals(5L, CursorPage.decode(result.getNext()));
+    }
+
+    @Test
+    void testGetAllProducts_InvalidCursor() {
+        assertThrows(IllegalArgumentException.class, () -> productServiceImpl.getAllProducts("not-a-cursor", 10));
+    }
+
+    @Test
+    void testSearchProducts_FromTheIndexInRankOrder() {
+        when(productSearchIndex.search(List.of("red", "mug"), 0L, 2)).thenReturn(Optional.of(List.of(7L, 3L)));
+        when(productRepository.findResponsesByIdIn(List.of(7L, 3L))).thenReturn(List.of(
+                new ProductResponse(3L, "Red Mugs", 1, BigDecimal.ONE, 0L),
+                new ProductResponse(7L, "Red Mug", 1, BigDecimal.ONE, 0L)));
+
+        CursorPage<ProductResponse> result = productServiceImpl.searchProducts("Red mug", null, 1);
+
+        assertEquals(List.of(7L), result.getItems().stream().map(ProductResponse::getId).toList());
+        assertEquals(CursorPage.encode(1L), result.getNext());
+        verifyNoInteractions(productSearchRepository);
+    }
+
+    @Test
+    void testSearchProducts_FallsBackToTheDatabaseUntilTheIndexIsBuilt() {
+        when(productSearchIndex.search(any(), anyLong(), anyInt())).thenReturn(Optional.empty());
+        ProductResponse product = new ProductResponse(3L, "Red Mug", 1, BigDecimal.ONE, 0L);
+        when(productSearchRepository.search(List.of("mug"), 10L, 51)).thenReturn(List.of(product));
+
+        CursorPage<ProductResponse> result = productServiceImpl.searchProducts("mug", CursorPage.encode(10L), 50);
+
+        assertEquals(List.of(product), result.getItems());
+        assertNull(result.getNext());
+    }
+
+    @Test
+    void testSearchProducts_QueryWithoutWords() {
+        assertThrows(IllegalArgumentException.class, () -> productServiceImpl.searchProducts(" - ", null, 50));
+        verifyNoInteractions(productSearchIndex, productSearchRepository);
     }
 
     @Test
@@ -70,6 +148,24 @@ class ProductServiceImplTest {
         assertThrows(ResourceNotFoundException.class, () -> productServiceImpl.getProductById(1L));
     }
 
+    @Test
+    void testGetProductResponseById_ServedFromCache() {
+        ProductResponse cachedProduct = new ProductResponse(1L, "Test Product", 5, new BigDecimal(10), 0L);
+        when(productCache.get(1L)).thenReturn(Optional.of(cachedProduct));
+
+        ProductResponse result = productServiceImpl.getProductResponseById(1L);
+
+        assertSame(cachedProduct, result);
+        verifyNoInteractions(productRepository);
+    }
+
+    @Test
+    void testGetProductResponseById_NotFound() {
+        when(productCache.get(1L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> productServiceImpl.getProductResponseById(1L));
+    }
+
     @Test
     void testCreateProduct() {
         ProductDto productDto = new ProductDto("TestItem", new BigDecimal("10.00"), 10);
@@ -85,6 +181,30 @@ class ProductServiceImplTest {
         assertNotNull(result);
         assertEquals("Test Product", result.getName());
         assertEquals(new BigDecimal(10), result.getPrice());
+        verify(productCache).put(mockProduct);
+        verify(productSearchIndex).add(null, "Test Product");
+    }
+
+    @Test
+    void testCreateProduct_DuplicateName() {
+        when(productRepository.existsByNameIgnoreCase("TestItem")).thenReturn(true);
+
+        assertThrows(DuplicateElementException.class,
+                () -> productServiceImpl.createProduct(new ProductDto("TestItem", new BigDecimal("10.00"), 10)));
+        verify(productRepository, never()).save(any());
+    }
+
+    @Test
+    void testCreateProduct_NameFilterSkipsLookup() {
+        when(productNameFilter.mightContain("TestItem")).thenReturn(false);
+        Product savedProduct = new Product();
+        savedProduct.setName("TestItem");
+        when(productRepository.save(any(Product.class))).thenReturn(savedProduct);
+
+        productServiceImpl.createProduct(new ProductDto("TestItem", new BigDecimal("10.00"), 10));
+
+        verify(productRepository, never()).existsByNameIgnoreCase(any());
+        verify(productNameFilter).add("TestItem");
     }
 
     @Test
@@ -104,17 +224,53 @@ class ProductServiceImplTest {
         assertNotNull(result);
         assertEquals("Updated Product", result.getName());
         assertEquals(new BigDecimal(20), result.getPrice());
+        verify(productCache).put(existingProduct);
+        verify(productSearchIndex).update(1L, "Old Product", "Updated Product");
+        verify(inventoryService).stockSet(1L, 2, 10);
     }
 
     @Test
     void testDeleteProduct() {
         Product mockProduct = new Product();
+        mockProduct.setName("Test Product");
         when(productRepository.findById(1L)).thenReturn(Optional.of(mockProduct));
         doNothing().when(productRepository).delete(mockProduct);
 
         productServiceImpl.deleteProduct(1L);
 
         verify(productRepository).delete(mockProduct);
+        verify(inventoryService).evict(1L);
+        verify(productCache).invalidate(1L);
+        verify(productSearchIndex).remove(1L, "Test Product");
+    }
+
+    @Test
+    void testUpdateProduct_ReferencedByOrderItem() {
+        when(orderItemRepository.existsByProductId(1L)).thenReturn(true);
+
+        assertThrows(IllegalStateException.class,
+                () -> productServiceImpl.updateProduct(1L, new ProductDto("Updated Product", new BigDecimal(20), 10)));
+        verify(productRepository, never()).save(any());
+    }
+
+    @Test
+    void testDeleteProduct_ReferencedByOrderItem() {
+        when(orderItemRepository.existsByProductId(1L)).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () -> productServiceImpl.deleteProduct(1L));
+        verify(productRepository, never()).delete(any());
+    }
+
+    @Test
+    void testDeleteProduct_BitmapSkipsLookup() {
+        Product mockProduct = new Product();
+        when(referencedProducts.mightBeReferenced(1L)).thenReturn(false);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(mockProduct));
+
+        productServiceImpl.deleteProduct(1L);
+
+        verify(orderItemRepository, never()).existsByProductId(any());
+        verify(productRepository).delete(mockProduct);
     }
 
     @Test
@@ -144,4 +300,37 @@ class ProductServiceImplTest {
 
         assertThrows(ResourceNotFoundException.class, () -> productServiceImpl.deleteProduct(1L));
     }
+
+    @Test
+    void testCreateProducts_ReturnsResultPerRow() {
+        List<ProductDto> productDtos = List.of(
+                new ProductDto("Apple", new BigDecimal("1.50"), 10),
+                new ProductDto("", new BigDecimal("1.50"), 10),
+                new ProductDto("APPLE", new BigDecimal("2.00"), 5),
+                new ProductDto("Pear", new BigDecimal("2.00"), 5));
+        when(productRepository.findExistingLowerNames(any())).thenReturn(List.of("pear"));
+        when(productRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Product> products = invocation.getArgument(0);
+            products.get(0).setId(7L);
+            return products;
+        });
+
+        List<BatchItemResult<ProductResponse>> results = productServiceImpl.createProducts(productDtos);
+
+        assertEquals(List.of(201, 400, 409, 409), results.stream().map(BatchItemResult::getStatusCode).toList());
+        assertEquals(7L, results.get(0).getItem().getId());
+        assertEquals("Error: Product name should be between 1 and 255 characters", results.get(1).getMessage());
+        assertEquals("Product with the same name already exists.", results.get(3).getMessage());
+        verify(productRepository).findExistingLowerNames(argThat(names -> names.size() == 2));
+        verify(productRepository).saveAll(argThat(products -> ((List<Product>) products).size() == 1));
+        verify(productCache).catalogChanged();
+    }
+
+    @Test
+    void testCreateProducts_TooManyRows() {
+        List<ProductDto> productDtos = Collections.nCopies(BatchItemResult.MAX_ROWS + 1, new ProductDto("Apple", BigDecimal.ONE, 1));
+
+        assertThrows(IllegalArgumentException.class, () -> productServiceImpl.createProducts(productDtos));
+        verify(productRepository, never()).saveAll(any());
+    }
 }
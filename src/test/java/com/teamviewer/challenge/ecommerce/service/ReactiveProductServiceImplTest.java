@@ -0,0 +1,116 @@
+package com.teamviewer.challenge.ecommerce.service;
+
+import com.teamviewer.challenge.ecommerce.cache.ProductCache;
+import com.teamviewer.challenge.ecommerce.exception.ResourceNotFoundException;
+import com.teamviewer.challenge.ecommerce.model.CursorPage;
+import com.teamviewer.challenge.ecommerce.model.ProductResponse;
+import com.teamviewer.challenge.ecommerce.repository.ProductReactiveRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ReactiveProductServiceImplTest {
+
+    @Mock
+    private ProductReactiveRepository productReactiveRepository;
+    @Mock
+    private ProductCache productCache;
+
+    @InjectMocks
+    private ReactiveProductServiceImpl reactiveProductServiceImpl;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        when(productCache.getIfPresent(any())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void testGetAllProducts() {
+        ProductResponse mockProduct = new ProductResponse(1L, "Test Product", 5, new BigDecimal(10), 0L);
+        when(productReactiveRepository.findPageAfter(0L, 51)).thenReturn(Flux.just(mockProduct));
+
+        StepVerifier.create(reactiveProductServiceImpl.getAllProducts(null, 50))
+                .assertNext(page -> {
+                    assertEquals(1, page.getItems().size());
+                    assertEquals("Test Product", page.getItems().get(0).getName());
+                    assertNull(page.getNext());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void testGetAllProducts_ReturnsCursorForNextPage() {
+        ProductResponse first = new ProductResponse(5L, "First", 1, BigDecimal.ONE, 0L);
+        ProductResponse second = new ProductResponse(9L, "Second", 1, BigDecimal.ONE, 0L);
+        when(productReactiveRepository.findPageAfter(3L, 2)).thenReturn(Flux.just(first, second));
+
+        StepVerifier.create(reactiveProductServiceImpl.getAllProducts(CursorPage.encode(3L), 1))
+                .assertNext(page -> {
+                    assertEquals(1, page.getItems().size());
+                    assertEquals(5L, CursorPage.decode(page.getNext()));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void testGetAllProducts_InvalidCursor() {
+        StepVerifier.create(reactiveProductServiceImpl.getAllProducts("not-a-cursor", 10))
+                .verifyError(IllegalArgumentException.class);
+        verifyNoInteractions(productReactiveRepository);
+    }
+
+    @Test
+    void testGetProductById_ServedFromCache() {
+        ProductResponse cached = new ProductResponse(1L, "Cached", 3, BigDecimal.ONE, 0L);
+        when(productCache.getIfPresent(1L)).thenReturn(Optional.of(cached));
+
+        StepVerifier.create(reactiveProductServiceImpl.getProductById(1L))
+                .expectNext(cached)
+                .verifyComplete();
+        verifyNoInteractions(productReactiveRepository);
+    }
+
+    @Test
+    void testGetProductById_ReadsThroughOnCacheMiss() {
+        ProductResponse stored = new ProductResponse(1L, "Stored", 3, BigDecimal.ONE, 0L);
+        when(productReactiveRepository.findById(1L)).thenReturn(Mono.just(stored));
+
+        StepVerifier.create(reactiveProductServiceImpl.getProductById(1L))
+                .expectNext(stored)
+                .verifyComplete();
+        verify(productCache, never()).get(any());
+    }
+
+    @Test
+    void testGetProductById_NotFound() {
+        when(productReactiveRepository.findById(1L)).thenReturn(Mono.empty());
+
+        StepVerifier.create(reactiveProductServiceImpl.getProductById(1L))
+                .verifyError(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void testStreamAllProducts() {
+        ProductResponse first = new ProductResponse(1L, "First", 1, BigDecimal.ONE, 0L);
+        ProductResponse second = new ProductResponse(2L, "Second", 1, BigDecimal.ONE, 0L);
+        when(productReactiveRepository.streamAll()).thenReturn(Flux.just(first, second));
+
+        StepVerifier.create(reactiveProductServiceImpl.streamAllProducts(), 1)
+                .expectNext(first)
+                .thenRequest(1)
+                .expectNext(second)
+                .verifyComplete();
+    }
+}
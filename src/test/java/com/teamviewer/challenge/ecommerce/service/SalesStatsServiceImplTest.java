@@ -0,0 +1,157 @@
+package com.teamviewer.challenge.ecommerce.service;
+
+import com.teamviewer.challenge.ecommerce.entity.DailySales;
+import com.teamviewer.challenge.ecommerce.entity.Order;
+import com.teamviewer.challenge.ecommerce.entity.OrderItem;
+import com.teamviewer.challenge.ecommerce.entity.Product;
+import com.teamviewer.challenge.ecommerce.entity.ProductSales;
+import com.teamviewer.challenge.ecommerce.exception.ResourceNotFoundException;
+import com.teamviewer.challenge.ecommerce.model.DailySalesResponse;
+import com.teamviewer.challenge.ecommerce.model.ProductSalesResponse;
+import com.teamviewer.challenge.ecommerce.model.SalesDelta;
+import com.teamviewer.challenge.ecommerce.repository.DailySalesRepository;
+import com.teamviewer.challenge.ecommerce.repository.ProductRepository;
+import com.teamviewer.challenge.ecommerce.repository.ProductSalesRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class SalesStatsServiceImplTest {
+
+    @InjectMocks
+    private SalesStatsServiceImpl salesStatsService;
+
+    @Mock
+    private ProductSalesRepository productSalesRepository;
+
+    @Mock
+    private DailySalesRepository dailySalesRepository;
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    public void testApply_AddsEveryNonZeroTotal() {
+        Order order = new Order();
+        order.setCreatedAt(Instant.parse("2026-03-01T10:00:00Z"));
+        Product product = new Product();
+        product.setId(3L);
+        OrderItem orderItem = new OrderItem();
+        orderItem.setProduct(product);
+        orderItem.setQuantity(2);
+        orderItem.setOrderItemPrice(new BigDecimal("20.00"));
+        orderItem.setOrder(order);
+        SalesDelta salesDelta = new SalesDelta();
+        salesDelta.addOrder(order);
+        salesDelta.addItem(orderItem);
+
+        salesStatsService.apply(salesDelta);
+
+        LocalDate day = LocalDate.parse("2026-03-01");
+        verify(productSalesRepository).insertIfMissing(3L);
+        verify(productSalesRepository).add(3L, 2, new BigDecimal("20.00"));
+        verify(dailySalesRepository).insertIfMissing(day);
+        verify(dailySalesRepository).add(day, 1, 2, new BigDecimal("20.00"));
+    }
+
+    @Test
+    public void testApply_SkipsTotalsThatCancelOut() {
+        Order order = new Order();
+        order.setCreatedAt(Instant.now());
+        SalesDelta salesDelta = new SalesDelta();
+        salesDelta.addOrder(order);
+        salesDelta.removeOrder(order);
+
+        salesStatsService.apply(salesDelta);
+
+        verifyNoInteractions(productSalesRepository, dailySalesRepository);
+    }
+
+    @Test
+    public void testGetProductSales() {
+        when(productSalesRepository.findById(3L)).thenReturn(Optional.of(new ProductSales(3L, 7L, new BigDecimal("70.00"))));
+
+        assertEquals(new ProductSalesResponse(3L, 7L, new BigDecimal("70.00")), salesStatsService.getProductSales(3L));
+        verify(productRepository, never()).existsById(any());
+    }
+
+    @Test
+    public void testGetProductSales_NeverSold() {
+        when(productSalesRepository.findById(3L)).thenReturn(Optional.empty());
+        when(productRepository.existsById(3L)).thenReturn(true);
+
+        assertEquals(new ProductSalesResponse(3L, 0L, BigDecimal.ZERO), salesStatsService.getProductSales(3L));
+    }
+
+    @Test
+    public void testGetProductSales_ProductNotFound() {
+        when(productSalesRepository.findById(3L)).thenReturn(Optional.empty());
+        when(productRepository.existsById(3L)).thenReturn(false);
+
+        assertThrows(ResourceNotFoundException.class, () -> salesStatsService.getProductSales(3L));
+    }
+
+    @Test
+    public void testGetTopProducts_ByUnits() {
+        when(productSalesRepository.findAllBy(any())).thenReturn(List.of(new ProductSales(3L, 7L, new BigDecimal("70.00"))));
+
+        List<ProductSalesResponse> top = salesStatsService.getTopProducts("units", 5);
+
+        assertEquals(1, top.size());
+        verify(productSalesRepository).findAllBy(PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "unitsSold", "productId")));
+    }
+
+    @Test
+    public void testGetTopProducts_UnknownSort() {
+        assertThrows(IllegalArgumentException.class, () -> salesStatsService.getTopProducts("price", 5));
+    }
+
+    @Test
+    public void testGetDailySales() {
+        LocalDate from = LocalDate.parse("2026-03-01");
+        LocalDate to = LocalDate.parse("2026-03-31");
+        when(dailySalesRepository.findByDayBetweenOrderByDayAsc(from, to))
+                .thenReturn(List.of(new DailySales(from, 2L, 7L, new BigDecimal("70.00"))));
+
+        List<DailySalesResponse> days = salesStatsService.getDailySales(from, to);
+
+        assertEquals(List.of(new DailySalesResponse(from, 2L, 7L, new BigDecimal("70.00"))), days);
+    }
+
+    @Test
+    public void testGetDailySales_FromAfterTo() {
+        assertThrows(IllegalArgumentException.class,
+                () -> salesStatsService.getDailySales(LocalDate.parse("2026-03-02"), LocalDate.parse("2026-03-01")));
+    }
+
+    @Test
+    public void testRebuild_LocksBeforeRecomputing() {
+        salesStatsService.rebuild();
+
+        InOrder inOrder = inOrder(productSalesRepository, dailySalesRepository);
+        inOrder.verify(productSalesRepository).lockForRebuild();
+        inOrder.verify(productSalesRepository).deleteAllRows();
+        inOrder.verify(productSalesRepository).insertFromOrderItems();
+        inOrder.verify(dailySalesRepository).deleteAllRows();
+        inOrder.verify(dailySalesRepository).insertFromOrders();
+    }
+}
@@ -0,0 +1,209 @@
+package com.teamviewer.challenge.ecommerce.service;
+
+import com.teamviewer.challenge.ecommerce.dto.CheckoutDto;
+import com.teamviewer.challenge.ecommerce.dto.OrderDto;
+import com.teamviewer.challenge.ecommerce.dto.OrderItemDto;
+import com.teamviewer.challenge.ecommerce.dto.ProductDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Connections taken from the pool and commits per service call, counted at the JDBC level on an in-memory H2 in
+// PostgreSQL mode. Only the calling thread is counted, so the background loaders and writers do not interfere.
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:round-trips;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.r2dbc.url=r2dbc:h2:mem:///round-trips",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password=",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        // The migrations are written for PostgreSQL
+        "spring.flyway.enabled=false"
+})
+class ServiceRoundTripTest {
+
+    private static final AtomicInteger NAMES = new AtomicInteger();
+
+    @Autowired
+    private ProductServiceImpl productService;
+    @Autowired
+    private OrderItemServiceImpl orderItemService;
+    @Autowired
+    private OrderServiceImpl orderService;
+
+    @Test
+    void testProductWrites() {
+        Long productId = measure(() -> productService.createProduct(product(10)).getId()).assertOneUnitOfWork();
+
+        measure(() -> productService.updateProduct(productId, product(20))).assertOneUnitOfWork();
+        measure(() -> {
+            productService.deleteProduct(productId);
+            return null;
+        }).assertOneUnitOfWork();
+    }
+
+    @Test
+    void testOrderItemWrites() {
+        Long productId = productService.createProduct(product(10)).getId();
+
+        Long orderItemId = measure(() -> orderItemService.createOrderItem(orderItem(productId, 2)).getId()).assertOneUnitOfWork();
+        measure(() -> orderItemService.updateOrderItem(orderItemId, orderItem(productId, 3))).assertOneUnitOfWork();
+        measure(() -> {
+            orderItemService.deleteOrderItem(orderItemId);
+            return null;
+        }).assertOneUnitOfWork();
+    }
+
+    @Test
+    void testOrderWrites() {
+        Long productId = productService.createProduct(product(10)).getId();
+        Long orderItemId = orderItemService.createOrderItem(orderItem(productId, 2)).getId();
+        OrderDto orderDto = new OrderDto();
+        orderDto.setCustomerName("Customer " + NAMES.incrementAndGet());
+        orderDto.setAddress("1 Test Street");
+        orderDto.setOrderItemIds(List.of(orderItemId));
+
+        Long orderId = measure(() -> orderService.createOrder(orderDto).getId()).assertOneUnitOfWork();
+        measure(() -> {
+            orderService.deleteOrder(orderId);
+            return null;
+        }).assertOneUnitOfWork();
+    }
+
+    @Test
+    void testCheckout() {
+        Long productId = productService.createProduct(product(10)).getId();
+        CheckoutDto checkoutDto = new CheckoutDto();
+        checkoutDto.setCustomerName("Customer " + NAMES.incrementAndGet());
+        checkoutDto.setAddress("1 Test Street");
+        checkoutDto.setItems(List.of(orderItem(productId, 1)));
+
+        measure(() -> orderService.checkout(checkoutDto)).assertOneUnitOfWork();
+    }
+
+    @Test
+    void testReadsUseOneConnection() {
+        Long productId = productService.createProduct(product(10)).getId();
+        orderItemService.createOrderItem(orderItem(productId, 1));
+
+        measure(() -> orderService.getAllOrders(null, 50)).assertOneUnitOfWork();
+        measure(() -> orderItemService.getAllOrderItems(null, 50)).assertOneUnitOfWork();
+        measure(() -> productService.getProductById(productId)).assertOneUnitOfWork();
+    }
+
+    @TestConfiguration
+    static class CountingConfig {
+
+        @Bean
+        static BeanPostProcessor countingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return "dataSource".equals(beanName) ? new CountingDataSource((DataSource) bean) : bean;
+                }
+            };
+        }
+    }
+
+    private static <T> Measured<T> measure(Supplier<T> operation) {
+        CountingDataSource.start();
+        try {
+            T result = operation.get();
+            return new Measured<>(result, CountingDataSource.connections.get(), CountingDataSource.commits.get());
+        } finally {
+            CountingDataSource.stop();
+        }
+    }
+
+    private record Measured<T>(T result, int connections, int commits) {
+        T assertOneUnitOfWork() {
+            assertEquals(1, connections, "connections");
+            assertEquals(1, commits, "commits");
+            return result;
+        }
+    }
+
+    private static ProductDto product(int unitsInStock) {
+        return new ProductDto("Product " + NAMES.incrementAndGet(), new BigDecimal("9.99"), unitsInStock);
+    }
+
+    private static OrderItemDto orderItem(Long productId, int quantity) {
+        OrderItemDto orderItemDto = new OrderItemDto();
+        orderItemDto.setProductId(productId);
+        orderItemDto.setQuantity(quantity);
+        return orderItemDto;
+    }
+
+    static class CountingDataSource extends DelegatingDataSource {
+
+        static final AtomicInteger connections = new AtomicInteger();
+        static final AtomicInteger commits = new AtomicInteger();
+        private static volatile Thread counted;
+
+        CountingDataSource(DataSource target) {
+            super(target);
+        }
+
+        static void start() {
+            connections.set(0);
+            commits.set(0);
+            counted = Thread.currentThread();
+        }
+
+        static void stop() {
+            counted = null;
+        }
+
+        private static boolean isCounted() {
+            return counted == Thread.currentThread();
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (isCounted()) connections.incrementAndGet();
+            return counting(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            if (isCounted()) connections.incrementAndGet();
+            return counting(super.getConnection(username, password));
+        }
+
+        // Explicit commits, plus statements run in auto-commit mode, which commit on their own
+        private static Connection counting(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (isCounted() && method.getName().equals("commit")) commits.incrementAndGet();
+                        if (isCounted() && method.getName().startsWith("prepare") && connection.getAutoCommit()) {
+                            commits.incrementAndGet();
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException ex) {
+                            throw ex.getCause();
+                        }
+                    });
+        }
+    }
+}